@@ -0,0 +1,116 @@
+package com.gaurav.socialMedia.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.gaurav.socialMedia.UserServiceApplication;
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.config.UserShardRouting;
+import com.gaurav.socialMedia.repository.UserShards;
+import com.gaurav.socialMedia.service.UserBulkWriter;
+
+/**
+ * Measures user inserts per second against the database the service is
+ * configured for. Starts user-service without its web server, runs, and
+ * stops it again:
+ * <pre>
+ * java -cp benchmarks.jar com.gaurav.socialMedia.benchmark.UserInsertBenchmark \
+ *     --spring.profiles.active=prod --user.benchmark.inserts=10000
+ * </pre>
+ * Pick the profile of the settings to compare, e.g. none for the defaults
+ * and {@code prod} for the production persistence profile.
+ * <p>
+ * "Single" inserts one user per call, as {@code registerUser} does; "bulk"
+ * inserts whole chunks. Both go through {@link UserBulkWriter}. Passwords are
+ * hashed once up front so only the database work is timed. Inserted rows and
+ * their outbox events are deleted afterwards.
+ */
+public final class UserInsertBenchmark {
+
+    private final UserBulkWriter bulkWriter;
+    private final UserShards shards;
+    private final JdbcTemplate jdbcTemplate;
+    private final String passwordHash;
+    private final int inserts;
+
+    private UserInsertBenchmark(ConfigurableApplicationContext context) {
+        this.bulkWriter = context.getBean(UserBulkWriter.class);
+        this.shards = context.getBean(UserShards.class);
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.passwordHash = context.getBean(PasswordEncoder.class).encode("benchmark-password");
+        this.inserts = context.getEnvironment().getProperty("user.benchmark.inserts", Integer.class, 10_000);
+    }
+
+    public static void main(String[] args) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UserServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args)) {
+            int warmupInserts = context.getEnvironment().getProperty("user.benchmark.warmup-inserts", Integer.class, 1000);
+            new UserInsertBenchmark(context).run(warmupInserts);
+        }
+    }
+
+    private void run(int warmupInserts) {
+        String prefix = "bench_" + UUID.randomUUID().toString().substring(0, 8) + "_";
+        try {
+            // Warm up connections, statement caches and the JIT
+            insertSingle(users(prefix + "ws", warmupInserts));
+            bulkWriter.insertAll(users(prefix + "wb", warmupInserts));
+
+            double single = rate(() -> insertSingle(users(prefix + "s", inserts)));
+            double bulk = rate(() -> bulkWriter.insertAll(users(prefix + "b", inserts)));
+
+            System.out.printf("Insert benchmark (%d users each): single %d inserts/s, bulk %d inserts/s (%.1fx)%n",
+                    inserts, Math.round(single), Math.round(bulk), bulk / single);
+        } finally {
+            cleanUp(prefix);
+        }
+    }
+
+    private double rate(Runnable inserting) {
+        long start = System.nanoTime();
+        inserting.run();
+        return inserts / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    private void insertSingle(List<User> users) {
+        for (User user : users) {
+            bulkWriter.insert(user);
+        }
+    }
+
+    private List<User> users(String prefix, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String username = prefix + i;
+            users.add(new User(username, username + "@benchmark.invalid", passwordHash, "Benchmark User " + i));
+        }
+        return users;
+    }
+
+    private void cleanUp(String prefix) {
+        try {
+            AtomicInteger deleted = new AtomicInteger();
+            shards.forEachShard(shard -> {
+                jdbcTemplate.update("DELETE o FROM user_outbox o JOIN users u ON u.id = o.user_id "
+                        + "WHERE u.username LIKE ?", prefix + "%");
+                deleted.addAndGet(jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", prefix + "%"));
+            });
+            UserShardRouting.onGlobal(() -> {
+                jdbcTemplate.update("DELETE FROM user_username_lookup WHERE username LIKE ?", prefix + "%");
+                return jdbcTemplate.update("DELETE FROM user_email_lookup WHERE email LIKE ?", prefix + "%");
+            });
+            System.out.printf("Removed %d benchmark users%n", deleted.get());
+        } catch (RuntimeException e) {
+            System.err.printf("Failed to remove benchmark users with prefix %s: %s%n", prefix, e);
+        }
+    }
+}
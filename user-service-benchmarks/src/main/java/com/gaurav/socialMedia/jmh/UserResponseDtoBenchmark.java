@@ -0,0 +1,52 @@
+package com.gaurav.socialMedia.jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+import com.gaurav.socialMedia.jmh.support.UserFixtures;
+
+/**
+ * Entity to DTO mapping, done for every user the service returns.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserResponseDtoBenchmark {
+
+    private User user;
+    private List<User> page;
+
+    @Setup
+    public void setUp() {
+        user = UserFixtures.user(42);
+        page = UserFixtures.users(100);
+    }
+
+    @Benchmark
+    public UserResponseDto fromUser() {
+        return new UserResponseDto(user);
+    }
+
+    // A page of getActiveUsers/searchUsers
+    @Benchmark
+    public List<UserResponseDto> fromUserPage100() {
+        return page.stream().map(UserResponseDto::new).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,98 @@
+package com.gaurav.socialMedia.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+import com.gaurav.socialMedia.config.JacksonConfig;
+import com.gaurav.socialMedia.config.RedisConfig;
+import com.gaurav.socialMedia.config.UserCacheValueSerializer;
+import com.gaurav.socialMedia.jmh.support.UserFixtures;
+
+/**
+ * Encoding and decoding of a cached profile and of the HTTP response body.
+ * <p>
+ * The "cache" benchmarks use the serializer {@code RedisConfig} installs
+ * (binary codec for profiles). The "json" benchmarks use
+ * {@link GenericJackson2JsonRedisSerializer} as configured there, which is
+ * how legacy entries are read: they come back as maps and are converted
+ * with {@code objectMapper.convertValue}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private UserCacheValueSerializer cacheSerializer;
+    private GenericJackson2JsonRedisSerializer jsonSerializer;
+
+    private UserResponseDto dto;
+    private byte[] cacheBytes;
+    private byte[] jsonBytes;
+    private Object jsonValue;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new JacksonConfig().objectMapper();
+        cacheSerializer = RedisConfig.cacheValueSerializer();
+        jsonSerializer = new GenericJackson2JsonRedisSerializer(new JacksonConfig().objectMapper());
+
+        dto = new UserResponseDto(UserFixtures.user(42));
+        cacheBytes = cacheSerializer.serialize(dto);
+        jsonBytes = jsonSerializer.serialize(dto);
+        jsonValue = jsonSerializer.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public byte[] cacheSerialize() {
+        return cacheSerializer.serialize(dto);
+    }
+
+    @Benchmark
+    public Object cacheDeserialize() {
+        return cacheSerializer.deserialize(cacheBytes);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(dto);
+    }
+
+    @Benchmark
+    public Object jsonDeserialize() {
+        return jsonSerializer.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public UserResponseDto jsonConvertValue() {
+        return objectMapper.convertValue(jsonValue, UserResponseDto.class);
+    }
+
+    // The whole legacy read: bytes to map to DTO
+    @Benchmark
+    public UserResponseDto jsonDeserializeAndConvert() {
+        return objectMapper.convertValue(jsonSerializer.deserialize(jsonBytes), UserResponseDto.class);
+    }
+
+    @Benchmark
+    public byte[] httpResponseBody() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dto);
+    }
+}
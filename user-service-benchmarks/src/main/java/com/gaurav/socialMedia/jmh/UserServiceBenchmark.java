@@ -0,0 +1,140 @@
+package com.gaurav.socialMedia.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+import com.gaurav.socialMedia.jmh.support.InMemoryUserService;
+import com.gaurav.socialMedia.jmh.support.UserFixtures;
+
+/**
+ * {@code UserServiceImpl} read paths against in-memory stand-ins for the
+ * repository and Redis. With I/O taken out, the numbers are the service's
+ * own CPU cost per call: cache lookups, (de)serialization, mapping and
+ * coalescing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @State(Scope.Benchmark)
+    public static class Users {
+
+        @Param("10000")
+        int users;
+
+        List<User> all;
+
+        @Setup
+        public void setUp() {
+            all = UserFixtures.users(users);
+        }
+
+        User random() {
+            return all.get(ThreadLocalRandom.current().nextInt(all.size()));
+        }
+
+        List<Long> randomIds(int count) {
+            List<Long> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ids.add(random().getId());
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Every user in the repository, Redis and the near cache.
+     */
+    @State(Scope.Benchmark)
+    public static class NearCached {
+
+        InMemoryUserService users;
+
+        @Setup
+        public void setUp(Users fixture) {
+            users = new InMemoryUserService(true);
+            users.save(fixture.all);
+            users.cache(fixture.all);
+            for (User user : fixture.all) {
+                users.nearCache().put(user.getId(), new UserResponseDto(user));
+            }
+        }
+    }
+
+    /**
+     * Every user in the repository and Redis, with the near cache off.
+     */
+    @State(Scope.Benchmark)
+    public static class RedisCached {
+
+        InMemoryUserService users;
+
+        @Setup
+        public void setUp(Users fixture) {
+            users = new InMemoryUserService(false);
+            users.save(fixture.all);
+            users.cache(fixture.all);
+        }
+    }
+
+    @Benchmark
+    public Optional<UserResponseDto> getUserByIdNearCache(Users fixture, NearCached state) {
+        return state.users.service().getUserById(fixture.random().getId());
+    }
+
+    @Benchmark
+    public Optional<UserResponseDto> getUserByIdRedis(Users fixture, RedisCached state) {
+        return state.users.service().getUserById(fixture.random().getId());
+    }
+
+    // Includes evicting the entry first, which is one in-memory DEL
+    @Benchmark
+    public Optional<UserResponseDto> getUserByIdDatabase(Users fixture, RedisCached state) {
+        User user = fixture.random();
+        state.users.profileCache().evictAll(List.of(user));
+        return state.users.service().getUserById(user.getId());
+    }
+
+    // Answered by the negative cache after the first miss
+    @Benchmark
+    public Optional<UserResponseDto> getUserByIdUnknown(Users fixture, RedisCached state) {
+        return state.users.service().getUserById(-fixture.random().getId());
+    }
+
+    @Benchmark
+    public List<UserResponseDto> getUsersByIds100Redis(Users fixture, RedisCached state) {
+        return state.users.service().getUsersByIds(fixture.randomIds(BATCH_SIZE));
+    }
+
+    @Benchmark
+    public Optional<UserResponseDto> getUserByUsernameRedis(Users fixture, RedisCached state) {
+        return state.users.service().getUserByUsername(fixture.random().getUsername());
+    }
+
+    @Benchmark
+    public boolean existsByUsernameRedis(Users fixture, RedisCached state) {
+        return state.users.service().existsByUsername(fixture.random().getUsername());
+    }
+}
@@ -0,0 +1,237 @@
+package com.gaurav.socialMedia.jmh.support;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.data.redis.core.types.Expiration;
+
+/**
+ * Redis stand-in that keeps strings and hashes in process memory.
+ * <p>
+ * Connections are dynamic proxies that implement the commands the user
+ * service issues (hashes, strings, DEL/EXISTS/EXPIRE, PUBLISH and
+ * pipelining) on raw bytes, so {@code RedisTemplate} still runs its real key
+ * and value serializers. Any other command fails loudly, which keeps a
+ * benchmark from silently measuring a no-op.
+ */
+public class InMemoryRedisConnectionFactory implements RedisConnectionFactory {
+
+    // Keys are byte strings; ISO-8859-1 maps each byte to one char, losslessly
+    private final Map<String, Object> data = new ConcurrentHashMap<>();
+    private final Map<String, Long> expiresAt = new ConcurrentHashMap<>();
+
+    @Override
+    public RedisConnection getConnection() {
+        return (RedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {RedisConnection.class}, new Connection());
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection() {
+        throw new UnsupportedOperationException("Cluster mode is not supported");
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults() {
+        return true;
+    }
+
+    @Override
+    public RedisSentinelConnection getSentinelConnection() {
+        throw new UnsupportedOperationException("Sentinel is not supported");
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+        return null;
+    }
+
+    public void flushAll() {
+        data.clear();
+        expiresAt.clear();
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    private static String str(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] bytes(String str) {
+        return str.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private Object read(String key) {
+        Long expiry = expiresAt.get(key);
+        if (expiry != null && expiry <= System.currentTimeMillis()) {
+            data.remove(key);
+            expiresAt.remove(key);
+            return null;
+        }
+        return data.get(key);
+    }
+
+    private long delete(String key) {
+        expiresAt.remove(key);
+        return data.remove(key) != null ? 1 : 0;
+    }
+
+    private void setString(String key, byte[] value, long ttlMillis) {
+        data.put(key, value);
+        if (ttlMillis > 0) {
+            expiresAt.put(key, System.currentTimeMillis() + ttlMillis);
+        } else {
+            expiresAt.remove(key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, byte[]> hash(String key, boolean create) {
+        Object value = read(key);
+        if (value == null && create) {
+            Map<String, byte[]> created = new ConcurrentHashMap<>();
+            Object existing = data.putIfAbsent(key, created);
+            return existing == null ? created : (Map<String, byte[]>) existing;
+        }
+        if (value != null && !(value instanceof Map)) {
+            throw new IllegalStateException("WRONGTYPE Operation against a key holding the wrong kind of value");
+        }
+        return (Map<String, byte[]>) value;
+    }
+
+    private final class Connection implements InvocationHandler {
+
+        private List<Object> pipeline;
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.endsWith("Commands") && method.getParameterCount() == 0) {
+                // RedisConnection implements every command interface itself
+                return proxy;
+            }
+            switch (name) {
+                case "openPipeline":
+                    pipeline = new ArrayList<>();
+                    return null;
+                case "closePipeline":
+                    List<Object> results = pipeline == null ? List.of() : pipeline;
+                    pipeline = null;
+                    return results;
+                case "isPipelined":
+                    return pipeline != null;
+                case "isQueueing":
+                    return false;
+                case "isClosed":
+                    return closed;
+                case "close":
+                    closed = true;
+                    return null;
+                case "getNativeConnection":
+                    return this;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "InMemoryRedisConnection";
+                default:
+                    break;
+            }
+            Object result = execute(name, args);
+            if (pipeline != null) {
+                pipeline.add(result);
+                return null;
+            }
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object execute(String name, Object[] args) {
+            switch (name) {
+                case "get": {
+                    Object value = read(str((byte[]) args[0]));
+                    return value instanceof byte[] ? value : null;
+                }
+                case "set":
+                    setString(str((byte[]) args[0]), (byte[]) args[1],
+                            args.length > 2 && args[2] instanceof Expiration && !((Expiration) args[2]).isPersistent()
+                                    ? ((Expiration) args[2]).getExpirationTimeInMilliseconds() : 0);
+                    return Boolean.TRUE;
+                case "setEx":
+                    setString(str((byte[]) args[0]), (byte[]) args[2], ((Number) args[1]).longValue() * 1000);
+                    return Boolean.TRUE;
+                case "pSetEx":
+                    setString(str((byte[]) args[0]), (byte[]) args[2], ((Number) args[1]).longValue());
+                    return Boolean.TRUE;
+                case "del":
+                case "unlink": {
+                    long deleted = 0;
+                    for (byte[] key : (byte[][]) args[0]) {
+                        deleted += delete(str(key));
+                    }
+                    return deleted;
+                }
+                case "exists":
+                    if (args[0] instanceof byte[]) {
+                        return read(str((byte[]) args[0])) != null;
+                    } else {
+                        long found = 0;
+                        for (byte[] key : (byte[][]) args[0]) {
+                            found += read(str(key)) != null ? 1 : 0;
+                        }
+                        return found;
+                    }
+                case "expire":
+                case "pExpire": {
+                    String key = str((byte[]) args[0]);
+                    if (read(key) == null) {
+                        return Boolean.FALSE;
+                    }
+                    long amount = ((Number) args[1]).longValue();
+                    expiresAt.put(key, System.currentTimeMillis() + (name.equals("expire") ? amount * 1000 : amount));
+                    return Boolean.TRUE;
+                }
+                case "hGetAll": {
+                    Map<String, byte[]> hash = hash(str((byte[]) args[0]), false);
+                    Map<byte[], byte[]> copy = new LinkedHashMap<>();
+                    if (hash != null) {
+                        hash.forEach((field, value) -> copy.put(bytes(field), value));
+                    }
+                    return copy;
+                }
+                case "hGet": {
+                    Map<String, byte[]> hash = hash(str((byte[]) args[0]), false);
+                    return hash == null ? null : hash.get(str((byte[]) args[1]));
+                }
+                case "hMSet": {
+                    Map<String, byte[]> hash = hash(str((byte[]) args[0]), true);
+                    ((Map<byte[], byte[]>) args[1]).forEach((field, value) -> hash.put(str(field), value));
+                    return null;
+                }
+                case "hSet":
+                    return hash(str((byte[]) args[0]), true).put(str((byte[]) args[1]), (byte[]) args[2]) == null;
+                case "publish":
+                    // No subscribers in process
+                    return 0L;
+                default:
+                    throw new UnsupportedOperationException("Command not supported in memory: " + name);
+            }
+        }
+    }
+}
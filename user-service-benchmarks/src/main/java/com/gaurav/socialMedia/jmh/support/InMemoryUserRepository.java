@@ -0,0 +1,109 @@
+package com.gaurav.socialMedia.jmh.support;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.repository.UserRepository;
+
+/**
+ * {@link UserRepository} stand-in backed by maps, for benchmarking the
+ * service without a database. Only the lookups and saves used on the
+ * benchmarked paths are implemented; anything else throws.
+ */
+public final class InMemoryUserRepository implements InvocationHandler {
+
+    private final Map<Long, User> byId = new ConcurrentHashMap<>();
+    private final Map<String, User> byUsername = new ConcurrentHashMap<>();
+    private final Map<String, User> byEmail = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    private InMemoryUserRepository() {
+    }
+
+    public static UserRepository create() {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[] {UserRepository.class}, new InMemoryUserRepository());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "save":
+                return save((User) args[0]);
+            case "saveAll": {
+                List<User> saved = new ArrayList<>();
+                for (User user : (Iterable<User>) args[0]) {
+                    saved.add(save(user));
+                }
+                return saved;
+            }
+            case "findById":
+                return Optional.ofNullable(byId.get((Long) args[0]));
+            case "existsById":
+                return byId.containsKey((Long) args[0]);
+            case "findAllById": {
+                List<User> found = new ArrayList<>();
+                for (Long id : (Iterable<Long>) args[0]) {
+                    User user = byId.get(id);
+                    if (user != null) {
+                        found.add(user);
+                    }
+                }
+                return found;
+            }
+            case "findExistingIds": {
+                List<Long> found = new ArrayList<>();
+                for (Long id : (Collection<Long>) args[0]) {
+                    if (byId.containsKey(id)) {
+                        found.add(id);
+                    }
+                }
+                return found;
+            }
+            case "findByUsername":
+                return Optional.ofNullable(byUsername.get(normalize(args[0])));
+            case "findByEmail":
+                return Optional.ofNullable(byEmail.get(normalize(args[0])));
+            case "existsByUsername":
+                return byUsername.containsKey(normalize(args[0]));
+            case "existsByEmail":
+                return byEmail.containsKey(normalize(args[0]));
+            case "count":
+                return (long) byId.size();
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "InMemoryUserRepository";
+            default:
+                throw new UnsupportedOperationException("Not supported in memory: " + method.getName());
+        }
+    }
+
+    private User save(User user) {
+        if (user.getId() == null) {
+            user.setId(nextId.getAndIncrement());
+        }
+        byId.put(user.getId(), user);
+        byUsername.put(normalize(user.getUsername()), user);
+        byEmail.put(normalize(user.getEmail()), user);
+        return user;
+    }
+
+    // MySQL compares usernames and emails case-insensitively
+    private static String normalize(Object value) {
+        return ((String) value).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,111 @@
+package com.gaurav.socialMedia.jmh.support;
+
+import java.time.Duration;
+import java.util.Collection;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.config.JacksonConfig;
+import com.gaurav.socialMedia.config.RedisConfig;
+import com.gaurav.socialMedia.config.UserCacheValueSerializer;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+import com.gaurav.socialMedia.repository.UserRepository;
+import com.gaurav.socialMedia.repository.UserShards;
+import com.gaurav.socialMedia.service.UserAvailabilityFilter;
+import com.gaurav.socialMedia.service.UserLoadCoalescer;
+import com.gaurav.socialMedia.service.UserNearCache;
+import com.gaurav.socialMedia.service.UserNegativeCache;
+import com.gaurav.socialMedia.service.UserProfileCache;
+import com.gaurav.socialMedia.service.UserServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * A real {@link UserServiceImpl} wired to {@link InMemoryUserRepository} and
+ * {@link InMemoryRedisConnectionFactory}, with the caches configured as in
+ * {@code application.yml}.
+ * <p>
+ * Only the read paths are meant to be benchmarked: the write-side
+ * collaborators (transactions, password hashing, counters, outbox, bulk
+ * writer, search indexes) are left {@code null}.
+ */
+public final class InMemoryUserService {
+
+    private final InMemoryRedisConnectionFactory redis = new InMemoryRedisConnectionFactory();
+    private final UserRepository repository = InMemoryUserRepository.create();
+    private final UserProfileCache profileCache;
+    private final UserNearCache nearCache;
+    private final UserServiceImpl service;
+
+    /**
+     * @param nearCacheEnabled {@code false} makes every near cache entry
+     *                         expire immediately, so reads go to Redis
+     */
+    public InMemoryUserService(boolean nearCacheEnabled) {
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(redis);
+
+        this.profileCache = new UserProfileCache(redisTemplate(redis), objectMapper, meterRegistry, 0.1, 1.0);
+        this.nearCache = new UserNearCache(stringRedisTemplate, meterRegistry, 10_000,
+                nearCacheEnabled ? Duration.ofSeconds(30) : Duration.ZERO);
+        UserNegativeCache negativeCache = new UserNegativeCache(stringRedisTemplate, meterRegistry, 100_000,
+                Duration.ofSeconds(60));
+        // Never rebuilt, so it answers "maybe taken" and checks fall through to the cache
+        UserAvailabilityFilter availabilityFilter = new UserAvailabilityFilter(null, UserShards.unsharded(),
+                stringRedisTemplate, 1_000_000, 0.01);
+
+        this.service = new UserServiceImpl(ShardedUserRepository.unsharded(repository), profileCache, null, null, objectMapper, null, null,
+                nearCache, availabilityFilter, null, null, null, new UserLoadCoalescer(meterRegistry),
+                negativeCache, null, null, null, meterRegistry);
+    }
+
+    // Same serializers as RedisConfig#redisTemplate
+    private static RedisTemplate<String, Object> redisTemplate(InMemoryRedisConnectionFactory redis) {
+        UserCacheValueSerializer valueSerializer = RedisConfig.cacheValueSerializer();
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(redis);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * Stores the users in the repository stand-in.
+     */
+    public void save(Collection<User> users) {
+        for (User user : users) {
+            repository.save(user);
+        }
+    }
+
+    /**
+     * Writes the users to the Redis stand-in, as the outbox relay would.
+     */
+    public void cache(Collection<User> users) {
+        profileCache.putAll(users);
+    }
+
+    public UserServiceImpl service() {
+        return service;
+    }
+
+    public UserProfileCache profileCache() {
+        return profileCache;
+    }
+
+    public UserNearCache nearCache() {
+        return nearCache;
+    }
+
+    public InMemoryRedisConnectionFactory redis() {
+        return redis;
+    }
+}
@@ -0,0 +1,47 @@
+package com.gaurav.socialMedia.jmh.support;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gaurav.socialMedia.Entity.User;
+
+/**
+ * Users with realistic field sizes, identical on every run so results are
+ * comparable between builds.
+ */
+public final class UserFixtures {
+
+    // Shaped like a strength-10 BCrypt hash; only stored, never verified
+    private static final String PASSWORD_HASH = "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5.VHXrN0.9jYQ8GB9z4dO2y";
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 15, 10, 30, 45);
+
+    private UserFixtures() {
+    }
+
+    public static User user(long id) {
+        User user = new User("user_" + id, "user_" + id + "@example.com", PASSWORD_HASH, "Benchmark User " + id);
+        user.setId(id);
+        user.setBio("Writes about distributed systems, coffee and long bike rides. Opinions are my own. #" + id);
+        user.setProfileImageUrl("https://cdn.example.com/avatars/" + id + ".png");
+        user.setFollowersCount((int) (id * 37 % 100_000));
+        user.setFollowingCount((int) (id * 11 % 5_000));
+        user.setTweetsCount((int) (id * 53 % 20_000));
+        user.setIsVerified(id % 10 == 0);
+        user.setIsActive(true);
+        user.setCreatedAt(CREATED_AT.plusMinutes(id));
+        user.setUpdatedAt(CREATED_AT.plusMinutes(id));
+        return user;
+    }
+
+    /**
+     * Users with ids {@code 1..count}.
+     */
+    public static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            users.add(user(id));
+        }
+        return users;
+    }
+}
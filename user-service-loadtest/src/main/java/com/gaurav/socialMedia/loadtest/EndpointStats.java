@@ -0,0 +1,58 @@
+package com.gaurav.socialMedia.loadtest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies and outcomes of one endpoint during the measured window.
+ * Latency runs from the request's scheduled start, not from when it was
+ * actually sent, so a stalled service is charged for the requests queued
+ * behind it (no coordinated omission).
+ */
+final class EndpointStats {
+
+    // 1 µs to 60 s at 3 significant digits
+    private static final long MAX_LATENCY_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    private final Histogram latencyMicros = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    void record(long latencyNanos, boolean success) {
+        latencyMicros.recordValue(Math.min(MAX_LATENCY_MICROS, Math.max(1, latencyNanos / 1_000)));
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    void recordTimeout() {
+        timeouts.increment();
+    }
+
+    long count() {
+        return latencyMicros.getTotalCount();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    long timeouts() {
+        return timeouts.sum();
+    }
+
+    double percentileMillis(double percentile) {
+        return latencyMicros.getTotalCount() == 0 ? 0 : latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    double meanMillis() {
+        return latencyMicros.getTotalCount() == 0 ? 0 : latencyMicros.getMean() / 1000.0;
+    }
+
+    double maxMillis() {
+        return latencyMicros.getMaxValue() / 1000.0;
+    }
+}
@@ -0,0 +1,148 @@
+package com.gaurav.socialMedia.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Open-loop request generator.
+ * <p>
+ * Arrival times are fixed in advance from the target rate (evenly spaced
+ * or Poisson), and each request is sent at its time no matter how many are
+ * still outstanding, the way independent users arrive. A slow service
+ * therefore builds a queue and shows it in the latencies instead of quietly
+ * lowering the offered load, as a closed loop of N workers would. Past
+ * {@code max-in-flight} outstanding requests new arrivals are dropped and
+ * counted, to keep the generator itself from running out of memory.
+ */
+@Slf4j
+final class LoadGenerator {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadTestOptions options;
+    private final Workload workload;
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ExecutorService responseExecutor;
+    private final HttpClient client;
+
+    LoadGenerator(LoadTestOptions options, Workload workload) {
+        this.options = options;
+        this.workload = workload;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new EndpointStats());
+        }
+        this.responseExecutor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "loadtest-http");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(responseExecutor)
+                .build();
+    }
+
+    /**
+     * Runs the warm-up and the measured window, then waits for outstanding
+     * requests. Only requests scheduled inside the measured window count.
+     *
+     * @param onMeasuring called from the scheduling thread just before the
+     *                    first measured request is sent
+     * @return the measured window's length in nanoseconds
+     */
+    long run(Runnable onMeasuring) throws InterruptedException {
+        SplittableRandom arrivals = new SplittableRandom(options.getSeed() + 1);
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.getWarmup().toNanos();
+        long end = measureFrom + options.getDuration().toNanos();
+        log.info("Offering {} requests/s: {} warm-up, then {} measured", options.getRate(),
+                options.getWarmup(), options.getDuration());
+
+        double next = start;
+        boolean measuring = false;
+        while (next < end) {
+            long scheduled = (long) next;
+            next += options.isPoisson()
+                    ? -Math.log(1.0 - arrivals.nextDouble()) * meanIntervalNanos
+                    : meanIntervalNanos;
+
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = scheduled >= measureFrom;
+            if (measured && !measuring) {
+                measuring = true;
+                onMeasuring.run();
+            }
+            if (inFlight.get() >= options.getMaxInFlight()) {
+                if (measured) {
+                    dropped.increment();
+                }
+                continue;
+            }
+            send(workload.nextOperation(), scheduled, measured);
+        }
+
+        long drainUntil = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+        if (inFlight.get() > 0) {
+            log.warn("{} requests still outstanding after {}", inFlight.get(), DRAIN_TIMEOUT);
+        }
+        return end - measureFrom;
+    }
+
+    private void send(Operation operation, long scheduled, boolean measured) {
+        inFlight.incrementAndGet();
+        client.sendAsync(workload.request(operation), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long latency = System.nanoTime() - scheduled;
+                    inFlight.decrementAndGet();
+                    if (!measured) {
+                        return;
+                    }
+                    EndpointStats endpoint = stats.get(operation);
+                    if (error != null) {
+                        if (error instanceof HttpTimeoutException || error.getCause() instanceof HttpTimeoutException) {
+                            endpoint.recordTimeout();
+                        }
+                        endpoint.record(latency, false);
+                    } else {
+                        endpoint.record(latency, response.statusCode() / 100 == 2);
+                    }
+                });
+    }
+
+    Map<Operation, EndpointStats> getStats() {
+        return stats;
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    void close() {
+        responseExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,162 @@
+package com.gaurav.socialMedia.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.github.fppt.jedismock.RedisServer;
+import com.gaurav.socialMedia.UserServiceApplication;
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.repository.UserOutboxRepository;
+import com.gaurav.socialMedia.repository.UserShards;
+import com.gaurav.socialMedia.service.UserAutocompleteIndex;
+import com.gaurav.socialMedia.service.UserAvailabilityFilter;
+import com.gaurav.socialMedia.service.UserBulkWriter;
+import com.gaurav.socialMedia.service.UserSearchIndex;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Boots user-service on local stand-ins, seeds users, offers an open-loop
+ * request mix over HTTP and reports the results.
+ * <p>
+ * Stand-ins: H2 in MySQL mode with the MySQL dialect (so the service's SQL
+ * runs unchanged), jedis-mock as a Redis-protocol server on a free port,
+ * and a {@code MockConsumer} for the counter event topic (see
+ * {@link LoadTestStandInConfig}). Everything runs in this JVM, so give the
+ * load test a machine to itself and read the numbers as relative: they
+ * compare builds and settings, not production capacity in absolute terms.
+ */
+@Slf4j
+public final class LoadTestMain {
+
+    private static final int SEED_CHUNK = 1_000;
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        RedisServer redis = RedisServer.newRedisServer().start();
+        ConfigurableApplicationContext context = null;
+        int exitCode = 0;
+        try {
+            context = boot(options, redis);
+            List<Long> userIds = seed(context, options);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Workload workload = new Workload("http://localhost:" + port, userIds, options);
+            LoadGenerator generator = new LoadGenerator(options, workload);
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+
+            LoadTestReport.CacheSnapshot[] before = new LoadTestReport.CacheSnapshot[1];
+            long measuredNanos;
+            try {
+                measuredNanos = generator.run(() -> before[0] = new LoadTestReport.CacheSnapshot(registry));
+            } finally {
+                generator.close();
+            }
+
+            LoadTestReport report = new LoadTestReport(options, generator, measuredNanos, before[0],
+                    new LoadTestReport.CacheSnapshot(registry));
+            System.out.println(report.toTable());
+            report.write(options.getReport());
+            log.info("Report written to {}", options.getReport());
+        } catch (Exception e) {
+            log.error("Load test failed", e);
+            exitCode = 1;
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            redis.stop();
+        }
+        System.exit(exitCode);
+    }
+
+    private static ConfigurableApplicationContext boot(LoadTestOptions options, RedisServer redis) {
+        List<String> profiles = new ArrayList<>();
+        for (String profile : options.getProfiles().split(",")) {
+            if (!profile.isBlank()) {
+                profiles.add(profile.trim());
+            }
+        }
+        // Last, so its stand-in settings win over e.g. the prod datasource
+        profiles.add("loadtest");
+        // System properties, so they win over the config files
+        System.setProperty("server.port", "0");
+        System.setProperty("spring.data.redis.host", redis.getHost());
+        System.setProperty("spring.data.redis.port", Integer.toString(redis.getBindPort()));
+        System.setProperty("spring.threads.virtual.enabled", Boolean.toString(options.isVirtualThreads()));
+        if (options.getShards() > 1) {
+            List<String> shardUrls = new ArrayList<>();
+            for (int shard = 1; shard < options.getShards(); shard++) {
+                shardUrls.add("jdbc:h2:mem:users-shard-" + shard
+                        + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1");
+            }
+            System.setProperty("user.sharding.shards", String.join(",", shardUrls));
+        }
+        return new SpringApplicationBuilder(UserServiceApplication.class)
+                .profiles(profiles.toArray(new String[0]))
+                .run();
+    }
+
+    /**
+     * Inserts the users through the batched writer with one shared password
+     * hash, waits until the outbox relay has cached them, and rebuilds the
+     * in-memory indexes that are normally loaded at startup.
+     */
+    private static List<Long> seed(ConfigurableApplicationContext context, LoadTestOptions options)
+            throws InterruptedException {
+        long start = System.currentTimeMillis();
+        UserBulkWriter bulkWriter = context.getBean(UserBulkWriter.class);
+        String passwordHash = context.getBean(PasswordEncoder.class).encode("load-test-password");
+        SplittableRandom random = new SplittableRandom(options.getSeed());
+
+        List<Long> ids = new ArrayList<>(options.getUsers());
+        List<User> chunk = new ArrayList<>(SEED_CHUNK);
+        for (int i = 0; i < options.getUsers(); i++) {
+            String first = Workload.FIRST_NAMES[random.nextInt(Workload.FIRST_NAMES.length)];
+            String last = Workload.LAST_NAMES[random.nextInt(Workload.LAST_NAMES.length)];
+            String username = "seed_" + i;
+            User user = new User(username, username + "@loadtest.invalid", passwordHash, first + " " + last);
+            user.setBio("Seeded for load testing");
+            chunk.add(user);
+            if (chunk.size() == SEED_CHUNK || i == options.getUsers() - 1) {
+                for (User saved : bulkWriter.insertAll(chunk)) {
+                    ids.add(saved.getId());
+                }
+                chunk = new ArrayList<>(SEED_CHUNK);
+            }
+        }
+
+        UserOutboxRepository outbox = context.getBean(UserOutboxRepository.class);
+        UserShards shards = context.getBean(UserShards.class);
+        boolean[] pending = {true};
+        while (pending[0]) {
+            pending[0] = false;
+            shards.forEachShard(shard -> pending[0] |= !outbox.findBatch(1).isEmpty());
+            if (pending[0]) {
+                Thread.sleep(100);
+            }
+        }
+        if (options.isColdCache()) {
+            try (RedisConnection connection = context.getBean(RedisConnectionFactory.class).getConnection()) {
+                connection.serverCommands().flushAll();
+            }
+        }
+        context.getBean(UserAvailabilityFilter.class).rebuild();
+        context.getBean(UserSearchIndex.class).rebuild();
+        context.getBean(UserAutocompleteIndex.class).rebuild();
+        log.info("Seeded {} users in {} ms", ids.size(), System.currentTimeMillis() - start);
+        return ids;
+    }
+}
@@ -0,0 +1,166 @@
+package com.gaurav.socialMedia.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command line of the load test, given as {@code --name=value}:
+ * <ul>
+ *   <li>{@code rate}: requests per second to start, whatever the response
+ *       times (default 200)</li>
+ *   <li>{@code arrivals}: {@code poisson} (default) or {@code uniform}
+ *       spacing between requests</li>
+ *   <li>{@code duration}: measured run, e.g. {@code 60s} or {@code 5m}
+ *       (default 60s)</li>
+ *   <li>{@code warmup}: load before measuring starts (default 15s)</li>
+ *   <li>{@code mix}: operation weights (default
+ *       {@code profile=70,search=10,counter=15,register=5})</li>
+ *   <li>{@code users}: users seeded before the run (default 10000)</li>
+ *   <li>{@code zipf}: skew of profile/counter ids, 0 for uniform
+ *       (default 1.0)</li>
+ *   <li>{@code max-in-flight}: outstanding requests before new arrivals are
+ *       dropped and counted (default 5000)</li>
+ *   <li>{@code cold-cache}: empty Redis after seeding (default false)</li>
+ *   <li>{@code profiles}: extra service profiles, e.g. {@code prod}</li>
+ *   <li>{@code shards}: in-memory databases to shard users over (default 1,
+ *       i.e. unsharded)</li>
+ *   <li>{@code virtual-threads}: serve requests on virtual threads
+ *       ({@code spring.threads.virtual.enabled}); needs Java 21 and is
+ *       rejected on older runtimes (default false)</li>
+ *   <li>{@code report}: JSON report path (default loadtest-result.json)</li>
+ *   <li>{@code seed}: random seed, for repeatable request sequences</li>
+ * </ul>
+ */
+public final class LoadTestOptions {
+
+    private double rate = 200;
+    private boolean poisson = true;
+    private Duration duration = Duration.ofSeconds(60);
+    private Duration warmup = Duration.ofSeconds(15);
+    private final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    private int users = 10_000;
+    private double zipf = 1.0;
+    private int maxInFlight = 5_000;
+    private boolean coldCache;
+    private String profiles = "";
+    private int shards = 1;
+    private boolean virtualThreads;
+    private String report = "loadtest-result.json";
+    private long seed = 42;
+
+    private LoadTestOptions() {
+        parseMix("profile=70,search=10,counter=15,register=5");
+    }
+
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            String[] parts = arg.substring(2).split("=", 2);
+            values.put(parts[0], parts[1]);
+        }
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String value = entry.getValue();
+            switch (entry.getKey()) {
+                case "rate" -> options.rate = Double.parseDouble(value);
+                case "arrivals" -> options.poisson = parseArrivals(value);
+                case "duration" -> options.duration = parseDuration(value);
+                case "warmup" -> options.warmup = parseDuration(value);
+                case "mix" -> options.parseMix(value);
+                case "users" -> options.users = Integer.parseInt(value);
+                case "zipf" -> options.zipf = Double.parseDouble(value);
+                case "max-in-flight" -> options.maxInFlight = Integer.parseInt(value);
+                case "cold-cache" -> options.coldCache = Boolean.parseBoolean(value);
+                case "profiles" -> options.profiles = value;
+                case "shards" -> options.shards = Integer.parseInt(value);
+                case "virtual-threads" -> options.virtualThreads = Boolean.parseBoolean(value);
+                case "report" -> options.report = value;
+                case "seed" -> options.seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option: --" + entry.getKey());
+            }
+        }
+        if (options.rate <= 0 || options.users <= 0 || options.maxInFlight <= 0 || options.shards <= 0) {
+            throw new IllegalArgumentException("rate, users, max-in-flight and shards must be positive");
+        }
+        // A run on platform threads would pass for a virtual-thread result
+        if (options.virtualThreads && Runtime.version().feature() < 21) {
+            throw new IllegalArgumentException("virtual-threads needs Java 21, running on " + Runtime.version());
+        }
+        return options;
+    }
+
+    private static boolean parseArrivals(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "poisson" -> true;
+            case "uniform" -> false;
+            default -> throw new IllegalArgumentException("arrivals must be poisson or uniform: " + value);
+        };
+    }
+
+    // 90s, 5m, 250ms or plain seconds
+    static Duration parseDuration(String value) {
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        }
+        if (v.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        if (v.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(v));
+    }
+
+    private void parseMix(String value) {
+        mix.clear();
+        for (String part : value.split(",")) {
+            String[] kv = part.trim().split("=", 2);
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Mix entries look like profile=70: " + part);
+            }
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Mix weights cannot be negative: " + part);
+            }
+            mix.put(Operation.of(kv[0].trim()), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Mix has no operations: " + value);
+        }
+    }
+
+    public double getRate() { return rate; }
+
+    public boolean isPoisson() { return poisson; }
+
+    public Duration getDuration() { return duration; }
+
+    public Duration getWarmup() { return warmup; }
+
+    public Map<Operation, Integer> getMix() { return mix; }
+
+    public int getUsers() { return users; }
+
+    public double getZipf() { return zipf; }
+
+    public int getMaxInFlight() { return maxInFlight; }
+
+    public boolean isColdCache() { return coldCache; }
+
+    public String getProfiles() { return profiles; }
+
+    public int getShards() { return shards; }
+
+    public boolean isVirtualThreads() { return virtualThreads; }
+
+    public String getReport() { return report; }
+
+    public long getSeed() { return seed; }
+}
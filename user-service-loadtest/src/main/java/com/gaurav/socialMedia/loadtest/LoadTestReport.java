@@ -0,0 +1,162 @@
+package com.gaurav.socialMedia.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.StreamSupport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Statistic;
+
+/**
+ * Throughput and latency per endpoint plus cache hit ratios for the
+ * measured window, printed as a table and written as JSON.
+ * <p>
+ * Hit ratios come from the service's {@code cache.gets} meters, sampled
+ * when measuring starts and ends: {@code user-near-cache} is the in-process
+ * Caffeine layer, {@code user-profile-cache} the Redis layer behind it, and
+ * {@code user-negative-cache} the cache of ids and usernames known not to
+ * exist.
+ */
+final class LoadTestReport {
+
+    static final String[] CACHES = {"user-near-cache", "user-profile-cache", "user-negative-cache"};
+
+    private final Map<String, Object> report = new LinkedHashMap<>();
+
+    LoadTestReport(LoadTestOptions options, LoadGenerator generator, long measuredNanos,
+                   CacheSnapshot before, CacheSnapshot after) {
+        double seconds = measuredNanos / 1e9;
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("rate", options.getRate());
+        config.put("arrivals", options.isPoisson() ? "poisson" : "uniform");
+        config.put("durationSeconds", options.getDuration().toSeconds());
+        config.put("warmupSeconds", options.getWarmup().toSeconds());
+        config.put("users", options.getUsers());
+        config.put("zipf", options.getZipf());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        options.getMix().forEach((operation, weight) -> mix.put(operation.getKey(), weight));
+        config.put("mix", mix);
+        config.put("coldCache", options.isColdCache());
+        config.put("profiles", options.getProfiles());
+        config.put("shards", options.getShards());
+        config.put("virtualThreads", options.isVirtualThreads());
+        config.put("javaVersion", Runtime.version().toString());
+        report.put("config", config);
+
+        long completed = 0;
+        long errors = 0;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<Operation, EndpointStats> entry : generator.getStats().entrySet()) {
+            EndpointStats stats = entry.getValue();
+            if (stats.count() == 0) {
+                continue;
+            }
+            completed += stats.count();
+            errors += stats.errors();
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("endpoint", entry.getKey().getEndpoint());
+            endpoint.put("requests", stats.count());
+            endpoint.put("errors", stats.errors());
+            endpoint.put("timeouts", stats.timeouts());
+            endpoint.put("throughput", round(stats.count() / seconds));
+            endpoint.put("meanMs", round(stats.meanMillis()));
+            endpoint.put("p50Ms", round(stats.percentileMillis(50)));
+            endpoint.put("p99Ms", round(stats.percentileMillis(99)));
+            endpoint.put("p999Ms", round(stats.percentileMillis(99.9)));
+            endpoint.put("maxMs", round(stats.maxMillis()));
+            endpoints.put(entry.getKey().getKey(), endpoint);
+        }
+
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("measuredSeconds", round(seconds));
+        totals.put("offeredRate", options.getRate());
+        totals.put("throughput", round(completed / seconds));
+        totals.put("requests", completed);
+        totals.put("errors", errors);
+        totals.put("dropped", generator.getDropped());
+        report.put("totals", totals);
+        report.put("endpoints", endpoints);
+
+        Map<String, Object> caches = new LinkedHashMap<>();
+        for (String cache : CACHES) {
+            double hits = after.hits(cache) - before.hits(cache);
+            double misses = after.misses(cache) - before.misses(cache);
+            Map<String, Object> ratio = new LinkedHashMap<>();
+            ratio.put("hits", (long) hits);
+            ratio.put("misses", (long) misses);
+            ratio.put("hitRatio", hits + misses == 0 ? null : round(hits / (hits + misses)));
+            caches.put(cache, ratio);
+        }
+        report.put("caches", caches);
+    }
+
+    @SuppressWarnings("unchecked")
+    String toTable() {
+        StringBuilder out = new StringBuilder();
+        Map<String, Object> totals = (Map<String, Object>) report.get("totals");
+        out.append(String.format("%nMeasured %ss at %s req/s offered: %s req/s completed, %s errors, %s dropped%n%n",
+                totals.get("measuredSeconds"), totals.get("offeredRate"), totals.get("throughput"),
+                totals.get("errors"), totals.get("dropped")));
+        out.append(String.format("%-9s %10s %8s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) report.get("endpoints")).entrySet()) {
+            Map<String, Object> e = (Map<String, Object>) entry.getValue();
+            out.append(String.format("%-9s %10s %8s %10s %9s %9s %9s %9s%n", entry.getKey(), e.get("requests"),
+                    e.get("errors"), e.get("throughput"), e.get("p50Ms"), e.get("p99Ms"), e.get("p999Ms"),
+                    e.get("maxMs")));
+        }
+        out.append(String.format("%n%-20s %10s %10s %9s%n", "cache", "hits", "misses", "hit ratio"));
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) report.get("caches")).entrySet()) {
+            Map<String, Object> c = (Map<String, Object>) entry.getValue();
+            out.append(String.format("%-20s %10s %10s %9s%n", entry.getKey(), c.get("hits"), c.get("misses"),
+                    c.get("hitRatio") == null ? "-" : c.get("hitRatio")));
+        }
+        return out.toString();
+    }
+
+    void write(String path) throws IOException {
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(path), report);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    /**
+     * {@code cache.gets} counts of every reported cache at one moment.
+     */
+    static final class CacheSnapshot {
+
+        private final Map<String, Double> counts = new LinkedHashMap<>();
+
+        CacheSnapshot(MeterRegistry registry) {
+            for (String cache : CACHES) {
+                counts.put(cache + "/hit", count(registry, cache, "hit"));
+                counts.put(cache + "/miss", count(registry, cache, "miss"));
+            }
+        }
+
+        double hits(String cache) {
+            return counts.get(cache + "/hit");
+        }
+
+        double misses(String cache) {
+            return counts.get(cache + "/miss");
+        }
+
+        private static double count(MeterRegistry registry, String cache, String result) {
+            return registry.find("cache.gets").tags("cache", cache, "result", result).meters().stream()
+                    .flatMap(meter -> StreamSupport.stream(meter.measure().spliterator(), false))
+                    .filter(measurement -> measurement.getStatistic() == Statistic.COUNT)
+                    .mapToDouble(Measurement::getValue)
+                    .sum();
+        }
+    }
+}
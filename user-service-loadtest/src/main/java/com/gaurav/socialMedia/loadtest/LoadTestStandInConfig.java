@@ -0,0 +1,140 @@
+package com.gaurav.socialMedia.loadtest;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.mock.MockConsumerFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Beans that let user-service run on the load test's stand-ins. Active only
+ * with the {@code loadtest} profile, which {@link LoadTestMain} sets.
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestStandInConfig {
+
+    /**
+     * In-memory Kafka: the counter event listener gets a {@link MockConsumer}
+     * that owns partition 0 of the topic, so its container runs without a
+     * broker. Replaces Boot's consumer factory, which is conditional on no
+     * other one being defined.
+     */
+    @Bean
+    public ConsumerFactory<Object, Object> kafkaConsumerFactory(
+            @Value("${user.counters.kafka.topic:user-counter-events}") String topic) {
+        TopicPartition partition = new TopicPartition(topic, 0);
+        return new MockConsumerFactory<>(() -> {
+            MockConsumer<Object, Object> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+            consumer.schedulePollTask(() -> {
+                consumer.updateBeginningOffsets(Map.of(partition, 0L));
+                consumer.rebalance(List.of(partition));
+            });
+            return consumer;
+        });
+    }
+
+    /**
+     * The service asks MySQL Connector/J to stream large reads with a fetch
+     * size of {@code Integer.MIN_VALUE}, which H2 rejects. Negative fetch
+     * sizes are dropped here; H2 reads the in-memory rows lazily anyway.
+     * Only the {@code dataSource} bean that JPA and JdbcTemplate use is
+     * wrapped, so typed pool beans behind it keep their types.
+     */
+    @Bean
+    public static BeanPostProcessor h2FetchSizeAdapter() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource && beanName.equals("dataSource")
+                        ? wrap((DataSource) bean, DataSource.class)
+                        : bean;
+            }
+        };
+    }
+
+    /**
+     * jedis-mock confirms only the last channel of a multi-channel
+     * {@code SUBSCRIBE}, while the listener container waits for every
+     * confirmation and times out. Connections from this factory subscribe to
+     * one channel per command instead.
+     */
+    @Bean
+    public static BeanPostProcessor redisSubscribeAdapter() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (!(bean instanceof LettuceConnectionFactory factory)) {
+                    return bean;
+                }
+                return new LettuceConnectionFactory(factory.getStandaloneConfiguration()) {
+                    @Override
+                    public RedisConnection getConnection() {
+                        return singleChannelSubscribes(super.getConnection());
+                    }
+                };
+            }
+        };
+    }
+
+    private static RedisConnection singleChannelSubscribes(RedisConnection target) {
+        return (RedisConnection) Proxy.newProxyInstance(LoadTestStandInConfig.class.getClassLoader(),
+                ClassUtils.getAllInterfaces(target), (proxy, method, args) -> {
+                    if (!method.getName().equals("subscribe") || args.length != 2) {
+                        return invoke(target, method, args);
+                    }
+                    byte[][] channels = (byte[][]) args[1];
+                    target.subscribe((MessageListener) args[0], channels[0]);
+                    for (int i = 1; i < channels.length; i++) {
+                        target.getSubscription().subscribe(channels[i]);
+                    }
+                    return null;
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T wrap(T target, Class<T> type) {
+        return (T) Proxy.newProxyInstance(LoadTestStandInConfig.class.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("setFetchSize") && (int) args[0] < 0) {
+                        return null;
+                    }
+                    Object result = invoke(target, method, args);
+                    return needsWrapping(method, result) ? wrap(result, (Class<Object>) method.getReturnType()) : result;
+                });
+    }
+
+    // Connections and statements are wrapped so setFetchSize can be intercepted
+    private static boolean needsWrapping(Method method, Object result) {
+        Class<?> type = method.getReturnType();
+        return result != null && type.isInterface()
+                && (Connection.class.isAssignableFrom(type) || Statement.class.isAssignableFrom(type));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
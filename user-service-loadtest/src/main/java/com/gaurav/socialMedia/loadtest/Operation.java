@@ -0,0 +1,39 @@
+package com.gaurav.socialMedia.loadtest;
+
+import java.util.Locale;
+
+/**
+ * The {@code UserController} calls the load test issues.
+ */
+public enum Operation {
+
+    REGISTER("register", "POST /api/v1/users/register"),
+    GET_PROFILE("profile", "GET /api/v1/users/{id}"),
+    SEARCH("search", "GET /api/v1/users/search"),
+    INCREMENT_FOLLOWERS("counter", "POST /api/v1/users/{id}/increment-followers");
+
+    private final String key;
+    private final String endpoint;
+
+    Operation(String key, String endpoint) {
+        this.key = key;
+        this.endpoint = endpoint;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public static Operation of(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key.toLowerCase(Locale.ROOT))) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + key + " (register, profile, search, counter)");
+    }
+}
@@ -0,0 +1,110 @@
+package com.gaurav.socialMedia.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Turns the operation mix into concrete HTTP requests.
+ * <p>
+ * Profile reads and counter increments pick seeded users with a Zipf skew,
+ * searches look for common first names, and registrations create new,
+ * unique users. Only called from the load generator's scheduling thread.
+ */
+final class Workload {
+
+    static final String[] FIRST_NAMES = {
+        "Aarav", "Olivia", "Liam", "Emma", "Noah", "Ava", "Mateo", "Sofia", "Wei", "Priya",
+        "Lucas", "Mia", "Arjun", "Zara", "Kenji", "Amara", "Diego", "Chloe", "Omar", "Hana"
+    };
+    static final String[] LAST_NAMES = {
+        "Sharma", "Smith", "Garcia", "Chen", "Müller", "Okafor", "Rossi", "Tanaka", "Silva", "Kowalski",
+        "Nguyen", "Haddad", "Johansson", "Patel", "Dubois", "Kim", "Lopez", "Novak", "Ahmed", "Brown"
+    };
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final String PASSWORD = "load-test-password";
+
+    private final String baseUrl;
+    private final List<Long> userIds;
+    private final ZipfSampler sampler;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final SplittableRandom random;
+    private final String runId;
+    private long registrations;
+
+    Workload(String baseUrl, List<Long> userIds, LoadTestOptions options) {
+        this.baseUrl = baseUrl;
+        this.userIds = userIds;
+        this.sampler = new ZipfSampler(userIds.size(), options.getZipf());
+        this.random = new SplittableRandom(options.getSeed());
+        this.runId = Long.toString(System.currentTimeMillis(), 36);
+
+        List<Operation> ops = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<Operation, Integer> entry : options.getMix().entrySet()) {
+            if (entry.getValue() > 0) {
+                total += entry.getValue();
+                ops.add(entry.getKey());
+                weights.add(total);
+            }
+        }
+        this.operations = ops.toArray(new Operation[0]);
+        this.cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    Operation nextOperation() {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    HttpRequest request(Operation operation) {
+        return switch (operation) {
+            case REGISTER -> register();
+            case GET_PROFILE -> get("/api/v1/users/" + hotUserId());
+            case SEARCH -> get("/api/v1/users/search?size=20&query="
+                    + URLEncoder.encode(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], StandardCharsets.UTF_8));
+            case INCREMENT_FOLLOWERS -> post("/api/v1/users/" + hotUserId() + "/increment-followers",
+                    HttpRequest.BodyPublishers.noBody());
+        };
+    }
+
+    private long hotUserId() {
+        return userIds.get(sampler.next(random));
+    }
+
+    private HttpRequest register() {
+        long n = ++registrations;
+        String username = "lt" + runId + "_" + n;
+        String fullName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        String body = "{\"username\":\"" + username + "\",\"email\":\"" + username + "@loadtest.invalid\","
+                + "\"password\":\"" + PASSWORD + "\",\"fullName\":\"" + fullName + "\"}";
+        return post("/api/v1/users/register", HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path, HttpRequest.BodyPublisher body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(body)
+                .build();
+    }
+}
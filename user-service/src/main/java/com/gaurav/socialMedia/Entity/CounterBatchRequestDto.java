@@ -0,0 +1,26 @@
+package com.gaurav.socialMedia.Entity;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public class CounterBatchRequestDto {
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 1000, message = "A batch cannot contain more than 1000 operations")
+    // Operations are validated one at a time by the service, so one bad item only fails itself
+    private List<@NotNull(message = "Operations cannot contain null entries") CounterOperationDto> operations;
+
+    // Constructors
+    public CounterBatchRequestDto() {}
+
+    public CounterBatchRequestDto(List<CounterOperationDto> operations) {
+        this.operations = operations;
+    }
+
+    // Getters and Setters
+    public List<CounterOperationDto> getOperations() { return operations; }
+    public void setOperations(List<CounterOperationDto> operations) { this.operations = operations; }
+}
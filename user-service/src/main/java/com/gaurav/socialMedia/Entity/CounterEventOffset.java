@@ -0,0 +1,41 @@
+package com.gaurav.socialMedia.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Last counter event offset applied for a topic partition. Written in the same
+ * transaction as the counter update so redelivered records are skipped.
+ */
+@Entity
+@Table(name = "counter_event_offsets")
+public class CounterEventOffset {
+
+    @Id
+    @Column(name = "partition_key", length = 255)
+    private String partitionKey;
+
+    @Column(name = "last_offset", nullable = false)
+    private Long lastOffset;
+
+    // Constructors
+    public CounterEventOffset() {}
+
+    public CounterEventOffset(String partitionKey, Long lastOffset) {
+        this.partitionKey = partitionKey;
+        this.lastOffset = lastOffset;
+    }
+
+    public static String keyOf(String topic, int partition) {
+        return topic + "-" + partition;
+    }
+
+    // Getters and Setters
+    public String getPartitionKey() { return partitionKey; }
+    public void setPartitionKey(String partitionKey) { this.partitionKey = partitionKey; }
+
+    public Long getLastOffset() { return lastOffset; }
+    public void setLastOffset(Long lastOffset) { this.lastOffset = lastOffset; }
+}
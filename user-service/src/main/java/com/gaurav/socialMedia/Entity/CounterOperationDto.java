@@ -0,0 +1,41 @@
+package com.gaurav.socialMedia.Entity;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class CounterOperationDto {
+
+    // A full batch for one user stays far inside the INT counter columns
+    public static final int MAX_DELTA = 100_000;
+
+    @NotNull(message = "User ID is required")
+    private Long userId;
+
+    @NotNull(message = "Counter is required")
+    private CounterType counter;
+
+    @NotNull(message = "Delta is required")
+    @Min(value = -MAX_DELTA, message = "Delta must be at least -" + MAX_DELTA)
+    @Max(value = MAX_DELTA, message = "Delta must be at most " + MAX_DELTA)
+    private Integer delta;
+
+    // Constructors
+    public CounterOperationDto() {}
+
+    public CounterOperationDto(Long userId, CounterType counter, Integer delta) {
+        this.userId = userId;
+        this.counter = counter;
+        this.delta = delta;
+    }
+
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public CounterType getCounter() { return counter; }
+    public void setCounter(CounterType counter) { this.counter = counter; }
+
+    public Integer getDelta() { return delta; }
+    public void setDelta(Integer delta) { this.delta = delta; }
+}
@@ -0,0 +1,44 @@
+package com.gaurav.socialMedia.Entity;
+
+public class CounterOperationResultDto {
+
+    public enum Status {
+        APPLIED,
+        INVALID,
+        USER_NOT_FOUND,
+        FAILED
+    }
+
+    private int index;
+    private Long userId;
+    private CounterType counter;
+    private Status status;
+    private String message;
+
+    // Constructors
+    public CounterOperationResultDto() {}
+
+    public CounterOperationResultDto(int index, CounterOperationDto operation, Status status, String message) {
+        this.index = index;
+        this.userId = operation.getUserId();
+        this.counter = operation.getCounter();
+        this.status = status;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public CounterType getCounter() { return counter; }
+    public void setCounter(CounterType counter) { this.counter = counter; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
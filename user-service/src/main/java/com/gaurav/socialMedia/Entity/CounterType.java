@@ -0,0 +1,11 @@
+package com.gaurav.socialMedia.Entity;
+
+/**
+ * Denormalised counters kept on the {@link User} row.
+ */
+public enum CounterType {
+
+    FOLLOWERS,
+    FOLLOWING,
+    TWEETS
+}
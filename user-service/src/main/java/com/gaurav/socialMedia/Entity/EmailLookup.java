@@ -0,0 +1,41 @@
+package com.gaurav.socialMedia.Entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Global owner of an email when users are sharded. Its primary key is what
+ * keeps emails unique across shards; the row is written, on shard 0,
+ * before the user is inserted on its own shard.
+ */
+@Entity
+@Table(name = "user_email_lookup")
+public class EmailLookup {
+
+    @Id
+    @Column(name = "email")
+    private String email;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public EmailLookup() {}
+
+    // Getters and Setters
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
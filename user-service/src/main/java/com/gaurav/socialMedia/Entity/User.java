@@ -6,7 +6,10 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 
@@ -15,14 +18,31 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "users", indexes = {
     @Index(name = "idx_username", columnList = "username"),
-    @Index(name = "idx_email", columnList = "email")
+    @Index(name = "idx_email", columnList = "email"),
+    @Index(name = "idx_active_created", columnList = "is_active, created_at, id")
 })
 public class User {
     
+    public static final String ID_SEQUENCE = "users_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
+    // Pooled ids (a table-backed sequence) instead of IDENTITY, so Hibernate
+    // can batch inserts; one round trip reserves 50 ids. The table is only
+    // used on shard 0, so ids stay unique when users are sharded.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "user_id")
+    @GenericGenerator(name = "user_id", type = UserIdGenerator.class, parameters = {
+        @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = ID_SEQUENCE),
+        @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + ID_ALLOCATION_SIZE),
+        @Parameter(name = SequenceStyleGenerator.FORCE_TBL_PARAM, value = "true")
+    })
     private Long id;
     
+    // Drawn ahead of the insert when the shard has to be known before the
+    // transaction starts; UserIdGenerator then uses it as the id.
+    @Transient
+    private Long reservedId;
+    
     @Column(unique = true, nullable = false, length = 50)
     @NotBlank(message = "Username is required")
     @Size(min = 3, max = 50, message = "Username must be between 3 and 50 characters")
@@ -80,6 +100,11 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Incremented in SQL by every write (see UserRepository#incrementVersion),
+    // never by Hibernate, so it orders cache writes without optimistic locking
+    @Column(name = "version", nullable = false, updatable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private long version;
+    
     // Constructors
     public User() {}
     
@@ -94,6 +119,9 @@ public class User {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     
+    public Long getReservedId() { return reservedId; }
+    public void setReservedId(Long reservedId) { this.reservedId = reservedId; }
+    
     public String getUsername() { return username; }
     public void setUsername(String username) { this.username = username; }
     
@@ -132,4 +160,7 @@ public class User {
     
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
@@ -0,0 +1,25 @@
+package com.gaurav.socialMedia.Entity;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public class UserBatchRequestDto {
+
+    @NotEmpty(message = "At least one user ID is required")
+    @Size(max = 500, message = "Cannot request more than 500 users at once")
+    private List<@NotNull Long> ids;
+
+    // Constructors
+    public UserBatchRequestDto() {}
+
+    public UserBatchRequestDto(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    // Getters and Setters
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+}
@@ -0,0 +1,91 @@
+package com.gaurav.socialMedia.Entity;
+
+/**
+ * Immutable set of pending counter changes for a single user.
+ * Instances are combined with {@link #plus(UserCounterDelta)} so that many
+ * increments/decrements collapse into one row update.
+ * <p>
+ * Besides the net change, each counter keeps the lowest running total its
+ * events reached (zero or below). Counters never go below zero, and a
+ * decrement that hits zero is lost rather than carried: at 0, an unfollow
+ * followed by a follow ends at 1. The running low lets one row update
+ * reproduce that, since applying the events one by one to a count {@code c}
+ * ends at {@code max(c + net, net - low)}.
+ */
+public final class UserCounterDelta {
+
+    private final long followers;
+    private final long following;
+    private final long tweets;
+    private final long followersLow;
+    private final long followingLow;
+    private final long tweetsLow;
+
+    public UserCounterDelta(long followers, long following, long tweets) {
+        this(followers, following, tweets, Math.min(0, followers), Math.min(0, following), Math.min(0, tweets));
+    }
+
+    private UserCounterDelta(long followers, long following, long tweets,
+                             long followersLow, long followingLow, long tweetsLow) {
+        this.followers = followers;
+        this.following = following;
+        this.tweets = tweets;
+        this.followersLow = followersLow;
+        this.followingLow = followingLow;
+        this.tweetsLow = tweetsLow;
+    }
+
+    public static UserCounterDelta of(CounterType type, long delta) {
+        switch (type) {
+            case FOLLOWERS:
+                return new UserCounterDelta(delta, 0, 0);
+            case FOLLOWING:
+                return new UserCounterDelta(0, delta, 0);
+            case TWEETS:
+                return new UserCounterDelta(0, 0, delta);
+            default:
+                throw new IllegalArgumentException("Unknown counter type: " + type);
+        }
+    }
+
+    /**
+     * This delta followed by {@code later}. Not commutative: the order
+     * decides where the count would have hit zero.
+     */
+    public UserCounterDelta plus(UserCounterDelta later) {
+        return new UserCounterDelta(followers + later.followers,
+                following + later.following,
+                tweets + later.tweets,
+                Math.min(followersLow, followers + later.followersLow),
+                Math.min(followingLow, following + later.followingLow),
+                Math.min(tweetsLow, tweets + later.tweetsLow));
+    }
+
+    /**
+     * Whether applying this delta leaves every count as it was.
+     */
+    public boolean isZero() {
+        return followers == 0 && following == 0 && tweets == 0
+                && followersLow == 0 && followingLow == 0 && tweetsLow == 0;
+    }
+
+    public long getFollowers() { return followers; }
+
+    public long getFollowing() { return following; }
+
+    public long getTweets() { return tweets; }
+
+    /** Lowest running total of the follower changes, zero or below. */
+    public long getFollowersLow() { return followersLow; }
+
+    public long getFollowingLow() { return followingLow; }
+
+    public long getTweetsLow() { return tweetsLow; }
+
+    @Override
+    public String toString() {
+        return "UserCounterDelta [followers=" + followers + ", following=" + following + ", tweets=" + tweets
+                + ", followersLow=" + followersLow + ", followingLow=" + followingLow + ", tweetsLow=" + tweetsLow
+                + "]";
+    }
+}
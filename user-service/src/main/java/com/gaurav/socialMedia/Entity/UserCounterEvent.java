@@ -0,0 +1,51 @@
+package com.gaurav.socialMedia.Entity;
+
+/**
+ * Counter event published by the follow and tweet services.
+ * <ul>
+ * <li>{@code FOLLOW}/{@code UNFOLLOW}: {@code followerId} starts/stops following {@code followeeId}</li>
+ * <li>{@code TWEET_CREATED}: {@code userId} posted a tweet</li>
+ * </ul>
+ */
+public class UserCounterEvent {
+
+    public enum Type {
+        FOLLOW,
+        UNFOLLOW,
+        TWEET_CREATED
+    }
+
+    private Type type;
+    private Long userId;
+    private Long followerId;
+    private Long followeeId;
+
+    // Constructors
+    public UserCounterEvent() {}
+
+    public UserCounterEvent(Type type, Long userId, Long followerId, Long followeeId) {
+        this.type = type;
+        this.userId = userId;
+        this.followerId = followerId;
+        this.followeeId = followeeId;
+    }
+
+    // Getters and Setters
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getFollowerId() { return followerId; }
+    public void setFollowerId(Long followerId) { this.followerId = followerId; }
+
+    public Long getFolloweeId() { return followeeId; }
+    public void setFolloweeId(Long followeeId) { this.followeeId = followeeId; }
+
+    @Override
+    public String toString() {
+        return "UserCounterEvent [type=" + type + ", userId=" + userId + ", followerId=" + followerId
+                + ", followeeId=" + followeeId + "]";
+    }
+}
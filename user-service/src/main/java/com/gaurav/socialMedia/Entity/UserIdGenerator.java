@@ -0,0 +1,23 @@
+package com.gaurav.socialMedia.Entity;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import com.gaurav.socialMedia.config.UserShardRouting;
+
+/**
+ * The pooled {@code users_seq} generator, drawing blocks on shard 0 even
+ * inside a transaction on another shard. The table structure is forced so
+ * every database takes its blocks through a separate connection, which is
+ * what lets the draw go to shard 0. A user with a reserved id gets that id.
+ */
+public class UserIdGenerator extends SequenceStyleGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        if (object instanceof User user && user.getReservedId() != null) {
+            return user.getReservedId();
+        }
+        return UserShardRouting.onGlobal(() -> super.generate(session, object));
+    }
+}
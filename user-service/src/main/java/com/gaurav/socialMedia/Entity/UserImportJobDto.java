@@ -0,0 +1,70 @@
+package com.gaurav.socialMedia.Entity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class UserImportJobDto {
+
+    private String jobId;
+    private String format;
+    private UserImportJob.Status status;
+    private long recordsRead;
+    private long imported;
+    private long duplicates;
+    private long rejected;
+    private String lastError;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private List<String> errors;
+
+    // Constructors
+    public UserImportJobDto() {}
+
+    public UserImportJobDto(UserImportJob job, List<String> errors) {
+        this.jobId = job.getJobId();
+        this.format = job.getFormat();
+        this.status = job.getStatus();
+        this.recordsRead = job.getRecordsRead();
+        this.imported = job.getImported();
+        this.duplicates = job.getDuplicates();
+        this.rejected = job.getRejected();
+        this.lastError = job.getLastError();
+        this.startedAt = job.getStartedAt();
+        this.updatedAt = job.getUpdatedAt();
+        this.errors = errors;
+    }
+
+    // Getters and Setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public UserImportJob.Status getStatus() { return status; }
+    public void setStatus(UserImportJob.Status status) { this.status = status; }
+
+    public long getRecordsRead() { return recordsRead; }
+    public void setRecordsRead(long recordsRead) { this.recordsRead = recordsRead; }
+
+    public long getImported() { return imported; }
+    public void setImported(long imported) { this.imported = imported; }
+
+    public long getDuplicates() { return duplicates; }
+    public void setDuplicates(long duplicates) { this.duplicates = duplicates; }
+
+    public long getRejected() { return rejected; }
+    public void setRejected(long rejected) { this.rejected = rejected; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public List<String> getErrors() { return errors; }
+    public void setErrors(List<String> errors) { this.errors = errors; }
+}
@@ -0,0 +1,54 @@
+package com.gaurav.socialMedia.Entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/**
+ * One user in a bulk import file. The {@code password} is hashed during the
+ * import; existing hashes are not accepted, since anyone who can reach the
+ * endpoint could then set a password they know. Unknown fields are ignored so
+ * export files can be imported again.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UserImportRecordDto {
+
+    @NotBlank(message = "Username is required")
+    @Size(min = 3, max = 50, message = "Username must be between 3 and 50 characters")
+    private String username;
+
+    @Email(message = "Please provide a valid email")
+    @NotBlank(message = "Email is required")
+    private String email;
+
+    @NotBlank(message = "Password is required")
+    @Size(min = 6, message = "Password must be at least 6 characters")
+    private String password;
+
+    @Size(max = 100, message = "Full name cannot exceed 100 characters")
+    private String fullName;
+
+    @Size(max = 160, message = "Bio cannot exceed 160 characters")
+    private String bio;
+
+    // Constructors
+    public UserImportRecordDto() {}
+
+    // Getters and Setters
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+
+    public String getFullName() { return fullName; }
+    public void setFullName(String fullName) { this.fullName = fullName; }
+
+    public String getBio() { return bio; }
+    public void setBio(String bio) { this.bio = bio; }
+}
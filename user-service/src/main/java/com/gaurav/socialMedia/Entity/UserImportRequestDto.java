@@ -0,0 +1,26 @@
+package com.gaurav.socialMedia.Entity;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public class UserImportRequestDto {
+
+    @NotEmpty(message = "At least one user is required")
+    @Size(max = 1000, message = "Cannot import more than 1000 users at once")
+    private List<@NotNull @Valid UserRegistrationDto> users;
+
+    // Constructors
+    public UserImportRequestDto() {}
+
+    public UserImportRequestDto(List<UserRegistrationDto> users) {
+        this.users = users;
+    }
+
+    // Getters and Setters
+    public List<UserRegistrationDto> getUsers() { return users; }
+    public void setUsers(List<UserRegistrationDto> users) { this.users = users; }
+}
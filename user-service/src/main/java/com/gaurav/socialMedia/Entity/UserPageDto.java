@@ -0,0 +1,28 @@
+package com.gaurav.socialMedia.Entity;
+
+import java.util.List;
+
+/**
+ * One page of users plus the opaque cursor for the next page
+ * ({@code null} when there are no more results).
+ */
+public class UserPageDto {
+
+    private List<UserResponseDto> users;
+    private String nextCursor;
+
+    // Constructors
+    public UserPageDto() {}
+
+    public UserPageDto(List<UserResponseDto> users, String nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<UserResponseDto> getUsers() { return users; }
+    public void setUsers(List<UserResponseDto> users) { this.users = users; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,54 @@
+package com.gaurav.socialMedia.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Which shard holds the users of one bucket ({@code id mod buckets}). Kept on
+ * shard 0 and read by every instance, so moving a bucket is one row update.
+ * A frozen bucket is being moved: it is read from its current shard but
+ * writes wait until the move is over.
+ */
+@Entity
+@Table(name = "user_shard_buckets")
+public class UserShardBucket {
+
+    public enum State {
+        ACTIVE,
+        FROZEN
+    }
+
+    @Id
+    @Column(name = "bucket")
+    private Integer bucket;
+
+    @Column(name = "shard", nullable = false)
+    private Integer shard;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false, length = 16)
+    private State state;
+
+    // Constructors
+    public UserShardBucket() {}
+
+    public UserShardBucket(Integer bucket, Integer shard, State state) {
+        this.bucket = bucket;
+        this.shard = shard;
+        this.state = state;
+    }
+
+    // Getters and Setters
+    public Integer getBucket() { return bucket; }
+    public void setBucket(Integer bucket) { this.bucket = bucket; }
+
+    public Integer getShard() { return shard; }
+    public void setShard(Integer shard) { this.shard = shard; }
+
+    public State getState() { return state; }
+    public void setState(State state) { this.state = state; }
+}
@@ -0,0 +1,35 @@
+package com.gaurav.socialMedia.Entity;
+
+/**
+ * Lightweight user card returned by autocomplete.
+ */
+public class UserSuggestionDto {
+
+    private Long id;
+    private String username;
+    private String fullName;
+    private Integer followersCount;
+
+    // Constructors
+    public UserSuggestionDto() {}
+
+    public UserSuggestionDto(Long id, String username, String fullName, Integer followersCount) {
+        this.id = id;
+        this.username = username;
+        this.fullName = fullName;
+        this.followersCount = followersCount;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getFullName() { return fullName; }
+    public void setFullName(String fullName) { this.fullName = fullName; }
+
+    public Integer getFollowersCount() { return followersCount; }
+    public void setFollowersCount(Integer followersCount) { this.followersCount = followersCount; }
+}
@@ -0,0 +1,41 @@
+package com.gaurav.socialMedia.Entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Global owner of a username when users are sharded. Its primary key is what
+ * keeps usernames unique across shards; the row is written, on shard 0,
+ * before the user is inserted on its own shard.
+ */
+@Entity
+@Table(name = "user_username_lookup")
+public class UsernameLookup {
+
+    @Id
+    @Column(name = "username", length = 50)
+    private String username;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public UsernameLookup() {}
+
+    // Getters and Setters
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -3,11 +3,13 @@ package com.gaurav.socialMedia;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
 
 @EnableCaching
+@EnableScheduling
 @SpringBootApplication
 @OpenAPIDefinition(
 	    info = @Info(
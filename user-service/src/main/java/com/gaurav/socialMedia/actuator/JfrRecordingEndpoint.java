@@ -0,0 +1,188 @@
+package com.gaurav.socialMedia.actuator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * On-demand Java Flight Recorder profiles from a running instance, at
+ * {@code /actuator/jfr}.
+ * <ul>
+ * <li>{@code POST} starts a recording ({@code durationSeconds},
+ * {@code settings}: {@code profile} or {@code default}).</li>
+ * <li>{@code GET} shows the current recording.</li>
+ * <li>{@code GET /{id}} downloads it once it has stopped.</li>
+ * <li>{@code DELETE} stops it early.</li>
+ * </ul>
+ * Only the latest recording is kept; starting a new one deletes the
+ * previous file.
+ * <p>
+ * Disabled by default: set {@code management.endpoint.jfr.enabled=true} and
+ * expose it only on a management port that is not publicly reachable.
+ * Events that would copy environment variables, system properties or JVM
+ * arguments (and with them credentials) into the file are always turned off.
+ */
+@Component
+@Endpoint(id = "jfr", enableByDefault = false)
+@Slf4j
+public class JfrRecordingEndpoint {
+
+    private static final int STATUS_CONFLICT = 409;
+    private static final List<String> SECRET_EVENTS = List.of(
+            "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation");
+
+    private final Duration defaultDuration;
+    private final Duration maxDuration;
+
+    // Latest recording and its file, guarded by this
+    private Recording recording;
+    private Path file;
+    private String settings;
+
+    @Autowired
+    public JfrRecordingEndpoint(@Value("${user.jfr.default-duration:60s}") Duration defaultDuration,
+                                @Value("${user.jfr.max-duration:5m}") Duration maxDuration) {
+        this.defaultDuration = defaultDuration;
+        this.maxDuration = maxDuration;
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable Long durationSeconds,
+                                                                      @Nullable String settings) {
+        Duration duration = durationSeconds == null ? defaultDuration : Duration.ofSeconds(durationSeconds);
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0) {
+            throw new InvalidEndpointRequestException("Duration must be between 1s and " + maxDuration,
+                    "Invalid duration");
+        }
+        String settingsName = settings == null ? "profile" : settings;
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settingsName);
+        } catch (IOException | ParseException e) {
+            throw new InvalidEndpointRequestException("Unknown JFR settings: " + settingsName, "Unknown settings");
+        }
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(describe(), STATUS_CONFLICT);
+        }
+
+        discard();
+        try {
+            file = Files.createTempFile("user-service-", ".jfr");
+            recording = new Recording(withoutSecrets(configuration));
+            recording.setName("user-service");
+            recording.setToDisk(true);
+            recording.setDuration(duration);
+            // Written here when the recording stops, on its own or via stop()
+            recording.setDestination(file);
+            recording.start();
+        } catch (IOException e) {
+            discard();
+            throw new RuntimeException("Failed to start JFR recording: " + e.getMessage(), e);
+        }
+        this.settings = settingsName;
+        log.info("Started JFR recording {} for {} with {} settings", recording.getId(), duration, settingsName);
+        return new WebEndpointResponse<>(describe());
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        return describe();
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> download(@Selector long id) {
+        if (recording == null || recording.getId() != id) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (!isFinished()) {
+            return new WebEndpointResponse<>(STATUS_CONFLICT);
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(file));
+    }
+
+    @DeleteOperation
+    public synchronized Map<String, Object> stop() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("Stopped JFR recording {}", recording.getId());
+        }
+        return describe();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        discard();
+    }
+
+    private static Map<String, String> withoutSecrets(Configuration configuration) {
+        Map<String, String> settings = new HashMap<>(configuration.getSettings());
+        for (String event : SECRET_EVENTS) {
+            settings.put(event + "#enabled", "false");
+        }
+        return settings;
+    }
+
+    private Map<String, Object> describe() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", "NONE");
+            return status;
+        }
+        status.put("id", recording.getId());
+        status.put("state", recording.getState().name());
+        status.put("settings", settings);
+        status.put("startTime", recording.getStartTime());
+        status.put("duration", recording.getDuration());
+        if (isFinished()) {
+            status.put("size", file.toFile().length());
+        }
+        return status;
+    }
+
+    // A recording that reaches its duration is written out and closed by JFR
+    private boolean isFinished() {
+        RecordingState state = recording.getState();
+        return state == RecordingState.STOPPED || state == RecordingState.CLOSED;
+    }
+
+    private void discard() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Failed to delete JFR recording {}", file, e);
+            }
+            file = null;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.gaurav.socialMedia.actuator;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.web.annotation.RestControllerEndpoint;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.gaurav.socialMedia.Entity.UserImportJobDto;
+import com.gaurav.socialMedia.Entity.UserImportRequestDto;
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+import com.gaurav.socialMedia.exception.ImportJobRunningException;
+import com.gaurav.socialMedia.exception.TooManyRequestsException;
+import com.gaurav.socialMedia.service.UserDataFormat;
+import com.gaurav.socialMedia.service.UserExportService;
+import com.gaurav.socialMedia.service.UserImportService;
+import com.gaurav.socialMedia.service.UserServiceInterface;
+
+import jakarta.validation.Valid;
+
+/**
+ * Bulk import and export of users, at {@code /actuator/userdata}.
+ * <ul>
+ * <li>{@code POST /import} creates the users of a JSON request with
+ * batched inserts.</li>
+ * <li>{@code POST /import/stream} imports an NDJSON or CSV upload of any
+ * size; re-uploading with the same {@code jobId} resumes after the last
+ * committed record, and an upload of a job that is still running gets
+ * {@code 409}.</li>
+ * <li>{@code GET /import/jobs/{jobId}} shows a streaming import's
+ * progress.</li>
+ * <li>{@code GET /export} streams users in id order as NDJSON or CSV
+ * ({@code format}); pass the last id received as {@code afterId} to
+ * resume.</li>
+ * </ul>
+ * These create users without the registration checks a client goes through,
+ * and export every profile and email, so they are meant for migrations and
+ * backfills by operators, not for the public API.
+ * <p>
+ * Disabled by default: set {@code management.endpoint.userdata.enabled=true}
+ * and expose it only on a management port that is not publicly reachable.
+ */
+@Component
+@RestControllerEndpoint(id = "userdata", enableByDefault = false)
+public class UserDataEndpoint {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final UserServiceInterface userService;
+    private final UserImportService importService;
+    private final UserExportService exportService;
+
+    @Autowired
+    public UserDataEndpoint(UserServiceInterface userService,
+                            UserImportService importService,
+                            UserExportService exportService) {
+        this.userService = userService;
+        this.importService = importService;
+        this.exportService = exportService;
+    }
+
+    @PostMapping("/import")
+    public ResponseEntity<?> importUsers(@Valid @RequestBody UserImportRequestDto request) {
+        try {
+            List<UserResponseDto> users = userService.importUsers(request.getUsers());
+            return ResponseEntity.status(HttpStatus.CREATED).body(users);
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Import failed: " + e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Import failed: " + e.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/import/stream", consumes = {NDJSON, "text/csv"})
+    public ResponseEntity<?> streamImport(@RequestParam(required = false) String jobId,
+                                          @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                          InputStream body) {
+        String id = jobId != null ? jobId : UUID.randomUUID().toString();
+        try {
+            UserImportJobDto job = importService.importUsers(id, UserDataFormat.of(contentType), body);
+            return ResponseEntity.ok(job);
+        } catch (ImportJobRunningException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Import job " + id + " failed: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/import/jobs/{jobId}")
+    public ResponseEntity<UserImportJobDto> getImportJob(@PathVariable String jobId) {
+        return Optional.ofNullable(importService.getJob(jobId))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Declared as StreamingResponseBody, which is what selects the streaming return value handler
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "ndjson") String format,
+                                                             @RequestParam(defaultValue = "0") long afterId) {
+        UserDataFormat dataFormat;
+        try {
+            dataFormat = UserDataFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        StreamingResponseBody body = out -> exportService.export(out, dataFormat, afterId);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(dataFormat.getMediaType())).body(body);
+    }
+}
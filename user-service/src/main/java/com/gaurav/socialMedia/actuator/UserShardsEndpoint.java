@@ -0,0 +1,85 @@
+package com.gaurav.socialMedia.actuator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import com.gaurav.socialMedia.repository.UserShards;
+import com.gaurav.socialMedia.service.UserShardRebalancer;
+
+/**
+ * The user shard map and online rebalancing, at {@code /actuator/shards}.
+ * <ul>
+ * <li>{@code GET} shows the buckets per shard and the rebalancer's task.</li>
+ * <li>{@code POST} evens out the buckets, or moves one ({@code bucket},
+ * {@code shard}).</li>
+ * <li>{@code DELETE} stops the task after the current bucket.</li>
+ * </ul>
+ * Only one task runs per instance; run rebalancing from one instance only.
+ * <p>
+ * Disabled by default: set {@code management.endpoint.shards.enabled=true}
+ * and expose it only on a management port that is not publicly reachable.
+ */
+@Component
+@Endpoint(id = "shards", enableByDefault = false)
+public class UserShardsEndpoint {
+
+    private static final int STATUS_CONFLICT = 409;
+
+    private final UserShards shards;
+    private final UserShardRebalancer rebalancer;
+
+    @Autowired
+    public UserShardsEndpoint(UserShards shards, UserShardRebalancer rebalancer) {
+        this.shards = shards;
+        this.rebalancer = rebalancer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("shards", shards.count());
+        status.put("buckets", shards.bucketCount());
+        Map<Integer, Integer> bucketsPerShard = new LinkedHashMap<>();
+        for (int shard = 0; shard < shards.count(); shard++) {
+            bucketsPerShard.put(shard, shards.bucketsOf(shard).size());
+        }
+        status.put("bucketsPerShard", bucketsPerShard);
+        status.put("frozenBuckets", shards.frozenBuckets());
+        status.put("rebalancer", rebalancer.status());
+        return status;
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> start(@Nullable Integer bucket, @Nullable Integer shard) {
+        if (!shards.isSharded()) {
+            throw new InvalidEndpointRequestException("Users are not sharded", "Not sharded");
+        }
+        if ((bucket == null) != (shard == null)) {
+            throw new InvalidEndpointRequestException("Give both bucket and shard, or neither to rebalance",
+                    "Invalid move");
+        }
+        boolean started;
+        try {
+            started = bucket == null ? rebalancer.startRebalance() : rebalancer.startMove(bucket, shard);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), "Invalid move");
+        }
+        return started ? new WebEndpointResponse<>(status()) : new WebEndpointResponse<>(status(), STATUS_CONFLICT);
+    }
+
+    @DeleteOperation
+    public Map<String, Object> stop() {
+        rebalancer.stop();
+        return status();
+    }
+}
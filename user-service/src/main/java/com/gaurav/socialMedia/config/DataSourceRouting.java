@@ -0,0 +1,55 @@
+package com.gaurav.socialMedia.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override that keeps read-only transactions on the primary
+ * database. Without read replicas configured it has no effect.
+ * <p>
+ * Used where a read must see a write that has just committed: requests
+ * covered by {@link ReadYourWritesFilter}, the listeners that reload a user
+ * right after a change to refresh caches and indexes, and every cache miss
+ * whose result is written back to the shared caches.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    public static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+    }
+
+    /**
+     * Runs {@code action} with every read on the primary.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        boolean previous = requirePrimary();
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Sends this thread's reads to the primary until {@link #restore}.
+     *
+     * @return the previous setting, to pass to {@link #restore}
+     */
+    static boolean requirePrimary() {
+        boolean previous = isPrimaryRequired();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        return previous;
+    }
+
+    static void restore(boolean previous) {
+        if (previous) {
+            PRIMARY_REQUIRED.set(Boolean.TRUE);
+        } else {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+}
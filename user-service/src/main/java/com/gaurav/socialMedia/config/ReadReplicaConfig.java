@@ -0,0 +1,93 @@
+package com.gaurav.socialMedia.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work to read replicas when
+ * {@code user.datasource.replicas.urls} is set. Without it, or when users are
+ * sharded ({@link ShardingConfig}), this class is skipped.
+ * <p>
+ * The primary pool is still configured from {@code spring.datasource}. JPA
+ * and JdbcTemplate get a {@link LazyConnectionDataSourceProxy}, which only
+ * fetches the real connection at the first statement. By then a read-only
+ * transaction has marked the connection read-only, and such connections come
+ * from {@link ReplicaRoutingDataSource}. Writes, and JDBC work outside a
+ * read-only transaction, stay on the primary.
+ */
+@Configuration
+@ConditionalOnExpression("!'${user.datasource.replicas.urls:}'.isBlank() and '${user.sharding.shards:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                      DataSourceProperties properties,
+                                                      MeterRegistry meterRegistry,
+                                                      @Value("${user.datasource.replicas.urls}") String urls,
+                                                      @Value("${user.datasource.replicas.pool-size:10}") int poolSize,
+                                                      @Value("${user.datasource.replicas.connection-timeout-ms:500}") long connectionTimeoutMs,
+                                                      @Value("${user.datasource.replicas.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+                                                      @Value("${user.datasource.replicas.max-lag:5s}") Duration maxLag) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("user-replica-" + (pools.size() + 1));
+            pool.setJdbcUrl(url.trim());
+            pool.setUsername(properties.determineUsername());
+            pool.setPassword(properties.determinePassword());
+            pool.setDriverClassName(properties.determineDriverClassName());
+            pool.setMaximumPoolSize(poolSize);
+            pool.setMinimumIdle(poolSize);
+            // Short, so a dead replica falls back to the primary quickly
+            pool.setConnectionTimeout(connectionTimeoutMs);
+            pool.setReadOnly(true);
+            // Start even while a replica is down; its health check brings it in later
+            pool.setInitializationFailTimeout(-1);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(pool);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, pools, lagQuery, maxLag, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${user.datasource.read-your-writes-window:10s}") Duration window) {
+        return new ReadYourWritesFilter(window);
+    }
+}
@@ -1,17 +1,27 @@
 package com.gaurav.socialMedia.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.system.JavaVersion;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gaurav.socialMedia.service.UserAutocompleteIndex;
+import com.gaurav.socialMedia.service.UserAvailabilityFilter;
+import com.gaurav.socialMedia.service.UserNearCache;
+import com.gaurav.socialMedia.service.UserNegativeCache;
+import com.gaurav.socialMedia.service.UserSearchIndex;
 
 @Configuration
 public class RedisConfig {
@@ -23,7 +33,7 @@ public class RedisConfig {
     private int redisPort;
 
     @Bean
-    public RedisConnectionFactory redisConnectionFactory() {
+    public LettuceConnectionFactory redisConnectionFactory() {
         return new LettuceConnectionFactory(redisHost, redisPort);
     }
 
@@ -32,24 +42,73 @@ public class RedisConfig {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(redisConnectionFactory());
         
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        UserCacheValueSerializer valueSerializer = cacheValueSerializer();
         
         // Use String serializer for keys
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
         
-        // Use JSON serializer for values
-        template.setValueSerializer(jsonSerializer);
-        template.setHashValueSerializer(jsonSerializer);
+        // Binary codec for cached users, JSON for everything else
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
 
-        
-        template.setEnableTransactionSupport(true);
+        // No transaction support: cache writes are applied after commit by
+        // UserOutboxRelay, never queued inside a database transaction.
         template.afterPropertiesSet();
         
         return template;
     }
+
+    // Same key/value encoding as redisTemplate so both read each other's entries
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate() {
+        UserCacheValueSerializer valueSerializer = cacheValueSerializer();
+        RedisSerializationContext<String, Object> context = RedisSerializationContext
+                .<String, Object>newSerializationContext(new StringRedisSerializer())
+                .value(valueSerializer)
+                .hashValue(valueSerializer)
+                .build();
+        return new ReactiveRedisTemplate<>(redisConnectionFactory(), context);
+    }
+
+    /**
+     * The value serializer of both templates. Public so the JMH benchmarks
+     * measure the same encoding the service writes.
+     */
+    public static UserCacheValueSerializer cacheValueSerializer() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        
+        return new UserCacheValueSerializer(new GenericJackson2JsonRedisSerializer(objectMapper));
+    }
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(UserNearCache userNearCache,
+                                                                        UserNegativeCache negativeCache,
+                                                                        UserAvailabilityFilter availabilityFilter,
+                                                                        UserSearchIndex searchIndex,
+                                                                        UserAutocompleteIndex autocompleteIndex) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory());
+        if (virtualThreads && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("redis-listener-");
+            executor.setVirtualThreads(true);
+            container.setTaskExecutor(executor);
+        }
+        // Near cache entries rewritten by other instances
+        container.addMessageListener(userNearCache, new ChannelTopic(UserNearCache.INVALIDATION_CHANNEL));
+        // Ids/usernames taken by users registered on other instances
+        container.addMessageListener(negativeCache, new ChannelTopic(UserNegativeCache.INVALIDATION_CHANNEL));
+        // Usernames/emails registered on other instances
+        container.addMessageListener(availabilityFilter, new ChannelTopic(UserAvailabilityFilter.ADD_CHANNEL));
+        // Users registered, updated or deleted on other instances, for both indexes
+        container.addMessageListener(searchIndex, new ChannelTopic(UserSearchIndex.UPDATE_CHANNEL));
+        // Follower counts relayed on other instances
+        container.addMessageListener(autocompleteIndex, new ChannelTopic(UserAutocompleteIndex.FOLLOWERS_CHANNEL));
+        return container;
+    }
 }
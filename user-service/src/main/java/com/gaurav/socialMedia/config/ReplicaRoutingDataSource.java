@@ -0,0 +1,210 @@
+package com.gaurav.socialMedia.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Connections for read-only transactions: the healthy replicas in turn, or
+ * the primary when the caller must see its own writes or no replica is
+ * usable.
+ * <p>
+ * A replica is in rotation while its last health check connected and found
+ * it at most {@code max-lag} behind. It starts out of rotation until the
+ * first check passes, and drops out as soon as it refuses a connection. A
+ * replica whose pool is merely busy stays in rotation; the read goes to the
+ * next one.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter replicaReads;
+    private final Counter pinnedReads;
+    private final Counter fallbackReads;
+
+    /**
+     * @param lagQuery a query whose first row reports the replica's lag:
+     *                 MySQL's {@code SHOW REPLICA STATUS} / {@code SHOW SLAVE
+     *                 STATUS}, or any query returning seconds in its first
+     *                 column. Blank only checks that the replica answers.
+     */
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    List<HikariDataSource> replicaPools,
+                                    String lagQuery,
+                                    Duration maxLag,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.lagQuery = lagQuery == null ? "" : lagQuery.trim();
+        this.maxLagSeconds = maxLag.toSeconds();
+        for (HikariDataSource pool : replicaPools) {
+            Replica replica = new Replica(pool);
+            Gauge.builder("user.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", pool.getPoolName())
+                    .description("Whether the replica is in read rotation")
+                    .register(meterRegistry);
+            Gauge.builder("user.datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("replica", pool.getPoolName())
+                    .baseUnit("seconds")
+                    .description("Replication lag seen by the last health check")
+                    .register(meterRegistry);
+            replicas.add(replica);
+        }
+        this.replicaReads = readCounter(meterRegistry, "replica", "routed");
+        this.pinnedReads = readCounter(meterRegistry, "primary", "pinned");
+        this.fallbackReads = readCounter(meterRegistry, "primary", "no-replica");
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("user.datasource.reads")
+                .tag("target", target)
+                .tag("reason", reason)
+                .description("Connections handed out for read-only transactions")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (DataSourceRouting.isPrimaryRequired()) {
+            pinnedReads.increment();
+            return primary.getConnection();
+        }
+        int size = replicas.size();
+        int first = size == 0 ? 0 : Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((first + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection connection = replica.pool.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                if (isPoolBusy(e)) {
+                    log.debug("Replica {} has no free connection, trying the next", replica.pool.getPoolName());
+                } else {
+                    replica.markDown("connection failed: " + e.getMessage());
+                }
+            }
+        }
+        fallbackReads.increment();
+        return primary.getConnection();
+    }
+
+    // Hikari's connection-timeout: with a cause when it could not connect,
+    // without one when every connection was in use for the whole timeout
+    private static boolean isPoolBusy(SQLException e) {
+        return e instanceof SQLTransientConnectionException && e.getCause() == null;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    @Scheduled(fixedDelayString = "${user.datasource.replicas.health-check-interval-ms:2000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection()) {
+                if (lagQuery.isEmpty()) {
+                    replica.markUp(0);
+                    continue;
+                }
+                Long lag = queryLag(connection);
+                if (lag == null) {
+                    replica.lagSeconds = Double.NaN;
+                    replica.markDown("replication is not running");
+                } else if (lag > maxLagSeconds) {
+                    replica.lagSeconds = lag;
+                    replica.markDown("lagging " + lag + "s behind");
+                } else {
+                    replica.markUp(lag);
+                }
+            } catch (SQLException e) {
+                replica.markDown("health check failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private Long queryLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            if (!rs.next()) {
+                return null;
+            }
+            // Seconds_Behind_Source from MySQL 8.0.22, Seconds_Behind_Master before
+            int column = 1;
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                String label = meta.getColumnLabel(i);
+                if (label.equalsIgnoreCase("Seconds_Behind_Source") || label.equalsIgnoreCase("Seconds_Behind_Master")) {
+                    column = i;
+                    break;
+                }
+            }
+            long lag = rs.getLong(column);
+            return rs.wasNull() ? null : lag;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource pool;
+        private volatile boolean healthy;
+        private volatile double lagSeconds = Double.NaN;
+
+        Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+
+        void markUp(long lag) {
+            lagSeconds = lag;
+            if (!healthy) {
+                healthy = true;
+                log.info("Replica {} is in read rotation ({}s behind)", pool.getPoolName(), lag);
+            }
+        }
+
+        void markDown(String reason) {
+            if (healthy) {
+                healthy = false;
+                log.warn("Replica {} taken out of read rotation: {}", pool.getPoolName(), reason);
+            } else {
+                log.debug("Replica {} still out of read rotation: {}", pool.getPoolName(), reason);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.gaurav.socialMedia.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Hands out connections to the shard chosen by {@link UserShardRouting}:
+ * shard 0 is the {@code spring.datasource} database, shards 1..n the pools
+ * for {@code user.sharding.shards}.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private final List<HikariDataSource> shardPools;
+
+    public ShardRoutingDataSource(DataSource globalDataSource, List<HikariDataSource> shardPools) {
+        this.shardPools = shardPools;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(UserShardRouting.GLOBAL_SHARD, globalDataSource);
+        for (int i = 0; i < shardPools.size(); i++) {
+            targets.put(i + 1, shardPools.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(globalDataSource);
+        // An unknown shard is a routing bug, not a reason to write to shard 0
+        setLenientFallback(false);
+    }
+
+    public int getShardCount() {
+        return shardPools.size() + 1;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return UserShardRouting.currentShard();
+    }
+
+    @Override
+    public void destroy() {
+        for (HikariDataSource pool : shardPools) {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.gaurav.socialMedia.config;
+
+import java.util.Map;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies {@code spring.jpa.hibernate.ddl-auto} to every extra shard while
+ * the session factory starts, the same way Hibernate applies it to shard 0.
+ * Every shard gets the full schema, so the global tables also exist, empty,
+ * on shards 1..n.
+ */
+@Slf4j
+public class ShardSchemaIntegrator implements Integrator {
+
+    private final int shardCount;
+
+    public ShardSchemaIntegrator(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        Map<String, Object> settings = sessionFactory.getServiceRegistry()
+                .getService(ConfigurationService.class)
+                .getSettings();
+        for (int shard = 1; shard < shardCount; shard++) {
+            int target = shard;
+            UserShardRouting.onShard(target, () -> {
+                // With create-drop only shard 0 is dropped on shutdown
+                SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(), settings,
+                        action -> { });
+                return null;
+            });
+            log.info("Applied schema action to user shard {}", target);
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.gaurav.socialMedia.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Spreads users over several databases when {@code user.sharding.shards} is
+ * set. Without it this class is skipped and Boot's single datasource is used
+ * as before.
+ * <p>
+ * {@code spring.datasource} stays shard 0 and keeps the global tables: the
+ * id sequence, the bucket map and the username/email lookups. JPA and
+ * JdbcTemplate get a {@link ShardRoutingDataSource}, so each transaction
+ * runs on the shard picked by {@link UserShardRouting} when it starts.
+ * Read replicas are not combined with shards; with both set, replicas are
+ * ignored.
+ */
+@Configuration
+@ConditionalOnExpression("!'${user.sharding.shards:}'.isBlank()")
+public class ShardingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                             DataSourceProperties properties,
+                                             MeterRegistry meterRegistry,
+                                             @Value("${user.sharding.shards}") String urls,
+                                             @Value("${user.sharding.pool-size:10}") int poolSize) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (String url : shardUrls(urls)) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("user-shard-" + (pools.size() + 1));
+            pool.setJdbcUrl(url);
+            pool.setUsername(properties.determineUsername());
+            pool.setPassword(properties.determinePassword());
+            pool.setDriverClassName(properties.determineDriverClassName());
+            pool.setMaximumPoolSize(poolSize);
+            pool.setMinimumIdle(poolSize);
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(pool);
+        }
+        return new ShardRoutingDataSource(primaryDataSource, pools);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(@Value("${user.sharding.shards}") String urls) {
+        int shardCount = shardUrls(urls).size() + 1;
+        return properties -> properties.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> List.of(new ShardSchemaIntegrator(shardCount)));
+    }
+
+    /**
+     * The JDBC URLs of shards 1..n, in shard order.
+     */
+    public static List<String> shardUrls(String urls) {
+        List<String> result = new ArrayList<>();
+        if (urls != null) {
+            for (String url : urls.split(",")) {
+                if (!url.isBlank()) {
+                    result.add(url.trim());
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,47 @@
+package com.gaurav.socialMedia.config;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+
+/**
+ * Redis value serializer that writes {@link UserResponseDto} with
+ * {@link UserResponseDtoCodec} and everything else (index ids, counters)
+ * as JSON.
+ * <p>
+ * Reads accept both formats, so entries written as JSON before the binary
+ * codec was introduced keep working until they expire. Legacy JSON profiles
+ * come back as maps and still need converting by the caller.
+ */
+public class UserCacheValueSerializer implements RedisSerializer<Object> {
+
+    private final RedisSerializer<Object> json;
+
+    public UserCacheValueSerializer(RedisSerializer<Object> json) {
+        this.json = json;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value instanceof UserResponseDto) {
+            return UserResponseDtoCodec.encode((UserResponseDto) value);
+        }
+        return json.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (UserResponseDtoCodec.isEncoded(bytes)) {
+            try {
+                return UserResponseDtoCodec.decode(bytes);
+            } catch (RuntimeException e) {
+                throw new SerializationException("Could not decode cached user", e);
+            }
+        }
+        return json.deserialize(bytes);
+    }
+}
@@ -0,0 +1,71 @@
+package com.gaurav.socialMedia.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.repository.UserShards;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves the {@code users_seq} table past the ids already in {@code users}.
+ * <p>
+ * Existing databases were filled by AUTO_INCREMENT, while the pooled
+ * generator starts its first block at {@code next_val - allocationSize + 1},
+ * so without this the first inserts would collide with old rows. The update
+ * only ever raises the value, so concurrent instances can all run it. It runs
+ * once every singleton is created, after Hibernate's schema update and before
+ * the web server or listeners start. If the sequence cannot be aligned,
+ * startup fails rather than serve registrations that may reuse old ids.
+ * <p>
+ * With sharding the sequence lives on shard 0 and is moved past the highest
+ * id on any shard.
+ */
+@Component
+@Slf4j
+public class UserIdSequenceInitializer implements SmartInitializingSingleton {
+
+    private static final String ALIGN_SQL =
+            "UPDATE " + User.ID_SEQUENCE + " SET next_val = GREATEST(next_val, "
+            + "(SELECT COALESCE(MAX(id), 0) FROM users) + ?)";
+
+    private static final String ALIGN_TO_SQL =
+            "UPDATE " + User.ID_SEQUENCE + " SET next_val = GREATEST(next_val, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserShards shards;
+
+    @Autowired
+    public UserIdSequenceInitializer(JdbcTemplate jdbcTemplate, UserShards shards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int updated;
+        try {
+            if (shards.isSharded()) {
+                AtomicLong maxId = new AtomicLong();
+                shards.forEachShard(shard -> maxId.accumulateAndGet(jdbcTemplate.queryForObject(
+                        "SELECT COALESCE(MAX(id), 0) FROM users", Long.class), Math::max));
+                updated = UserShardRouting.onGlobal(() ->
+                        jdbcTemplate.update(ALIGN_TO_SQL, maxId.get() + User.ID_ALLOCATION_SIZE + 1));
+            } else {
+                updated = jdbcTemplate.update(ALIGN_SQL, User.ID_ALLOCATION_SIZE + 1);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not align " + User.ID_SEQUENCE + " with existing user ids", e);
+        }
+        // Without its row the generator would start again from its initial value
+        if (updated == 0) {
+            throw new IllegalStateException(User.ID_SEQUENCE + " has no row to align with existing user ids");
+        }
+        log.info("Aligned {} with existing user ids ({} row)", User.ID_SEQUENCE, updated);
+    }
+}
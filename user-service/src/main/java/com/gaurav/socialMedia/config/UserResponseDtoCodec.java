@@ -0,0 +1,203 @@
+package com.gaurav.socialMedia.config;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+
+/**
+ * Compact binary encoding of {@link UserResponseDto} for the Redis cache.
+ * <p>
+ * Layout: a magic byte, a format version, then tagged fields until the end of
+ * the buffer. Each tag is {@code fieldNumber << 3 | wireType}, with varints
+ * (zig-zag for signed values) or length-prefixed UTF-8 strings, so null fields
+ * cost nothing and decoders skip field numbers they do not know. Field numbers
+ * must never be reused. {@code createdAt} is stored as UTC epoch seconds plus
+ * nanos.
+ */
+public final class UserResponseDtoCodec {
+
+    /** Never the first byte of JSON text, so encoded and legacy JSON values can be told apart. */
+    static final byte MAGIC = (byte) 0xB7;
+    static final byte VERSION = 1;
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_BYTES = 2;
+
+    private static final int ID = 1;
+    private static final int USERNAME = 2;
+    private static final int EMAIL = 3;
+    private static final int FULL_NAME = 4;
+    private static final int BIO = 5;
+    private static final int PROFILE_IMAGE_URL = 6;
+    private static final int FOLLOWERS_COUNT = 7;
+    private static final int FOLLOWING_COUNT = 8;
+    private static final int TWEETS_COUNT = 9;
+    private static final int IS_VERIFIED = 10;
+    private static final int IS_ACTIVE = 11;
+    private static final int CREATED_AT_SECONDS = 12;
+    private static final int CREATED_AT_NANOS = 13;
+
+    private UserResponseDtoCodec() {}
+
+    public static boolean isEncoded(byte[] bytes) {
+        return bytes != null && bytes.length >= 2 && bytes[0] == MAGIC;
+    }
+
+    public static byte[] encode(UserResponseDto dto) {
+        Writer out = new Writer();
+        out.buf[out.pos++] = MAGIC;
+        out.buf[out.pos++] = VERSION;
+        out.writeLong(ID, dto.getId());
+        out.writeString(USERNAME, dto.getUsername());
+        out.writeString(EMAIL, dto.getEmail());
+        out.writeString(FULL_NAME, dto.getFullName());
+        out.writeString(BIO, dto.getBio());
+        out.writeString(PROFILE_IMAGE_URL, dto.getProfileImageUrl());
+        out.writeLong(FOLLOWERS_COUNT, dto.getFollowersCount() == null ? null : dto.getFollowersCount().longValue());
+        out.writeLong(FOLLOWING_COUNT, dto.getFollowingCount() == null ? null : dto.getFollowingCount().longValue());
+        out.writeLong(TWEETS_COUNT, dto.getTweetsCount() == null ? null : dto.getTweetsCount().longValue());
+        out.writeBoolean(IS_VERIFIED, dto.getIsVerified());
+        out.writeBoolean(IS_ACTIVE, dto.getIsActive());
+        LocalDateTime createdAt = dto.getCreatedAt();
+        if (createdAt != null) {
+            out.writeLong(CREATED_AT_SECONDS, createdAt.toEpochSecond(ZoneOffset.UTC));
+            out.writeLong(CREATED_AT_NANOS, (long) createdAt.getNano());
+        }
+        return Arrays.copyOf(out.buf, out.pos);
+    }
+
+    public static UserResponseDto decode(byte[] bytes) {
+        if (!isEncoded(bytes)) {
+            throw new IllegalArgumentException("Not an encoded UserResponseDto");
+        }
+        if (bytes[1] > VERSION) {
+            throw new IllegalArgumentException("Unsupported UserResponseDto encoding version: " + bytes[1]);
+        }
+
+        Reader in = new Reader(bytes, 2);
+        UserResponseDto dto = new UserResponseDto();
+        Long createdAtSeconds = null;
+        long createdAtNanos = 0;
+        while (in.pos < bytes.length) {
+            int tag = (int) in.readVarint();
+            int field = tag >>> 3;
+            int wireType = tag & 7;
+            if (wireType == WIRE_BYTES) {
+                String value = in.readString();
+                switch (field) {
+                    case USERNAME: dto.setUsername(value); break;
+                    case EMAIL: dto.setEmail(value); break;
+                    case FULL_NAME: dto.setFullName(value); break;
+                    case BIO: dto.setBio(value); break;
+                    case PROFILE_IMAGE_URL: dto.setProfileImageUrl(value); break;
+                    default: break; // unknown field from a newer writer
+                }
+            } else if (wireType == WIRE_VARINT) {
+                long value = zigZagDecode(in.readVarint());
+                switch (field) {
+                    case ID: dto.setId(value); break;
+                    case FOLLOWERS_COUNT: dto.setFollowersCount((int) value); break;
+                    case FOLLOWING_COUNT: dto.setFollowingCount((int) value); break;
+                    case TWEETS_COUNT: dto.setTweetsCount((int) value); break;
+                    case IS_VERIFIED: dto.setIsVerified(value != 0); break;
+                    case IS_ACTIVE: dto.setIsActive(value != 0); break;
+                    case CREATED_AT_SECONDS: createdAtSeconds = value; break;
+                    case CREATED_AT_NANOS: createdAtNanos = value; break;
+                    default: break;
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown wire type " + wireType + " for field " + field);
+            }
+        }
+        if (createdAtSeconds != null) {
+            dto.setCreatedAt(LocalDateTime.ofEpochSecond(createdAtSeconds, (int) createdAtNanos, ZoneOffset.UTC));
+        }
+        return dto;
+    }
+
+    private static long zigZagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Writer {
+
+        private byte[] buf = new byte[128];
+        private int pos;
+
+        private void writeLong(int field, Long value) {
+            if (value != null) {
+                writeVarint(field << 3 | WIRE_VARINT);
+                writeVarint(zigZagEncode(value));
+            }
+        }
+
+        private void writeBoolean(int field, Boolean value) {
+            if (value != null) {
+                writeLong(field, value ? 1L : 0L);
+            }
+        }
+
+        private void writeString(int field, String value) {
+            if (value != null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarint(field << 3 | WIRE_BYTES);
+                writeVarint(bytes.length);
+                ensure(bytes.length);
+                System.arraycopy(bytes, 0, buf, pos, bytes.length);
+                pos += bytes.length;
+            }
+        }
+
+        private void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buf;
+        private int pos;
+
+        private Reader(byte[] buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        private long readVarint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buf[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        private String readString() {
+            int length = (int) readVarint();
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.gaurav.socialMedia.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread choice of the database that new connections come from, when
+ * users are sharded. Without shards configured it has no effect.
+ * <p>
+ * The shard is fixed when a transaction or JDBC call takes its connection,
+ * so it must be chosen before the transaction starts. Code that needs the
+ * shard of a user goes through {@code UserShards}, which also opens the
+ * transaction; anything run outside a shard uses shard 0, the database that
+ * holds the global tables.
+ */
+public final class UserShardRouting {
+
+    public static final int GLOBAL_SHARD = 0;
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private UserShardRouting() {
+    }
+
+    public static int currentShard() {
+        Integer shard = SHARD.get();
+        return shard == null ? GLOBAL_SHARD : shard;
+    }
+
+    /**
+     * Runs {@code action} with new connections taken from {@code shard}.
+     */
+    public static <T> T onShard(int shard, Supplier<T> action) {
+        Integer previous = SHARD.get();
+        SHARD.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Runs {@code action} against the database holding the id sequence, the
+     * bucket map and the username/email lookups.
+     */
+    public static <T> T onGlobal(Supplier<T> action) {
+        return onShard(GLOBAL_SHARD, action);
+    }
+}
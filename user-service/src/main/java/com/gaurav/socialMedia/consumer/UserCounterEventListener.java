@@ -0,0 +1,40 @@
+package com.gaurav.socialMedia.consumer;
+
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import com.gaurav.socialMedia.Entity.UserCounterEvent;
+import com.gaurav.socialMedia.service.CounterEventIngestionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumes follow/unfollow/tweet events so other services can update counters
+ * fire-and-forget instead of calling the {@code increment-*} endpoints.
+ * Offsets are committed by the container after the whole poll is applied.
+ */
+@Component
+@Slf4j
+public class UserCounterEventListener {
+
+    private final CounterEventIngestionService ingestionService;
+
+    @Autowired
+    public UserCounterEventListener(CounterEventIngestionService ingestionService) {
+        this.ingestionService = ingestionService;
+    }
+
+    @KafkaListener(
+            id = "user-counter-events",
+            topics = "${user.counters.kafka.topic:user-counter-events}",
+            batch = "true",
+            autoStartup = "${user.counters.kafka.enabled:true}")
+    public void onEvents(List<ConsumerRecord<String, UserCounterEvent>> records) {
+        log.debug("Received {} counter events", records.size());
+        ingestionService.ingest(records);
+    }
+}
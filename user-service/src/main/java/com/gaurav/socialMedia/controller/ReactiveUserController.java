@@ -0,0 +1,48 @@
+package com.gaurav.socialMedia.controller;
+
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+import com.gaurav.socialMedia.service.ReactiveUserReadService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variants of the profile GETs. Spring MVC completes these
+ * asynchronously, so the servlet thread is released while Redis or the
+ * database is being queried.
+ */
+@RestController
+@RequestMapping("/api/v1/users/reactive")
+@Tag(name = "User Reads (non-blocking)", description = "Non-blocking profile lookups for high-concurrency readers")
+@CrossOrigin(origins = "*")
+public class ReactiveUserController {
+    
+    private final ReactiveUserReadService readService;
+    
+    @Autowired
+    public ReactiveUserController(ReactiveUserReadService readService) {
+        this.readService = readService;
+    }
+    
+    @GetMapping("/{id}")
+    @Operation(summary = "Get user by ID", description = "Retrieves user information by user ID without blocking a request thread")
+    public Mono<ResponseEntity<UserResponseDto>> getUserById(@Parameter(description = "User ID") @PathVariable Long id) {
+        return readService.getUserById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/username/{username}")
+    @Operation(summary = "Get user by username", description = "Retrieves user information by username without blocking a request thread")
+    public Mono<ResponseEntity<UserResponseDto>> getUserByUsername(@Parameter(description = "Username") @PathVariable String username) {
+        return readService.getUserByUsername(username)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
@@ -1,8 +1,15 @@
 package com.gaurav.socialMedia.controller;
 
 
+import com.gaurav.socialMedia.Entity.CounterBatchRequestDto;
+import com.gaurav.socialMedia.Entity.CounterOperationResultDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gaurav.socialMedia.Entity.UserBatchRequestDto;
+import com.gaurav.socialMedia.Entity.UserPageDto;
 import com.gaurav.socialMedia.Entity.UserRegistrationDto;
 import com.gaurav.socialMedia.Entity.UserResponseDto;
+import com.gaurav.socialMedia.Entity.UserSuggestionDto;
+import com.gaurav.socialMedia.exception.TooManyRequestsException;
 import com.gaurav.socialMedia.service.UserServiceInterface;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,10 +17,15 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,11 +35,15 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class UserController {
     
+    private static final String NDJSON = "application/x-ndjson";
+    
     private final UserServiceInterface userService;
+    private final ObjectMapper objectMapper;
     
     @Autowired
-    public UserController(UserServiceInterface userService) {
+    public UserController(UserServiceInterface userService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
     }
     
     @PostMapping("/register")
@@ -36,6 +52,10 @@ public class UserController {
         try {
             UserResponseDto user = userService.registerUser(registrationDto);
             return ResponseEntity.status(HttpStatus.CREATED).body(user);
+        } catch (TooManyRequestsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Registration failed: " + e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body("Registration failed: " + e.getMessage());
         }
@@ -52,6 +72,13 @@ public class UserController {
         }
     }
     
+    @PostMapping("/batch")
+    @Operation(summary = "Get users by IDs", description = "Retrieves many users in one call. Results follow the request order; unknown IDs are omitted")
+    public ResponseEntity<List<UserResponseDto>> getUsersByIds(@Valid @RequestBody UserBatchRequestDto request) {
+        List<UserResponseDto> users = userService.getUsersByIds(request.getIds());
+        return ResponseEntity.ok(users);
+    }
+    
     @GetMapping("/username/{username}")
     @Operation(summary = "Get user by username", description = "Retrieves user information by username")
     public ResponseEntity<?> getUserByUsername(@Parameter(description = "Username") @PathVariable String username) {
@@ -87,17 +114,46 @@ public class UserController {
     }
     
     @GetMapping("/search")
-    @Operation(summary = "Search users", description = "Searches for users by username or full name")
-    public ResponseEntity<List<UserResponseDto>> searchUsers(@Parameter(description = "Search query") @RequestParam String query) {
-        List<UserResponseDto> users = userService.searchUsers(query);
+    @Operation(summary = "Search users", description = "Searches for users by username or full name, best matches first")
+    public ResponseEntity<List<UserResponseDto>> searchUsers(@Parameter(description = "Search query") @RequestParam String query,
+                                                             @Parameter(description = "Page number, starting at 0") @RequestParam(defaultValue = "0") int page,
+                                                             @Parameter(description = "Page size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        List<UserResponseDto> users = userService.searchUsers(query, page, size);
         return ResponseEntity.ok(users);
     }
     
+    @GetMapping("/autocomplete")
+    @Operation(summary = "Autocomplete users", description = "Suggests users whose username or a word of their full name starts with the prefix, most followed first")
+    public ResponseEntity<List<UserSuggestionDto>> autocomplete(@Parameter(description = "Prefix typed so far") @RequestParam String prefix,
+                                                                @Parameter(description = "Maximum suggestions (max 10)") @RequestParam(defaultValue = "10") int limit) {
+        List<UserSuggestionDto> suggestions = userService.autocomplete(prefix, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+    
     @GetMapping("/active")
-    @Operation(summary = "Get all active users", description = "Retrieves all active users")
-    public ResponseEntity<List<UserResponseDto>> getAllActiveUsers() {
-        List<UserResponseDto> users = userService.getAllActiveUsers();
-        return ResponseEntity.ok(users);
+    @Operation(summary = "Get active users", description = "Retrieves one page of active users, newest first. Pass the returned nextCursor to fetch the following page")
+    public ResponseEntity<?> getActiveUsers(@Parameter(description = "Cursor from the previous page") @RequestParam(required = false) String cursor,
+                                            @Parameter(description = "Page size (max 200)") @RequestParam(defaultValue = "50") int limit) {
+        try {
+            UserPageDto page = userService.getActiveUsers(cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping(value = "/active/stream", produces = NDJSON)
+    @Operation(summary = "Stream all active users", description = "Streams every active user as newline-delimited JSON without buffering the result set")
+    public ResponseEntity<StreamingResponseBody> streamActiveUsers() {
+        StreamingResponseBody body = out -> userService.streamActiveUsers(user -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(user));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
     }
     
     @GetMapping("/check-username/{username}")
@@ -169,4 +225,11 @@ public class UserController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+    
+    @PostMapping("/counters/batch")
+    @Operation(summary = "Apply counter operations in bulk", description = "Internal API to apply many follower/following/tweet count changes in one request")
+    public ResponseEntity<List<CounterOperationResultDto>> applyCounterOperations(@Valid @RequestBody CounterBatchRequestDto request) {
+        List<CounterOperationResultDto> results = userService.applyCounterOperations(request.getOperations());
+        return ResponseEntity.ok(results);
+    }
 }
@@ -0,0 +1,9 @@
+package com.gaurav.socialMedia.exception;
+
+public class ImportJobRunningException extends RuntimeException {
+
+	public ImportJobRunningException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,9 @@
+package com.gaurav.socialMedia.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+
+	public TooManyRequestsException(String message) {
+		super(message);
+	}
+
+}
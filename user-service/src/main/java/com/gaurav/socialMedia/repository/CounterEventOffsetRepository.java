@@ -0,0 +1,11 @@
+package com.gaurav.socialMedia.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.gaurav.socialMedia.Entity.CounterEventOffset;
+
+@Repository
+public interface CounterEventOffsetRepository extends JpaRepository<CounterEventOffset, String> {
+
+}
@@ -0,0 +1,320 @@
+package com.gaurav.socialMedia.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.repository.UserLookupRepository.Claim;
+import com.gaurav.socialMedia.repository.UserLookupRepository.Kind;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The user queries of {@link UserRepository}, answered across shards.
+ * <p>
+ * Lookups by id go to the shard of the id. Lookups by username or email go
+ * through the claim on shard 0 and then to the claimed user's shard.
+ * Searches and active user pages ask every shard in parallel for a full
+ * page and merge the results in the query's order.
+ * <p>
+ * A claim whose insert never committed, e.g. after a crash, is ignored once
+ * it is older than {@code user.sharding.claim-grace}, and replaced when the
+ * name is claimed again. Rows a shard holds for buckets it does not own,
+ * which a failed move can leave behind, are skipped.
+ * <p>
+ * Without sharding every call goes straight to {@link UserRepository}.
+ */
+@Repository
+@Slf4j
+public class ShardedUserRepository {
+
+    private static final Comparator<User> ACTIVE_ORDER = Comparator
+            .comparing(User::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(User::getId, Comparator.reverseOrder());
+
+    private final UserRepository userRepository;
+    private final UserShards shards;
+    private final UserLookupRepository lookupRepository;
+    private final Duration claimGrace;
+
+    @Autowired
+    public ShardedUserRepository(UserRepository userRepository,
+                                 UserShards shards,
+                                 UserLookupRepository lookupRepository,
+                                 @Value("${user.sharding.claim-grace:1m}") Duration claimGrace) {
+        this.userRepository = userRepository;
+        this.shards = shards;
+        this.lookupRepository = lookupRepository;
+        this.claimGrace = claimGrace;
+    }
+
+    /**
+     * Wraps a repository of unsharded users, for wiring outside Spring.
+     */
+    public static ShardedUserRepository unsharded(UserRepository userRepository) {
+        return new ShardedUserRepository(userRepository, UserShards.unsharded(), null, Duration.ZERO);
+    }
+
+    /**
+     * The plain repository, for use inside a transaction opened on the
+     * user's shard by {@link UserShards}.
+     */
+    public UserRepository local() {
+        return userRepository;
+    }
+
+    public UserShards shards() {
+        return shards;
+    }
+
+    public Optional<User> findById(Long id) {
+        if (!shards.isSharded()) {
+            return userRepository.findById(id);
+        }
+        return shards.read(shards.shardOf(id), () -> userRepository.findById(id));
+    }
+
+    public boolean existsById(Long id) {
+        if (!shards.isSharded()) {
+            return userRepository.existsById(id);
+        }
+        return shards.read(shards.shardOf(id), () -> userRepository.existsById(id));
+    }
+
+    public List<User> findAllById(Collection<Long> ids) {
+        if (!shards.isSharded()) {
+            return userRepository.findAllById(ids);
+        }
+        Map<Integer, List<Long>> groups = shards.group(ids);
+        List<User> users = new ArrayList<>(ids.size());
+        for (List<User> found : shards.readEach(groups.keySet(),
+                shard -> userRepository.findAllById(groups.get(shard)))) {
+            users.addAll(found);
+        }
+        return users;
+    }
+
+    public List<Long> findExistingIds(Collection<Long> ids) {
+        if (!shards.isSharded()) {
+            return userRepository.findExistingIds(ids);
+        }
+        Map<Integer, List<Long>> groups = shards.group(ids);
+        List<Long> existing = new ArrayList<>(ids.size());
+        for (List<Long> found : shards.readEach(groups.keySet(),
+                shard -> userRepository.findExistingIds(groups.get(shard)))) {
+            existing.addAll(found);
+        }
+        return existing;
+    }
+
+    public Optional<User> findByUsername(String username) {
+        if (!shards.isSharded()) {
+            return userRepository.findByUsername(username);
+        }
+        List<Claim> claims = lookupRepository.findClaims(Kind.USERNAME, List.of(username));
+        if (claims.isEmpty()) {
+            return Optional.empty();
+        }
+        // The claim is written first, so the user may not be committed yet
+        return findById(claims.get(0).getUserId())
+                .filter(user -> username.equalsIgnoreCase(user.getUsername()));
+    }
+
+    public boolean existsByUsername(String username) {
+        if (!shards.isSharded()) {
+            return userRepository.existsByUsername(username);
+        }
+        return !liveClaims(Kind.USERNAME, List.of(username)).isEmpty();
+    }
+
+    public boolean existsByEmail(String email) {
+        if (!shards.isSharded()) {
+            return userRepository.existsByEmail(email);
+        }
+        return !liveClaims(Kind.EMAIL, List.of(email)).isEmpty();
+    }
+
+    // Matched with the column collation, i.e. case-insensitively on MySQL
+    public List<String> findExistingUsernames(Collection<String> usernames) {
+        if (!shards.isSharded()) {
+            return userRepository.findExistingUsernames(usernames);
+        }
+        return liveClaims(Kind.USERNAME, usernames).stream().map(Claim::getValue).toList();
+    }
+
+    public List<String> findExistingEmails(Collection<String> emails) {
+        if (!shards.isSharded()) {
+            return userRepository.findExistingEmails(emails);
+        }
+        return liveClaims(Kind.EMAIL, emails).stream().map(Claim::getValue).toList();
+    }
+
+    /**
+     * One page of users whose username or full name contains {@code query},
+     * in id order.
+     */
+    public List<User> searchUsers(String query, int page, int size) {
+        return search((q, pageable) -> userRepository.searchUsers(q, pageable), query, page, size);
+    }
+
+    /**
+     * One page of users with a word of their username or full name starting
+     * with {@code prefix}, in id order.
+     */
+    public List<User> searchUsersByWordPrefix(String prefix, int page, int size) {
+        return search((p, pageable) -> userRepository.searchUsersByWordPrefix(p, pageable), prefix, page, size);
+    }
+
+    private List<User> search(BiFunction<String, Pageable, List<User>> query, String text, int page, int size) {
+        String pattern = escapeLike(text);
+        if (!shards.isSharded()) {
+            return query.apply(pattern, PageRequest.of(page, size));
+        }
+        // Any shard may hold the whole page, so each returns everything up to its end
+        Pageable upToPage = PageRequest.of(0, (page + 1) * size);
+        List<User> merged = new ArrayList<>();
+        List<List<User>> perShard = shards.readAll(shard -> owned(shard, query.apply(pattern, upToPage)));
+        perShard.forEach(merged::addAll);
+        merged.sort(Comparator.comparing(User::getId));
+        int from = Math.min(page * size, merged.size());
+        return new ArrayList<>(merged.subList(from, Math.min(from + size, merged.size())));
+    }
+
+    // Matches the ESCAPE '!' of the search queries
+    static String escapeLike(String text) {
+        return text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    public List<User> findActiveUsersFirstPage(Pageable pageable) {
+        if (!shards.isSharded()) {
+            return userRepository.findActiveUsersFirstPage(pageable);
+        }
+        return mergeActive(shards.readAll(shard -> owned(shard, userRepository.findActiveUsersFirstPage(pageable))),
+                pageable.getPageSize());
+    }
+
+    public List<User> findActiveUsersAfter(LocalDateTime createdAt, Long id, Pageable pageable) {
+        if (!shards.isSharded()) {
+            return userRepository.findActiveUsersAfter(createdAt, id, pageable);
+        }
+        return mergeActive(shards.readAll(
+                shard -> owned(shard, userRepository.findActiveUsersAfter(createdAt, id, pageable))),
+                pageable.getPageSize());
+    }
+
+    /**
+     * Claims the usernames and emails of new users with reserved ids. A
+     * claim left behind by an insert that never committed is cleared and
+     * the claim tried once more.
+     *
+     * @throws DuplicateKeyException if a name is taken
+     */
+    public void claim(List<User> users) {
+        try {
+            lookupRepository.claim(users);
+        } catch (DuplicateKeyException e) {
+            if (purgeAbandonedClaims(users) == 0) {
+                throw e;
+            }
+            lookupRepository.claim(users);
+        }
+    }
+
+    /**
+     * Releases the claims of new users whose insert failed.
+     */
+    public void release(List<User> users) {
+        try {
+            lookupRepository.release(users);
+        } catch (Exception e) {
+            // Left to expire after the claim grace period
+            log.warn("Failed to release the names of {} users", users.size(), e);
+        }
+    }
+
+    private int purgeAbandonedClaims(List<User> users) {
+        int purged = 0;
+        for (Kind kind : Kind.values()) {
+            List<String> values = users.stream().map(kind::valueOf).toList();
+            List<Claim> claims = lookupRepository.findClaims(kind, values);
+            for (Claim claim : abandoned(claims)) {
+                lookupRepository.release(kind, claim.getValue(), claim.getUserId());
+                log.info("Released abandoned {} claim by user {}", kind, claim.getUserId());
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    private List<Claim> liveClaims(Kind kind, Collection<String> values) {
+        List<Claim> claims = lookupRepository.findClaims(kind, values);
+        Set<Claim> abandoned = new HashSet<>(abandoned(claims));
+        if (abandoned.isEmpty()) {
+            return claims;
+        }
+        List<Claim> live = new ArrayList<>(claims.size());
+        for (Claim claim : claims) {
+            if (!abandoned.contains(claim)) {
+                live.add(claim);
+            }
+        }
+        return live;
+    }
+
+    // Claims past the grace period whose user never appeared on its shard
+    private List<Claim> abandoned(List<Claim> claims) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(claimGrace);
+        List<Claim> old = new ArrayList<>();
+        Set<Long> oldIds = new HashSet<>();
+        for (Claim claim : claims) {
+            if (claim.getCreatedAt() != null && claim.getCreatedAt().isBefore(cutoff)) {
+                old.add(claim);
+                oldIds.add(claim.getUserId());
+            }
+        }
+        if (old.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> existing = new HashSet<>(findExistingIds(oldIds));
+        List<Claim> abandoned = new ArrayList<>();
+        for (Claim claim : old) {
+            if (!existing.contains(claim.getUserId())) {
+                abandoned.add(claim);
+            }
+        }
+        return abandoned;
+    }
+
+    private List<User> owned(int shard, List<User> users) {
+        List<User> owned = new ArrayList<>(users.size());
+        for (User user : users) {
+            if (shards.shardOf(user.getId()) == shard) {
+                owned.add(user);
+            }
+        }
+        return owned;
+    }
+
+    private static List<User> mergeActive(List<List<User>> perShard, int limit) {
+        List<User> merged = new ArrayList<>();
+        perShard.forEach(merged::addAll);
+        merged.sort(ACTIVE_ORDER);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+}
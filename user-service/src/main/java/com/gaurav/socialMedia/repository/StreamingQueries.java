@@ -0,0 +1,60 @@
+package com.gaurav.socialMedia.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Reads of whole tables one row at a time, for the index rebuilds and the
+ * export.
+ * <p>
+ * MySQL Connector/J buffers the entire result set in memory unless the
+ * statement is forward-only, read-only and has a fetch size of
+ * {@value #FETCH_SIZE}; only then does it stream rows from the server as
+ * they are read. The connection is busy until the result set is closed.
+ */
+public final class StreamingQueries {
+
+    public static final int FETCH_SIZE = Integer.MIN_VALUE;
+
+    private StreamingQueries() {
+    }
+
+    /**
+     * Runs the query on every shard in turn, passing each row with the shard
+     * it was read from.
+     */
+    public static void forEachRow(DataSource dataSource, UserShards shards, String sql, ShardRowHandler handler) {
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(FETCH_SIZE);
+        shards.forEachShard(shard -> streaming.query(sql, (RowCallbackHandler) rs -> handler.processRow(shard, rs)));
+    }
+
+    /**
+     * Prepares a statement whose result set streams, for callers that keep
+     * several open at once.
+     */
+    public static PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+        try {
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    public interface ShardRowHandler {
+
+        void processRow(int shard, ResultSet rs) throws SQLException;
+    }
+}
@@ -0,0 +1,62 @@
+package com.gaurav.socialMedia.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.gaurav.socialMedia.Entity.UserCounterDelta;
+
+/**
+ * Applies counter deltas directly in SQL so concurrent followers/tweets never
+ * need a read-modify-write of the whole {@code User} entity.
+ * <p>
+ * Each counter ends at {@code GREATEST(count + net, net - low)}, which is
+ * what applying the coalesced events one at a time, each clamped at zero,
+ * would give (see {@link UserCounterDelta}).
+ */
+@Repository
+public class UserCounterRepository {
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE users SET "
+            + "followers_count = GREATEST(followers_count + ?, ?), "
+            + "following_count = GREATEST(following_count + ?, ?), "
+            + "tweets_count = GREATEST(tweets_count + ?, ?), "
+            + "updated_at = CURRENT_TIMESTAMP, "
+            + "version = version + 1 "
+            + "WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public UserCounterRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Applies all deltas as one JDBC batch inside a single transaction.
+     * Callers should pass the map ordered by user id so concurrent flushes
+     * always lock rows in the same order.
+     *
+     * @return number of rows updated per entry, in iteration order
+     */
+    @Transactional
+    public int[] applyDeltas(Map<Long, UserCounterDelta> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, UserCounterDelta> entry : deltas.entrySet()) {
+            UserCounterDelta delta = entry.getValue();
+            args.add(new Object[] {
+                    delta.getFollowers(), delta.getFollowers() - delta.getFollowersLow(),
+                    delta.getFollowing(), delta.getFollowing() - delta.getFollowingLow(),
+                    delta.getTweets(), delta.getTweets() - delta.getTweetsLow(),
+                    entry.getKey()
+            });
+        }
+        return jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, args);
+    }
+}
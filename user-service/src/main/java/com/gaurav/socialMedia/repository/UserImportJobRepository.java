@@ -0,0 +1,34 @@
+package com.gaurav.socialMedia.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.gaurav.socialMedia.Entity.UserImportJob;
+
+@Repository
+public interface UserImportJobRepository extends JpaRepository<UserImportJob, String> {
+
+    // Sets RUNNING only if the job failed, or has been RUNNING without a
+    // checkpoint since staleBefore, so one upload at a time wins the job
+    default int claim(String jobId, LocalDateTime now, LocalDateTime staleBefore) {
+        return claim(jobId, now, staleBefore, UserImportJob.Status.RUNNING, UserImportJob.Status.FAILED);
+    }
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE UserImportJob j SET j.status = :running, j.lastError = NULL, j.updatedAt = :now,"
+            + " j.version = j.version + 1 WHERE j.jobId = :jobId"
+            + " AND (j.status = :failed OR (j.status = :running AND j.updatedAt < :staleBefore))")
+    int claim(@Param("jobId") String jobId,
+              @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore,
+              @Param("running") UserImportJob.Status running,
+              @Param("failed") UserImportJob.Status failed);
+
+}
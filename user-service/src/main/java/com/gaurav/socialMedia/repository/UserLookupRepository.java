@@ -0,0 +1,168 @@
+package com.gaurav.socialMedia.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.config.UserShardRouting;
+
+/**
+ * JDBC access to the username and email lookup tables on shard 0, which
+ * keep both unique across shards. Every call runs in its own transaction
+ * there, whatever shard the caller is working on.
+ */
+@Repository
+public class UserLookupRepository {
+
+    public enum Kind {
+        USERNAME("user_username_lookup", "username", User::getUsername),
+        EMAIL("user_email_lookup", "email", User::getEmail);
+
+        private final String table;
+        private final String column;
+        private final Function<User, String> value;
+
+        Kind(String table, String column, Function<User, String> value) {
+            this.table = table;
+            this.column = column;
+            this.value = value;
+        }
+
+        public String valueOf(User user) {
+            return value.apply(user);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public UserLookupRepository(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Claims the usernames and emails of users that already have their ids
+     * or reserved ids, all or nothing. A value someone else holds fails the whole claim with a
+     * {@link org.springframework.dao.DuplicateKeyException}.
+     */
+    public void claim(Collection<User> users) {
+        onGlobal(() -> {
+            for (Kind kind : Kind.values()) {
+                List<Object[]> args = new ArrayList<>(users.size());
+                for (User user : users) {
+                    args.add(new Object[] {kind.valueOf(user), idOf(user)});
+                }
+                jdbcTemplate.batchUpdate("INSERT INTO " + kind.table + " (" + kind.column
+                        + ", user_id, created_at) VALUES (?, ?, CURRENT_TIMESTAMP)", args);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Drops the claims of users whose insert failed. A claim since taken
+     * over by another user is left alone.
+     */
+    public void release(Collection<User> users) {
+        onGlobal(() -> {
+            for (Kind kind : Kind.values()) {
+                List<Object[]> args = new ArrayList<>(users.size());
+                for (User user : users) {
+                    args.add(new Object[] {kind.valueOf(user), idOf(user)});
+                }
+                jdbcTemplate.batchUpdate("DELETE FROM " + kind.table + " WHERE " + kind.column
+                        + " = ? AND user_id = ?", args);
+            }
+            return null;
+        });
+    }
+
+    public void release(Kind kind, String value, Long userId) {
+        onGlobal(() -> jdbcTemplate.update("DELETE FROM " + kind.table + " WHERE " + kind.column
+                + " = ? AND user_id = ?", value, userId));
+    }
+
+    /**
+     * The claims on the given values, matched with the column collation,
+     * i.e. case-insensitively on MySQL.
+     */
+    public List<Claim> findClaims(Kind kind, Collection<String> values) {
+        if (values.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(values.size(), "?"));
+        return onGlobal(() -> jdbcTemplate.query("SELECT " + kind.column + ", user_id, created_at FROM "
+                + kind.table + " WHERE " + kind.column + " IN (" + placeholders + ")", (rs, rowNum) -> {
+                    Timestamp createdAt = rs.getTimestamp(3);
+                    return new Claim(rs.getString(1), rs.getLong(2),
+                            createdAt == null ? null : createdAt.toLocalDateTime());
+                }, values.toArray()));
+    }
+
+    /**
+     * Claims the names of the users already in {@code users} on shard 0,
+     * skipping names that are claimed. Used once, when sharding is turned on
+     * for an existing database.
+     */
+    public int backfill() {
+        return onGlobal(() -> {
+            int claimed = 0;
+            for (Kind kind : Kind.values()) {
+                claimed += jdbcTemplate.update("INSERT INTO " + kind.table + " (" + kind.column
+                        + ", user_id, created_at) SELECT u." + kind.column + ", u.id, CURRENT_TIMESTAMP FROM users u "
+                        + "WHERE NOT EXISTS (SELECT 1 FROM " + kind.table + " l WHERE l." + kind.column
+                        + " = u." + kind.column + ")");
+            }
+            return claimed;
+        });
+    }
+
+    // New users are claimed before they are persisted, with their reserved id
+    private static Long idOf(User user) {
+        return user.getId() != null ? user.getId() : user.getReservedId();
+    }
+
+    private <T> T onGlobal(Supplier<T> action) {
+        return UserShardRouting.onGlobal(() -> transactionTemplate.execute(status -> action.get()));
+    }
+
+    /**
+     * A username or email held by a user id since {@code createdAt}.
+     */
+    public static final class Claim {
+
+        private final String value;
+        private final Long userId;
+        private final LocalDateTime createdAt;
+
+        public Claim(String value, Long userId, LocalDateTime createdAt) {
+            this.value = value;
+            this.userId = userId;
+            this.createdAt = createdAt;
+        }
+
+        public String getValue() { return value; }
+
+        public Long getUserId() { return userId; }
+
+        public LocalDateTime getCreatedAt() { return createdAt; }
+    }
+}
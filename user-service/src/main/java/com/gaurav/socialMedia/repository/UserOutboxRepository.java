@@ -0,0 +1,93 @@
+package com.gaurav.socialMedia.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.gaurav.socialMedia.Entity.UserOutboxEvent;
+
+/**
+ * JDBC access to the {@code user_outbox} table. Inserts are batched, which
+ * JPA cannot do for identity ids.
+ */
+@Repository
+public class UserOutboxRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO user_outbox (user_id, event_type, created_at) VALUES (?, ?, CURRENT_TIMESTAMP)";
+
+    private static final String SELECT_BATCH_SQL =
+            "SELECT id, user_id, event_type, created_at FROM user_outbox ORDER BY id LIMIT ?";
+
+    // MySQL 8: rows another relay has claimed are skipped instead of waited for
+    private static final String CLAIM_BATCH_SQL = SELECT_BATCH_SQL + " FOR UPDATE SKIP LOCKED";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public UserOutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Records one event per user. Must join the transaction that makes the
+     * change, otherwise the event could outlive a rollback.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Collection<Long> userIds, UserOutboxEvent.Type type) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            args.add(new Object[] {userId, type.name()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Long userId, UserOutboxEvent.Type type) {
+        append(Collections.singletonList(userId), type);
+    }
+
+    /**
+     * The oldest committed events, in insertion order.
+     */
+    public List<UserOutboxEvent> findBatch(int limit) {
+        return jdbcTemplate.query(SELECT_BATCH_SQL, UserOutboxRepository::mapEvent, limit);
+    }
+
+    /**
+     * The oldest committed events that no other transaction has claimed,
+     * locked until the calling transaction ends.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<UserOutboxEvent> claimBatch(int limit) {
+        return jdbcTemplate.query(CLAIM_BATCH_SQL, UserOutboxRepository::mapEvent, limit);
+    }
+
+    private static UserOutboxEvent mapEvent(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp(4);
+        return new UserOutboxEvent(rs.getLong(1), rs.getLong(2),
+                UserOutboxEvent.Type.valueOf(rs.getString(3)),
+                createdAt == null ? null : createdAt.toLocalDateTime());
+    }
+
+    public int delete(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.update("DELETE FROM user_outbox WHERE id IN (" + placeholders + ")", ids.toArray());
+    }
+}
@@ -1,16 +1,25 @@
 package com.gaurav.socialMedia.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.gaurav.socialMedia.Entity.User;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
   
@@ -22,13 +31,56 @@ public interface UserRepository extends JpaRepository<User, Long> {
 	    
 	    boolean existsByEmail(String email);
 	    
-	    @Query("SELECT u FROM User u WHERE u.isActive = true ORDER BY u.createdAt DESC")
-	    List<User> findActiveUsers();
+	    @Query("SELECT u FROM User u WHERE u.isActive = true ORDER BY u.createdAt DESC, u.id DESC")
+	    List<User> findActiveUsersFirstPage(Pageable pageable);
+	    
+	    @Query("SELECT u FROM User u WHERE u.isActive = true "
+	            + "AND (u.createdAt < :createdAt OR (u.createdAt = :createdAt AND u.id < :id)) "
+	            + "ORDER BY u.createdAt DESC, u.id DESC")
+	    List<User> findActiveUsersAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+	    
+	    // Streams rows instead of buffering the result set, see StreamingQueries
+	    @QueryHints({
+	        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + StreamingQueries.FETCH_SIZE),
+	        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+	    })
+	    @Query("SELECT u FROM User u WHERE u.isActive = true ORDER BY u.createdAt DESC, u.id DESC")
+	    Stream<User> streamActiveUsers();
+	    
+	    // Active users only, like the search index it stands in for. In id order,
+	    // so pages are stable and pages from several shards can be merged.
+	    // The query has its LIKE wildcards escaped with '!'
+	    @Query("SELECT u FROM User u WHERE u.isActive = true "
+	            + "AND (u.username LIKE CONCAT('%', :query, '%') ESCAPE '!' "
+	            + "OR u.fullName LIKE CONCAT('%', :query, '%') ESCAPE '!') ORDER BY u.id")
+	    List<User> searchUsers(@Param("query") String query, Pageable pageable);
 	    
-	    @Query("SELECT u FROM User u WHERE u.username LIKE %:query% OR u.fullName LIKE %:query%")
-	    List<User> searchUsers(@Param("query") String query);
+	    // A word of the username or full name starts with the escaped prefix,
+	    // the same matches the search index gives queries under three characters
+	    @Query("SELECT u FROM User u WHERE u.isActive = true "
+	            + "AND (u.username LIKE CONCAT(:prefix, '%') ESCAPE '!' "
+	            + "OR u.username LIKE CONCAT('% ', :prefix, '%') ESCAPE '!' "
+	            + "OR u.fullName LIKE CONCAT(:prefix, '%') ESCAPE '!' "
+	            + "OR u.fullName LIKE CONCAT('% ', :prefix, '%') ESCAPE '!') ORDER BY u.id")
+	    List<User> searchUsersByWordPrefix(@Param("prefix") String prefix, Pageable pageable);
 	    
 	    @Query("SELECT COUNT(u) FROM User u WHERE u.isActive = true")
 	    Long countActiveUsers();
+	    
+	    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+	    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+	    
+	    // Matched with the column collation, i.e. case-insensitively on MySQL
+	    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+	    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+	    
+	    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+	    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+	    
+	    // In SQL under the row lock, so concurrent writes never share a version;
+	    // flushes the entity's own changes first
+	    @Modifying(flushAutomatically = true)
+	    @Query(value = "UPDATE users SET version = version + 1 WHERE id = :id", nativeQuery = true)
+	    int incrementVersion(@Param("id") Long id);
 
 }
@@ -0,0 +1,82 @@
+package com.gaurav.socialMedia.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.gaurav.socialMedia.Entity.UserShardBucket;
+import com.gaurav.socialMedia.config.UserShardRouting;
+
+/**
+ * JDBC access to {@code user_shard_buckets} on shard 0. Every call runs in
+ * its own transaction there, whatever shard the caller is working on.
+ */
+@Repository
+public class UserShardMapRepository {
+
+    private static final String SELECT_ALL_SQL = "SELECT bucket, shard, state FROM user_shard_buckets ORDER BY bucket";
+
+    private static final String INSERT_SQL = "INSERT INTO user_shard_buckets (bucket, shard, state) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public UserShardMapRepository(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public List<UserShardBucket> findAll() {
+        return onGlobal(() -> jdbcTemplate.query(SELECT_ALL_SQL, (rs, rowNum) -> new UserShardBucket(
+                rs.getInt(1), rs.getInt(2), UserShardBucket.State.valueOf(rs.getString(3)))));
+    }
+
+    public void insertAll(List<UserShardBucket> buckets) {
+        List<Object[]> args = new ArrayList<>(buckets.size());
+        for (UserShardBucket bucket : buckets) {
+            args.add(new Object[] {bucket.getBucket(), bucket.getShard(), bucket.getState().name()});
+        }
+        onGlobal(() -> jdbcTemplate.batchUpdate(INSERT_SQL, args));
+    }
+
+    /**
+     * Freezes the bucket if {@code shard} still holds it and no move is
+     * running. Returns {@code false} otherwise.
+     */
+    public boolean freeze(int bucket, int shard) {
+        return onGlobal(() -> jdbcTemplate.update(
+                "UPDATE user_shard_buckets SET state = ? WHERE bucket = ? AND shard = ? AND state = ?",
+                UserShardBucket.State.FROZEN.name(), bucket, shard, UserShardBucket.State.ACTIVE.name())) == 1;
+    }
+
+    /**
+     * Hands a frozen bucket to {@code shard} and lets writes resume there, in
+     * one update, so no copy of the map shows the bucket active on its old
+     * shard.
+     */
+    public boolean activate(int bucket, int shard) {
+        return onGlobal(() -> jdbcTemplate.update(
+                "UPDATE user_shard_buckets SET shard = ?, state = ? WHERE bucket = ? AND state = ?",
+                shard, UserShardBucket.State.ACTIVE.name(), bucket, UserShardBucket.State.FROZEN.name())) == 1;
+    }
+
+    public void unfreeze(int bucket) {
+        onGlobal(() -> jdbcTemplate.update("UPDATE user_shard_buckets SET state = ? WHERE bucket = ?",
+                UserShardBucket.State.ACTIVE.name(), bucket));
+    }
+
+    private <T> T onGlobal(Supplier<T> action) {
+        return UserShardRouting.onGlobal(() -> transactionTemplate.execute(status -> action.get()));
+    }
+}
@@ -0,0 +1,592 @@
+package com.gaurav.socialMedia.repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.gaurav.socialMedia.Entity.UserShardBucket;
+import com.gaurav.socialMedia.config.ShardingConfig;
+import com.gaurav.socialMedia.config.UserShardRouting;
+import com.gaurav.socialMedia.exception.TooManyRequestsException;
+import com.gaurav.socialMedia.exception.UserNotFoundException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Where each user lives when users are sharded, and how to run work there.
+ * <p>
+ * A user belongs to bucket {@code id mod user.sharding.buckets}, and the
+ * bucket map on shard 0 says which shard holds each bucket. Every instance
+ * keeps a copy of the map, refreshed every
+ * {@code user.sharding.map-refresh-interval-ms}; a copy older than
+ * {@code max-map-age} is reloaded before use, so a move is seen everywhere
+ * within that time.
+ * <p>
+ * Work on a shard runs in a transaction of its own that is opened after the
+ * shard is chosen. Writes to a frozen bucket, i.e. one being moved by
+ * {@code UserShardRebalancer}, wait for the move to finish. A move copies a
+ * bucket {@code user.sharding.freeze-wait} after freezing it, and a write
+ * may have checked a map up to {@code max-map-age} old, so write
+ * transactions time out after the difference (whole seconds). Reads that
+ * span every shard run in parallel on a small pool.
+ * <p>
+ * Without {@code user.sharding.shards} there is one shard, reads run in the
+ * caller's transaction and writes join or open an ordinary one, as before.
+ */
+@Component
+@Slf4j
+public class UserShards implements SmartInitializingSingleton {
+
+    /**
+     * The bucket of each {@code users} row, generated from its id on every
+     * shard and indexed together with the id.
+     */
+    public static final String BUCKET_COLUMN = "bucket";
+
+    private static final long FROZEN_POLL_MS = 50;
+
+    private final int shardCount;
+    private final int bucketCount;
+    private final long maxMapAgeNanos;
+    private final long freezeWaitNanos;
+    private final long maxWriteWaitNanos;
+    private final UserShardMapRepository mapRepository;
+    private final UserLookupRepository lookupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTemplate;
+    private final TransactionTemplate readTemplate;
+    private final ExecutorService scatterExecutor;
+    private final MeterRegistry meterRegistry;
+
+    // A lock, not synchronized: reloads query the map on request threads,
+    // and a virtual thread blocked inside synchronized pins its carrier
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile Topology topology;
+
+    @Autowired
+    public UserShards(@Value("${user.sharding.shards:}") String shardUrls,
+                      @Value("${user.sharding.buckets:1024}") int bucketCount,
+                      @Value("${user.sharding.max-map-age:3s}") Duration maxMapAge,
+                      @Value("${user.sharding.freeze-wait:5s}") Duration freezeWait,
+                      @Value("${user.sharding.max-write-wait:10s}") Duration maxWriteWait,
+                      @Value("${user.sharding.scatter-threads:8}") int scatterThreads,
+                      UserShardMapRepository mapRepository,
+                      UserLookupRepository lookupRepository,
+                      JdbcTemplate jdbcTemplate,
+                      PlatformTransactionManager transactionManager,
+                      MeterRegistry meterRegistry) {
+        this.shardCount = ShardingConfig.shardUrls(shardUrls).size() + 1;
+        this.bucketCount = bucketCount;
+        this.maxMapAgeNanos = maxMapAge.toNanos();
+        this.freezeWaitNanos = freezeWait.toNanos();
+        this.maxWriteWaitNanos = maxWriteWait.toNanos();
+        this.mapRepository = mapRepository;
+        this.lookupRepository = lookupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        if (isSharded()) {
+            // A transaction already open on the caller's thread holds a connection to some other shard
+            writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            long writeTimeout = freezeWait.minus(maxMapAge).toSeconds();
+            if (writeTimeout < 1) {
+                throw new IllegalStateException("user.sharding.freeze-wait (" + freezeWait
+                        + ") must be at least 1s longer than user.sharding.max-map-age (" + maxMapAge + ")");
+            }
+            writeTemplate.setTimeout((int) writeTimeout);
+            this.readTemplate = new TransactionTemplate(transactionManager);
+            readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            readTemplate.setReadOnly(true);
+
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.scatterExecutor = Executors.newFixedThreadPool(Math.max(1, scatterThreads), runnable -> {
+                Thread thread = new Thread(runnable, "user-shard-scatter-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.readTemplate = null;
+            this.scatterExecutor = null;
+        }
+    }
+
+    private UserShards() {
+        this.shardCount = 1;
+        this.bucketCount = 1;
+        this.maxMapAgeNanos = 0;
+        this.freezeWaitNanos = 0;
+        this.maxWriteWaitNanos = 0;
+        this.mapRepository = null;
+        this.lookupRepository = null;
+        this.jdbcTemplate = null;
+        this.writeTemplate = null;
+        this.readTemplate = null;
+        this.scatterExecutor = null;
+        this.meterRegistry = null;
+    }
+
+    /**
+     * A single shard without a database behind it, for wiring the read paths
+     * outside Spring (e.g. benchmarks). Writes are not supported.
+     */
+    public static UserShards unsharded() {
+        return new UserShards();
+    }
+
+    /**
+     * Seeds the bucket map on first start and checks it against the
+     * configuration. Runs after Hibernate has created the tables.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!isSharded()) {
+            return;
+        }
+        for (int shard = 0; shard < shardCount; shard++) {
+            addBucketColumn(shard);
+        }
+        if (mapRepository.findAll().isEmpty()) {
+            seed();
+        }
+        Topology loaded = reload(true);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int s = shard;
+            Gauge.builder("user.shards.buckets", this, shards -> shards.topology.bucketsOf(s).size())
+                    .tag("shard", Integer.toString(s))
+                    .description("Buckets of users held by the shard")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("user.shards.frozen", this, shards -> shards.topology.frozenBuckets().size())
+                .description("Buckets being moved to another shard")
+                .register(meterRegistry);
+        log.info("Users are sharded over {} databases in {} buckets, {} buckets frozen",
+                shardCount, bucketCount, loaded.frozenBuckets().size());
+    }
+
+    // Lets a bucket move read its users through an index instead of scanning
+    // the table for MOD(id, buckets). Not mapped in User, so Hibernate leaves
+    // it alone; another instance may add it at the same time.
+    private void addBucketColumn(int shard) {
+        UserShardRouting.onShard(shard, () -> {
+            if (hasBucketColumn()) {
+                return null;
+            }
+            try {
+                jdbcTemplate.execute("ALTER TABLE users ADD COLUMN " + BUCKET_COLUMN
+                        + " INT GENERATED ALWAYS AS (MOD(id, " + bucketCount + "))");
+                jdbcTemplate.execute("CREATE INDEX idx_users_bucket ON users (" + BUCKET_COLUMN + ", id)");
+                log.info("Added the bucket column to users on shard {}", shard);
+            } catch (DataAccessException e) {
+                if (!hasBucketColumn()) {
+                    throw e;
+                }
+            }
+            return null;
+        });
+    }
+
+    private boolean hasBucketColumn() {
+        try {
+            jdbcTemplate.queryForList("SELECT " + BUCKET_COLUMN + " FROM users WHERE 1 = 0");
+            return true;
+        } catch (BadSqlGrammarException e) {
+            return false;
+        }
+    }
+
+    // Users already in shard 0 stay there until the rebalancer moves them;
+    // an empty database starts with the buckets spread evenly.
+    private void seed() {
+        Long existing = UserShardRouting.onGlobal(
+                () -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class));
+        boolean hasUsers = existing != null && existing > 0;
+        if (hasUsers) {
+            int claimed = lookupRepository.backfill();
+            log.info("Claimed {} usernames and emails of the {} existing users", claimed, existing);
+        }
+        List<UserShardBucket> buckets = new ArrayList<>(bucketCount);
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            int shard = hasUsers ? UserShardRouting.GLOBAL_SHARD : bucket % shardCount;
+            buckets.add(new UserShardBucket(bucket, shard, UserShardBucket.State.ACTIVE));
+        }
+        try {
+            mapRepository.insertAll(buckets);
+            log.info("Seeded the user shard map with {} buckets", bucketCount);
+        } catch (DuplicateKeyException e) {
+            log.info("User shard map was seeded by another instance");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${user.sharding.map-refresh-interval-ms:1000}")
+    public void refresh() {
+        if (!isSharded()) {
+            return;
+        }
+        try {
+            reload(true);
+        } catch (Exception e) {
+            log.warn("Failed to refresh the user shard map", e);
+        }
+    }
+
+    /**
+     * Reloads the bucket map now, e.g. after a user was not found where the
+     * cached map said it was.
+     */
+    public void reloadMap() {
+        if (isSharded()) {
+            reload(true);
+        }
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public int count() {
+        return shardCount;
+    }
+
+    public int bucketCount() {
+        return bucketCount;
+    }
+
+    public Duration maxMapAge() {
+        return Duration.ofNanos(maxMapAgeNanos);
+    }
+
+    public Duration freezeWait() {
+        return Duration.ofNanos(freezeWaitNanos);
+    }
+
+    public int bucketOf(long id) {
+        return (int) Math.floorMod(id, (long) bucketCount);
+    }
+
+    public int shardOf(long id) {
+        return isSharded() ? current().owners[bucketOf(id)] : UserShardRouting.GLOBAL_SHARD;
+    }
+
+    public int shardOfBucket(int bucket) {
+        return isSharded() ? current().owners[bucket] : UserShardRouting.GLOBAL_SHARD;
+    }
+
+    public List<Integer> bucketsOf(int shard) {
+        if (!isSharded()) {
+            List<Integer> all = new ArrayList<>(bucketCount);
+            for (int bucket = 0; shard == UserShardRouting.GLOBAL_SHARD && bucket < bucketCount; bucket++) {
+                all.add(bucket);
+            }
+            return all;
+        }
+        return current().bucketsOf(shard);
+    }
+
+    public List<Integer> frozenBuckets() {
+        return isSharded() ? current().frozenBuckets() : List.of();
+    }
+
+    /**
+     * The ids whose bucket is being moved, i.e. those a write would wait for.
+     * Does not wait.
+     */
+    public Set<Long> frozen(Collection<Long> ids) {
+        if (!isSharded()) {
+            return Set.of();
+        }
+        Topology current = current();
+        Set<Long> frozen = new HashSet<>();
+        for (Long id : ids) {
+            if (current.frozen[bucketOf(id)]) {
+                frozen.add(id);
+            }
+        }
+        return frozen;
+    }
+
+    /**
+     * The ids by shard, in shard order, after waiting out any move of their
+     * buckets.
+     */
+    public TreeMap<Integer, List<Long>> groupForWrite(Collection<Long> ids) {
+        return isSharded() ? awaitWritable(ids).group(ids) : group(ids);
+    }
+
+    /**
+     * The ids by shard, in shard order.
+     */
+    public TreeMap<Integer, List<Long>> group(Collection<Long> ids) {
+        if (!isSharded()) {
+            TreeMap<Integer, List<Long>> single = new TreeMap<>();
+            single.put(UserShardRouting.GLOBAL_SHARD, new ArrayList<>(ids));
+            return single;
+        }
+        return current().group(ids);
+    }
+
+    /**
+     * Runs a read on one shard in a read-only transaction of its own.
+     */
+    public <T> T read(int shard, Supplier<T> action) {
+        if (!isSharded()) {
+            return action.get();
+        }
+        return UserShardRouting.onShard(shard, () -> readTemplate.execute(status -> action.get()));
+    }
+
+    /**
+     * Runs a read on every shard, in parallel, and returns the results in
+     * shard order.
+     */
+    public <T> List<T> readAll(IntFunction<T> action) {
+        List<Integer> all = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            all.add(shard);
+        }
+        return readEach(all, action);
+    }
+
+    /**
+     * Runs a read on each of the given shards, in parallel when there is more
+     * than one, and returns the results in the same order.
+     */
+    public <T> List<T> readEach(Collection<Integer> shards, IntFunction<T> action) {
+        if (shards.size() == 1) {
+            int shard = shards.iterator().next();
+            return Collections.singletonList(read(shard, () -> action.apply(shard)));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (int shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> read(shard, () -> action.apply(shard)), scatterExecutor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(f -> f.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Shard read failed", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Runs {@code action} once per shard on this thread, with the shard
+     * selected for any connection it opens, e.g. for streaming JDBC reads.
+     */
+    public void forEachShard(IntConsumer action) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            int s = shard;
+            UserShardRouting.onShard(s, () -> {
+                action.accept(s);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Runs a write on one shard in a transaction of its own, once none of
+     * {@code userIds} is in a bucket being moved.
+     *
+     * @throws TooManyRequestsException if a move does not finish within
+     *         {@code user.sharding.max-write-wait}, or moved the users away
+     */
+    public <T> T write(int shard, Collection<Long> userIds, Supplier<T> action) {
+        if (!isSharded()) {
+            return writeTemplate.execute(status -> action.get());
+        }
+        checkOwner(awaitWritable(userIds), shard, userIds);
+        return UserShardRouting.onShard(shard, () -> writeTemplate.execute(status -> {
+            // Again inside the transaction, whose timeout counts from before
+            // this check: a bucket frozen since is not copied until it ends
+            Topology current = current();
+            if (current.anyFrozen(userIds)) {
+                throw new TooManyRequestsException("Users are being moved to another shard, please retry shortly");
+            }
+            checkOwner(current, shard, userIds);
+            return action.get();
+        }));
+    }
+
+    private void checkOwner(Topology current, int shard, Collection<Long> userIds) {
+        for (Long id : userIds) {
+            if (current.owners[bucketOf(id)] != shard) {
+                throw new TooManyRequestsException("User " + id + " was just moved to another shard, please retry");
+            }
+        }
+    }
+
+    /**
+     * Runs a write on the shard of one user. If the action does not find the
+     * user because it was just moved, it is run again on the new shard.
+     */
+    public <T> T writeUser(Long id, Supplier<T> action) {
+        if (!isSharded()) {
+            return writeTemplate.execute(status -> action.get());
+        }
+        int shard = awaitWritable(List.of(id)).owners[bucketOf(id)];
+        try {
+            return write(shard, List.of(id), action);
+        } catch (UserNotFoundException e) {
+            int moved = reload(true).owners[bucketOf(id)];
+            if (moved == shard) {
+                throw e;
+            }
+            log.debug("User {} moved from shard {} to {}, retrying", id, shard, moved);
+            return write(moved, List.of(id), action);
+        }
+    }
+
+    private Topology awaitWritable(Collection<Long> ids) {
+        long deadline = System.nanoTime() + maxWriteWaitNanos;
+        Topology current = current();
+        while (current.anyFrozen(ids)) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new TooManyRequestsException("Users are being moved to another shard, please retry shortly");
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(FROZEN_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a shard move", e);
+            }
+            current = current();
+        }
+        return current;
+    }
+
+    // Fails rather than routing by a map older than max-map-age: the
+    // rebalancer only relies on every instance seeing a change within it.
+    private Topology current() {
+        Topology current = topology;
+        if (current == null || System.nanoTime() - current.loadedAt > maxMapAgeNanos) {
+            current = reload(false);
+        }
+        return current;
+    }
+
+    private Topology reload(boolean force) {
+        refreshLock.lock();
+        try {
+            Topology current = topology;
+            if (!force && current != null && System.nanoTime() - current.loadedAt <= maxMapAgeNanos) {
+                return current;
+            }
+            Topology fresh = new Topology(mapRepository.findAll(), bucketCount, shardCount, System.nanoTime());
+            topology = fresh;
+            return fresh;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdown();
+        }
+    }
+
+    /**
+     * One snapshot of the bucket map.
+     */
+    private final class Topology {
+
+        private final int[] owners;
+        private final boolean[] frozen;
+        private final long loadedAt;
+
+        private Topology(List<UserShardBucket> rows, int bucketCount, int shardCount, long loadedAt) {
+            if (rows.size() != bucketCount) {
+                throw new IllegalStateException("User shard map has " + rows.size() + " buckets, expected "
+                        + bucketCount + "; user.sharding.buckets cannot change once users are sharded");
+            }
+            this.owners = new int[bucketCount];
+            this.frozen = new boolean[bucketCount];
+            for (UserShardBucket row : rows) {
+                int bucket = row.getBucket();
+                int shard = row.getShard();
+                if (bucket < 0 || bucket >= bucketCount || shard < 0 || shard >= shardCount) {
+                    throw new IllegalStateException("User shard map assigns bucket " + bucket + " to shard " + shard
+                            + ", but only " + shardCount + " shards are configured");
+                }
+                owners[bucket] = shard;
+                frozen[bucket] = row.getState() == UserShardBucket.State.FROZEN;
+            }
+            this.loadedAt = loadedAt;
+        }
+
+        boolean anyFrozen(Collection<Long> ids) {
+            for (Long id : ids) {
+                if (frozen[bucketOf(id)]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        TreeMap<Integer, List<Long>> group(Collection<Long> ids) {
+            TreeMap<Integer, List<Long>> groups = new TreeMap<>();
+            for (Long id : ids) {
+                groups.computeIfAbsent(owners[bucketOf(id)], shard -> new ArrayList<>()).add(id);
+            }
+            return groups;
+        }
+
+        List<Integer> bucketsOf(int shard) {
+            List<Integer> buckets = new ArrayList<>();
+            for (int bucket = 0; bucket < owners.length; bucket++) {
+                if (owners[bucket] == shard) {
+                    buckets.add(bucket);
+                }
+            }
+            return buckets;
+        }
+
+        List<Integer> frozenBuckets() {
+            List<Integer> buckets = new ArrayList<>();
+            for (int bucket = 0; bucket < frozen.length; bucket++) {
+                if (frozen[bucket]) {
+                    buckets.add(bucket);
+                }
+            }
+            return buckets;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.gaurav.socialMedia.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.gaurav.socialMedia.Entity.CounterEventOffset;
+import com.gaurav.socialMedia.Entity.CounterType;
+import com.gaurav.socialMedia.Entity.UserCounterDelta;
+import com.gaurav.socialMedia.Entity.UserCounterEvent;
+import com.gaurav.socialMedia.Entity.UserOutboxEvent;
+import com.gaurav.socialMedia.repository.CounterEventOffsetRepository;
+import com.gaurav.socialMedia.repository.UserCounterRepository;
+import com.gaurav.socialMedia.repository.UserOutboxRepository;
+import com.gaurav.socialMedia.repository.UserShards;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies a polled batch of {@link UserCounterEvent}s to the user counters.
+ * Events are collapsed per user, and the highest offset seen per partition is
+ * stored in the same transaction, so a batch redelivered after a crash or
+ * rebalance is not counted twice.
+ * <p>
+ * With shards, every shard applies the batch to its own users in its own
+ * transaction and keeps its own offsets, so a redelivered batch is only
+ * applied on the shards that did not commit it. Deltas for users that moved
+ * while the batch was applied follow them to their new shard.
+ */
+@Service
+@Slf4j
+public class CounterEventIngestionService {
+
+    private final UserCounterRepository counterRepository;
+    private final CounterEventOffsetRepository offsetRepository;
+    private final UserOutboxRepository outboxRepository;
+    private final UserShards shards;
+
+    @Autowired
+    public CounterEventIngestionService(UserCounterRepository counterRepository,
+                                        CounterEventOffsetRepository offsetRepository,
+                                        UserOutboxRepository outboxRepository,
+                                        UserShards shards) {
+        this.counterRepository = counterRepository;
+        this.offsetRepository = offsetRepository;
+        this.outboxRepository = outboxRepository;
+        this.shards = shards;
+    }
+
+    public void ingest(List<ConsumerRecord<String, UserCounterEvent>> records) {
+        List<Map<Long, UserCounterDelta>> recordDeltas = new ArrayList<>(records.size());
+        Set<Long> userIds = new HashSet<>();
+        for (ConsumerRecord<String, UserCounterEvent> record : records) {
+            Map<Long, UserCounterDelta> deltas = new HashMap<>();
+            collect(record, deltas);
+            recordDeltas.add(deltas);
+            userIds.addAll(deltas.keySet());
+        }
+
+        Map<Integer, List<Long>> groups = shards.group(userIds);
+        Map<Integer, TreeMap<Long, UserCounterDelta>> missing = new HashMap<>();
+        for (int shard = 0; shard < shards.count(); shard++) {
+            Set<Long> shardUsers = new HashSet<>(groups.getOrDefault(shard, List.of()));
+            int s = shard;
+            TreeMap<Long, UserCounterDelta> notFound = shards.write(shard, shardUsers,
+                    () -> ingestOnShard(s, records, recordDeltas, shardUsers));
+            if (!notFound.isEmpty()) {
+                missing.put(shard, notFound);
+            }
+        }
+        if (!missing.isEmpty() && shards.isSharded()) {
+            applyMoved(missing);
+        }
+    }
+
+    // Runs in the shard's transaction; returns the deltas of users that were not there
+    private TreeMap<Long, UserCounterDelta> ingestOnShard(int shard,
+                                                          List<ConsumerRecord<String, UserCounterEvent>> records,
+                                                          List<Map<Long, UserCounterDelta>> recordDeltas,
+                                                          Set<Long> shardUsers) {
+        Set<String> partitionKeys = new HashSet<>();
+        for (ConsumerRecord<String, UserCounterEvent> record : records) {
+            partitionKeys.add(CounterEventOffset.keyOf(record.topic(), record.partition()));
+        }
+        Map<String, CounterEventOffset> offsets = new HashMap<>();
+        for (CounterEventOffset offset : offsetRepository.findAllById(partitionKeys)) {
+            offsets.put(offset.getPartitionKey(), offset);
+        }
+
+        TreeMap<Long, UserCounterDelta> deltas = new TreeMap<>();
+        int skipped = 0;
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, UserCounterEvent> record = records.get(i);
+            String key = CounterEventOffset.keyOf(record.topic(), record.partition());
+            CounterEventOffset offset = offsets.get(key);
+            if (offset != null && record.offset() <= offset.getLastOffset()) {
+                skipped++;
+                continue;
+            }
+            if (offset == null) {
+                offset = new CounterEventOffset(key, record.offset());
+                offsets.put(key, offset);
+            } else {
+                offset.setLastOffset(record.offset());
+            }
+            recordDeltas.get(i).forEach((userId, delta) -> {
+                if (shardUsers.contains(userId)) {
+                    deltas.merge(userId, delta, UserCounterDelta::plus);
+                }
+            });
+        }
+
+        if (skipped > 0) {
+            log.info("Skipped {} already applied counter events on shard {}", skipped, shard);
+        }
+        TreeMap<Long, UserCounterDelta> missing = new TreeMap<>();
+        if (!deltas.isEmpty()) {
+            int[] updated = counterRepository.applyDeltas(deltas);
+            outboxRepository.append(deltas.keySet(), UserOutboxEvent.Type.COUNTERS_CHANGED);
+            int i = 0;
+            for (Map.Entry<Long, UserCounterDelta> entry : deltas.entrySet()) {
+                if (updated[i++] == 0) {
+                    missing.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        offsetRepository.saveAll(offsets.values());
+        log.debug("Applied {} counter events for {} users", records.size() - skipped, deltas.size());
+        return missing;
+    }
+
+    // Outside the offset bookkeeping: a crash before this runs loses these deltas
+    private void applyMoved(Map<Integer, TreeMap<Long, UserCounterDelta>> missing) {
+        shards.reloadMap();
+        TreeMap<Long, UserCounterDelta> moved = new TreeMap<>();
+        missing.forEach((shard, deltas) -> deltas.forEach((userId, delta) -> {
+            // Still mapped to the same shard: the user does not exist
+            if (shards.shardOf(userId) != shard) {
+                moved.put(userId, delta);
+            }
+        }));
+        for (Map.Entry<Integer, List<Long>> group : shards.group(moved.keySet()).entrySet()) {
+            TreeMap<Long, UserCounterDelta> deltas = new TreeMap<>();
+            for (Long userId : group.getValue()) {
+                deltas.put(userId, moved.get(userId));
+            }
+            shards.write(group.getKey(), deltas.keySet(), () -> {
+                counterRepository.applyDeltas(deltas);
+                outboxRepository.append(deltas.keySet(), UserOutboxEvent.Type.COUNTERS_CHANGED);
+                return null;
+            });
+            log.info("Applied counter deltas of {} users that moved to shard {}", deltas.size(), group.getKey());
+        }
+    }
+
+    private void collect(ConsumerRecord<String, UserCounterEvent> record, Map<Long, UserCounterDelta> deltas) {
+        UserCounterEvent event = record.value();
+        // Records that failed deserialization arrive with a null value.
+        if (event == null || event.getType() == null) {
+            log.warn("Ignoring malformed counter event at {}-{}@{}", record.topic(), record.partition(), record.offset());
+            return;
+        }
+
+        switch (event.getType()) {
+            case FOLLOW:
+            case UNFOLLOW:
+                if (event.getFollowerId() == null || event.getFolloweeId() == null) {
+                    log.warn("Ignoring counter event without follower/followee: {}", event);
+                    return;
+                }
+                long delta = event.getType() == UserCounterEvent.Type.FOLLOW ? 1 : -1;
+                deltas.merge(event.getFolloweeId(), UserCounterDelta.of(CounterType.FOLLOWERS, delta), UserCounterDelta::plus);
+                deltas.merge(event.getFollowerId(), UserCounterDelta.of(CounterType.FOLLOWING, delta), UserCounterDelta::plus);
+                break;
+            case TWEET_CREATED:
+                if (event.getUserId() == null) {
+                    log.warn("Ignoring counter event without user: {}", event);
+                    return;
+                }
+                deltas.merge(event.getUserId(), UserCounterDelta.of(CounterType.TWEETS, 1), UserCounterDelta::plus);
+                break;
+            default:
+                log.warn("Ignoring unsupported counter event: {}", event);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.gaurav.socialMedia.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.gaurav.socialMedia.exception.TooManyRequestsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs BCrypt hashing on a dedicated pool sized to the CPU count.
+ * <p>
+ * Hashing is CPU bound, so running more hashes than cores in parallel only
+ * makes every signup slower. Extra requests wait in a bounded queue; once that
+ * is full new registrations are rejected with {@link TooManyRequestsException}
+ * instead of piling up on Tomcat threads. A request whose caller has already
+ * timed out is skipped when it reaches a thread: BCrypt cannot be interrupted,
+ * so stale requests must not get that far.
+ * <p>
+ * The pool deliberately stays on platform threads when virtual threads are
+ * enabled: hashing never blocks, so virtual threads would only add scheduling
+ * overhead while still occupying a carrier.
+ * <p>
+ * Bulk imports hash on a separate, smaller pool so a large file cannot take
+ * every core away from interactive signups.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final ExecutorService bulkExecutor;
+    private final long timeoutMs;
+
+    private final Timer hashTimer;
+    private final Timer waitTimer;
+    private final Counter rejected;
+    private final Counter expired;
+
+    @Autowired
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${user.password-hashing.threads:0}") int threads,
+                                  @Value("${user.password-hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${user.password-hashing.timeout-ms:10000}") long timeoutMs,
+                                  @Value("${user.password-hashing.bulk-threads:0}") int bulkThreads) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMs = timeoutMs;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        int bulkPoolSize = bulkThreads > 0 ? bulkThreads : Math.max(1, poolSize / 2);
+        AtomicInteger bulkThreadNumber = new AtomicInteger();
+        this.bulkExecutor = Executors.newFixedThreadPool(bulkPoolSize, runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-bulk-" + bulkThreadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.hashTimer = Timer.builder("user.password.hash.latency")
+                .description("Time spent computing a password hash")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("user.password.hash.wait")
+                .description("Time a hash request waited in the queue")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("user.password.hash.rejected")
+                .description("Hash requests rejected because the queue was full")
+                .register(meterRegistry);
+        this.expired = Counter.builder("user.password.hash.expired")
+                .description("Hash requests skipped because the caller had timed out")
+                .register(meterRegistry);
+        Gauge.builder("user.password.hash.queue", executor, e -> e.getQueue().size())
+                .description("Hash requests waiting for a thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hashes the password on the hashing pool and waits for the result.
+     *
+     * @throws TooManyRequestsException if the queue is full or the hash does
+     *         not complete in time
+     */
+    public String hash(String rawPassword) {
+        long queuedAt = System.nanoTime();
+        CompletableFuture<String> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> {
+                long waitedNanos = System.nanoTime() - queuedAt;
+                waitTimer.record(waitedNanos, TimeUnit.NANOSECONDS);
+                if (waitedNanos >= TimeUnit.MILLISECONDS.toNanos(timeoutMs)) {
+                    expired.increment();
+                    throw new CancellationException("Caller stopped waiting for the hash");
+                }
+                return hashTimer.record(() -> passwordEncoder.encode(rawPassword));
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Password hashing queue is full, rejecting registration");
+            throw new TooManyRequestsException("Too many registrations in progress, please retry shortly");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Drops the request if it is still queued; a running hash finishes
+            future.cancel(false);
+            throw new TooManyRequestsException("Password hashing timed out, please retry shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to hash password", e.getCause());
+        }
+    }
+
+    /**
+     * Hashes a batch of passwords in parallel on the bulk pool, in order.
+     * Callers submit one bounded batch at a time, so the pool's queue stays
+     * bounded too.
+     */
+    public List<String> hashAll(List<String> rawPasswords) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(rawPasswords.size());
+        for (String rawPassword : rawPasswords) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> hashTimer.record(() -> passwordEncoder.encode(rawPassword)), bulkExecutor));
+        }
+        List<String> hashes = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<String> future : futures) {
+                hashes.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(false));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(false));
+            throw new IllegalStateException("Failed to hash password", e.getCause());
+        }
+        return hashes;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        bulkExecutor.shutdown();
+    }
+}
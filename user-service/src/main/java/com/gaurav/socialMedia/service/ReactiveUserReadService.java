@@ -0,0 +1,174 @@
+package com.gaurav.socialMedia.service;
+
+import static com.gaurav.socialMedia.service.UserProfileCache.USERNAME_INDEX_PREFIX;
+import static com.gaurav.socialMedia.service.UserProfileCache.indexKey;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+import com.gaurav.socialMedia.config.DataSourceRouting;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking profile reads over the same cache layout as
+ * {@link UserProfileCache}.
+ * <p>
+ * The near cache and Redis (through Lettuce's reactive API) are read without
+ * holding a thread. Only cache misses and early refreshes touch JDBC; they run
+ * on a small bounded scheduler sized like the connection pool, so a burst of
+ * misses queues there instead of tying up request threads. Loads go through
+ * the same {@link UserLoadCoalescer} and {@link UserProfileCache#putAll} as
+ * the blocking reads, so both share one query per id and write the same
+ * entries, and like them load on the primary so replica lag never reaches
+ * the cache.
+ */
+@Service
+@Slf4j
+public class ReactiveUserReadService {
+
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+    private final ShardedUserRepository userRepository;
+    private final UserNearCache nearCache;
+    private final UserProfileCache profileCache;
+    private final UserNegativeCache negativeCache;
+    private final UserLoadCoalescer loadCoalescer;
+    private final ObjectMapper objectMapper;
+    private final Scheduler jdbcScheduler;
+
+    @Autowired
+    public ReactiveUserReadService(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate,
+                                   ShardedUserRepository userRepository,
+                                   UserNearCache nearCache,
+                                   UserProfileCache profileCache,
+                                   UserNegativeCache negativeCache,
+                                   UserLoadCoalescer loadCoalescer,
+                                   ObjectMapper objectMapper,
+                                   @Value("${user.reactive.jdbc-threads:10}") int jdbcThreads,
+                                   @Value("${user.reactive.jdbc-queue:10000}") int jdbcQueue) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.userRepository = userRepository;
+        this.nearCache = nearCache;
+        this.profileCache = profileCache;
+        this.negativeCache = negativeCache;
+        this.loadCoalescer = loadCoalescer;
+        this.objectMapper = objectMapper;
+        this.jdbcScheduler = Schedulers.newBoundedElastic(jdbcThreads, jdbcQueue, "user-jdbc-read");
+    }
+
+    public Mono<UserResponseDto> getUserById(Long id) {
+        UserResponseDto nearCached = nearCache.get(id);
+        if (nearCached != null) {
+            return Mono.just(nearCached);
+        }
+        if (negativeCache.isMissingId(id)) {
+            return Mono.empty();
+        }
+
+        return reactiveRedisTemplate.opsForHash().entries(UserProfileCache.key(id))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .onErrorResume(e -> {
+                    log.warn("Failed to read user {} from cache", id, e);
+                    return Mono.just(Map.of());
+                })
+                .flatMap(hash -> {
+                    UserResponseDto cached = decode(id, hash);
+                    if (cached == null) {
+                        return load(id);
+                    }
+                    if (profileCache.isRefreshDue(hash)) {
+                        log.debug("Refreshing cached user {} ahead of expiry", id);
+                        return load(id).onErrorResume(e -> {
+                            log.warn("Early refresh failed for user {}, serving cached copy", id, e);
+                            return Mono.just(cached);
+                        });
+                    }
+                    nearCache.put(id, cached);
+                    return Mono.just(cached);
+                });
+    }
+
+    public Mono<UserResponseDto> getUserByUsername(String username) {
+        if (negativeCache.isMissingUsername(username)) {
+            return Mono.empty();
+        }
+        long generation = negativeCache.generation();
+        return reactiveRedisTemplate.opsForValue().get(indexKey(USERNAME_INDEX_PREFIX, username))
+                .onErrorResume(e -> {
+                    log.warn("Failed to read username index for {}", username, e);
+                    return Mono.empty();
+                })
+                .filter(Number.class::isInstance)
+                .flatMap(id -> getUserById(((Number) id).longValue()))
+                .filter(user -> username.equalsIgnoreCase(user.getUsername()))
+                .switchIfEmpty(Mono.defer(() -> Mono.fromCallable(() -> loadByUsername(username, generation))
+                        .subscribeOn(jdbcScheduler)
+                        .flatMap(Mono::justOrEmpty)));
+    }
+
+    private UserResponseDto decode(Long id, Map<Object, Object> hash) {
+        try {
+            return UserProfileCache.fromHash(hash, objectMapper);
+        } catch (RuntimeException e) {
+            log.warn("Failed to read user {} from cache", id, e);
+            return null;
+        }
+    }
+
+    private Mono<UserResponseDto> load(Long id) {
+        return Mono.fromCallable(() -> loadCoalescer.load(id, () -> loadById(id)))
+                .subscribeOn(jdbcScheduler)
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    private Optional<UserResponseDto> loadById(Long id) {
+        long generation = negativeCache.generation();
+        long start = System.currentTimeMillis();
+        Optional<User> user = DataSourceRouting.onPrimary(() -> userRepository.findById(id));
+        if (user.isEmpty()) {
+            negativeCache.putMissingId(id, generation);
+            return Optional.empty();
+        }
+        return Optional.of(cache(user.get(), System.currentTimeMillis() - start));
+    }
+
+    private Optional<UserResponseDto> loadByUsername(String username, long generation) {
+        long start = System.currentTimeMillis();
+        Optional<User> user = DataSourceRouting.onPrimary(() -> userRepository.findByUsername(username));
+        if (user.isEmpty()) {
+            negativeCache.putMissingUsername(username, generation);
+            return Optional.empty();
+        }
+        return Optional.of(cache(user.get(), System.currentTimeMillis() - start));
+    }
+
+    private UserResponseDto cache(User user, long loadMillis) {
+        UserResponseDto dto = new UserResponseDto(user);
+        try {
+            profileCache.putAll(List.of(user), loadMillis);
+        } catch (Exception e) {
+            log.warn("Failed to cache user with ID: {}", user.getId(), e);
+        }
+        nearCache.put(user.getId(), dto);
+        return dto;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jdbcScheduler.dispose();
+    }
+}
@@ -0,0 +1,564 @@
+package com.gaurav.socialMedia.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserSuggestionDto;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+import com.gaurav.socialMedia.repository.StreamingQueries;
+import com.gaurav.socialMedia.repository.UserShards;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Prefix index for "@mention" autocomplete, ranked by follower count.
+ * <p>
+ * Every active user is indexed under their username and each word of their
+ * full name in a sorted skip list. Short prefixes (up to
+ * {@value #PRECOMPUTED_DEPTH} characters) match so many users that their
+ * top-K is precomputed, with a few spare candidates, and kept up to date on
+ * every change. Only when removals use up the spares is the prefix refilled
+ * from the skip list, outside the write lock. Longer prefixes select a range
+ * of the skip list and rank it on the fly. When that range holds more than
+ * {@code user.autocomplete.max-range-scan} terms, it is scanned in full once
+ * and the prefix gets a precomputed top-K like the short ones, so a common
+ * prefix such as "john" still returns its most-followed users. Reads never
+ * take a lock.
+ * <p>
+ * Follower counts follow the outbox relay: {@link #updateFollowers} applies
+ * the counters of relayed users and broadcasts them on
+ * {@value #FOLLOWERS_CHANNEL}, tagged with the row version so a late message
+ * never replaces a newer count, and with this instance's id so it skips its
+ * own. Register/update/delete are applied once their transaction commits;
+ * changes from other instances are passed on by {@link UserSearchIndex},
+ * which reads each user once for both indexes. The periodic rebuild catches
+ * anything a lost message missed.
+ */
+@Component
+@Slf4j
+public class UserAutocompleteIndex implements MessageListener {
+
+    public static final String FOLLOWERS_CHANNEL = "autocomplete:user:followers";
+
+    private static final int PRECOMPUTED_DEPTH = 3;
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong((Entry e) -> -e.followers)
+            .thenComparing(e -> e.username)
+            .thenComparingLong(e -> e.id);
+
+    private final DataSource dataSource;
+    private final UserShards shards;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final int topK;
+    private final int capacity;
+    private final int maxRangeScan;
+
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot;
+    // Changes made while a rebuild is streaming, replayed onto the new snapshot
+    private List<Consumer<Snapshot>> pendingDuringRebuild;
+
+    // Tags this instance's follower messages
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Autowired
+    public UserAutocompleteIndex(DataSource dataSource,
+                                 ShardedUserRepository userRepository,
+                                 StringRedisTemplate stringRedisTemplate,
+                                 @Value("${user.autocomplete.top-k:10}") int topK,
+                                 @Value("${user.autocomplete.spare-candidates:20}") int spareCandidates,
+                                 @Value("${user.autocomplete.max-range-scan:5000}") int maxRangeScan) {
+        this.dataSource = dataSource;
+        this.shards = userRepository.shards();
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.topK = topK;
+        this.capacity = topK + Math.max(0, spareCandidates);
+        this.maxRangeScan = maxRangeScan;
+        this.snapshot = new Snapshot();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${user.autocomplete.refresh-interval-ms:600000}",
+               fixedDelayString = "${user.autocomplete.refresh-interval-ms:600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        synchronized (writeLock) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+        try {
+            Snapshot fresh = new Snapshot();
+            StreamingQueries.forEachRow(dataSource, shards,
+                    "SELECT id, username, full_name, followers_count, version FROM users WHERE is_active = true",
+                    (shard, rs) -> {
+                        if (shards.shardOf(rs.getLong(1)) == shard) {
+                            fresh.put(new Entry(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getLong(4),
+                                    rs.getLong(5)), topK, capacity);
+                        }
+                    });
+
+            Set<String> refills;
+            synchronized (writeLock) {
+                snapshot = fresh;
+                for (Consumer<Snapshot> change : pendingDuringRebuild) {
+                    change.accept(fresh);
+                }
+                pendingDuringRebuild = null;
+                refills = fresh.drainRefills();
+            }
+            refill(fresh, refills);
+            log.info("Loaded {} users into autocomplete index in {} ms", fresh.byId.size(),
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            synchronized (writeLock) {
+                pendingDuringRebuild = null;
+            }
+            log.error("Failed to rebuild autocomplete index", e);
+        }
+    }
+
+    public List<UserSuggestionDto> suggest(String prefix, int limit) {
+        String p = normalize(prefix);
+        int max = Math.max(1, Math.min(limit, topK));
+        if (p.isEmpty()) {
+            return List.of();
+        }
+
+        Snapshot current = snapshot;
+        List<Entry> ranked;
+        Top top = current.top.get(p);
+        if (top != null || p.length() <= PRECOMPUTED_DEPTH) {
+            ranked = top == null ? List.of() : List.of(top.entries);
+        } else {
+            ranked = current.rankRange(p, max, maxRangeScan);
+            if (ranked == null) {
+                // Too many terms to rank per lookup; keep a top-K for it from now on
+                rescan(current, p, true);
+                top = current.top.get(p);
+                ranked = top != null ? List.of(top.entries) : current.rankRange(p, max, Integer.MAX_VALUE);
+            }
+        }
+
+        List<UserSuggestionDto> suggestions = new ArrayList<>(Math.min(max, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < max; i++) {
+            Entry e = ranked.get(i);
+            suggestions.add(new UserSuggestionDto(e.id, e.username, e.fullName, (int) e.followers));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Reindexes (or removes, if inactive) a user once the surrounding
+     * transaction commits.
+     */
+    public void update(User user) {
+        UserSearchIndex.afterCommit(() -> {
+            if (Boolean.FALSE.equals(user.getIsActive())) {
+                remove(user.getId());
+            } else {
+                Entry entry = new Entry(user.getId(), user.getUsername(), user.getFullName(),
+                        followersOf(user), user.getVersion());
+                apply(s -> s.update(entry, topK, capacity));
+            }
+        });
+    }
+
+    /**
+     * Re-ranks users whose counters changed, here and on the other
+     * instances. Users not in the index, and counts older than the one
+     * held, are ignored.
+     */
+    public void updateFollowers(Collection<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        StringBuilder payload = new StringBuilder();
+        for (User user : users) {
+            if (payload.length() > 0) {
+                payload.append(',');
+            }
+            payload.append(user.getId()).append(':').append(user.getVersion()).append(':').append(followersOf(user));
+        }
+        applyFollowers(payload.toString());
+        try {
+            stringRedisTemplate.convertAndSend(FOLLOWERS_CHANNEL, instanceId + ":" + payload);
+        } catch (Exception e) {
+            log.warn("Failed to publish follower counts of {} users", users.size(), e);
+        }
+    }
+
+    // "id:version:followers", comma separated
+    private void applyFollowers(String payload) {
+        List<long[]> changes = new ArrayList<>();
+        for (String change : payload.split(",")) {
+            String[] parts = change.trim().split(":");
+            changes.add(new long[] {Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2])});
+        }
+        apply(s -> {
+            for (long[] change : changes) {
+                s.setFollowers(change[0], change[1], change[2], topK, capacity);
+            }
+        });
+    }
+
+    private static long followersOf(User user) {
+        return user.getFollowersCount() == null ? 0 : user.getFollowersCount();
+    }
+
+    public void remove(Long id) {
+        apply(s -> s.remove(id, topK));
+    }
+
+    private void apply(Consumer<Snapshot> change) {
+        Snapshot target;
+        Set<String> refills;
+        synchronized (writeLock) {
+            target = snapshot;
+            change.accept(target);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+            refills = target.drainRefills();
+        }
+        refill(target, refills);
+    }
+
+    /**
+     * Refills prefixes whose candidates ran short. The skip list is scanned
+     * without the write lock; users changed meanwhile are merged back in
+     * under it.
+     */
+    private void refill(Snapshot target, Set<String> prefixes) {
+        for (String prefix : prefixes) {
+            rescan(target, prefix, false);
+        }
+    }
+
+    /**
+     * Ranks all of a prefix's terms and stores its candidates, either
+     * refilling a prefix that ran short or giving a long prefix its first
+     * top-K.
+     */
+    private void rescan(Snapshot target, String prefix, boolean create) {
+        synchronized (writeLock) {
+            boolean needed = create ? !target.top.containsKey(prefix) : target.needsRefill(prefix, topK);
+            if (snapshot != target || !needed) {
+                return;
+            }
+            target.startRefill();
+        }
+        try {
+            List<Entry> scanned = target.rankRange(prefix, capacity + 1, Integer.MAX_VALUE);
+            synchronized (writeLock) {
+                target.refill(prefix, scanned, capacity);
+            }
+        } finally {
+            synchronized (writeLock) {
+                target.endRefill();
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        // "instanceId:changes"; this instance applied its own counts already
+        int separator = payload.indexOf(':');
+        if (payload.substring(0, Math.max(separator, 0)).equals(instanceId)) {
+            return;
+        }
+        try {
+            applyFollowers(payload.substring(separator + 1));
+        } catch (Exception e) {
+            log.warn("Failed to apply follower counts: {}", payload, e);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+
+        private final long id;
+        private final String username;
+        private final String fullName;
+        private final long followers;
+        // Row version the followers were read at
+        private final long version;
+
+        private Entry(long id, String username, String fullName, long followers, long version) {
+            this.id = id;
+            this.username = username;
+            this.fullName = fullName;
+            this.followers = followers;
+            this.version = version;
+        }
+
+        private Set<String> terms() {
+            Set<String> terms = new LinkedHashSet<>();
+            terms.add(normalize(username));
+            for (String word : normalize(fullName).split("\\s+")) {
+                if (!word.isEmpty()) {
+                    terms.add(word);
+                }
+            }
+            return terms;
+        }
+
+        private boolean matches(String prefix) {
+            for (String term : terms()) {
+                if (term.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Best users for a prefix, in ranking order. When {@code truncated},
+     * users ranked below the last entry exist but are not held here.
+     */
+    private static final class Top {
+
+        private final Entry[] entries;
+        private final boolean truncated;
+
+        private Top(Entry[] entries, boolean truncated) {
+            this.entries = entries;
+            this.truncated = truncated;
+        }
+    }
+
+    /**
+     * One generation of the index. Mutated only under {@code writeLock}.
+     */
+    private static final class Snapshot {
+
+        private final ConcurrentSkipListMap<String, Entry> terms = new ConcurrentSkipListMap<>();
+        private final Map<String, Top> top = new ConcurrentHashMap<>();
+        private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+        // Prefixes that ran out of spare candidates
+        private Set<String> refills = new HashSet<>();
+        // Users changed while a refill is scanning, so the scan cannot miss them
+        private final Set<Long> touched = new HashSet<>();
+        private int refilling;
+
+        private void put(Entry entry, int k, int capacity) {
+            remove(entry.id, k);
+            byId.put(entry.id, entry);
+            for (String term : entry.terms()) {
+                terms.put(term + KEY_SEPARATOR + entry.id, entry);
+                for (int len = 1; len <= term.length(); len++) {
+                    String prefix = term.substring(0, len);
+                    // Longer prefixes only have a top-K once a lookup found them common
+                    if (len <= PRECOMPUTED_DEPTH || top.containsKey(prefix)) {
+                        insert(prefix, entry, capacity);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Puts a profile change, keeping the held follower count if it was
+         * read at a newer version than the change.
+         */
+        private void update(Entry entry, int k, int capacity) {
+            Entry current = byId.get(entry.id);
+            if (current != null && current.version > entry.version) {
+                entry = new Entry(entry.id, entry.username, entry.fullName, current.followers, current.version);
+            }
+            put(entry, k, capacity);
+        }
+
+        private void setFollowers(long id, long version, long followers, int k, int capacity) {
+            Entry current = byId.get(id);
+            if (current == null || current.version >= version) {
+                return;
+            }
+            put(new Entry(id, current.username, current.fullName, followers, version), k, capacity);
+        }
+
+        private void insert(String prefix, Entry entry, int capacity) {
+            Top current = top.get(prefix);
+            if (current == null) {
+                top.put(prefix, new Top(new Entry[] {entry}, false));
+                return;
+            }
+            if (contains(current.entries, entry.id)) {
+                return;
+            }
+            if (current.truncated && current.entries.length > 0
+                    && RANKING.compare(entry, current.entries[current.entries.length - 1]) > 0) {
+                // Ranks among the users not held; a refill finds it if needed
+                return;
+            }
+            List<Entry> merged = new ArrayList<>(current.entries.length + 1);
+            merged.addAll(List.of(current.entries));
+            merged.add(entry);
+            merged.sort(RANKING);
+            store(prefix, merged, current.truncated, capacity);
+        }
+
+        private void remove(long id, int k) {
+            Entry previous = byId.remove(id);
+            if (refilling > 0) {
+                touched.add(id);
+            }
+            if (previous == null) {
+                return;
+            }
+            for (String term : previous.terms()) {
+                terms.remove(term + KEY_SEPARATOR + id);
+                for (int len = 1; len <= term.length(); len++) {
+                    String prefix = term.substring(0, len);
+                    Top current = top.get(prefix);
+                    if (current == null || !contains(current.entries, id)) {
+                        continue;
+                    }
+                    List<Entry> remaining = new ArrayList<>(current.entries.length);
+                    for (Entry e : current.entries) {
+                        if (e.id != id) {
+                            remaining.add(e);
+                        }
+                    }
+                    if (remaining.isEmpty() && !current.truncated) {
+                        top.remove(prefix);
+                    } else {
+                        top.put(prefix, new Top(remaining.toArray(new Entry[0]), current.truncated));
+                    }
+                    if (current.truncated && remaining.size() < k) {
+                        refills.add(prefix);
+                    }
+                }
+            }
+        }
+
+        private boolean needsRefill(String prefix, int k) {
+            Top current = top.get(prefix);
+            return current != null && current.truncated && current.entries.length < k;
+        }
+
+        private Set<String> drainRefills() {
+            Set<String> drained = refills;
+            refills = new HashSet<>();
+            return drained;
+        }
+
+        private void startRefill() {
+            refilling++;
+        }
+
+        private void endRefill() {
+            if (--refilling == 0) {
+                touched.clear();
+            }
+        }
+
+        /**
+         * Replaces a prefix's candidates with a scan of the skip list, keeping
+         * users that were changed while it ran.
+         */
+        private void refill(String prefix, List<Entry> scanned, int capacity) {
+            Map<Long, Entry> candidates = new HashMap<>();
+            for (Entry e : scanned) {
+                if (byId.get(e.id) == e) {
+                    candidates.put(e.id, e);
+                }
+            }
+            Top current = top.get(prefix);
+            if (current != null) {
+                for (Entry e : current.entries) {
+                    candidates.put(e.id, e);
+                }
+            }
+            for (Long id : touched) {
+                Entry e = byId.get(id);
+                if (e != null && e.matches(prefix)) {
+                    candidates.put(id, e);
+                }
+            }
+            List<Entry> ranked = new ArrayList<>(candidates.values());
+            ranked.sort(RANKING);
+            if (ranked.isEmpty()) {
+                top.remove(prefix);
+            } else {
+                store(prefix, ranked, scanned.size() > capacity, capacity);
+            }
+        }
+
+        private void store(String prefix, List<Entry> ranked, boolean truncated, int capacity) {
+            if (ranked.size() > capacity) {
+                ranked = ranked.subList(0, capacity);
+                truncated = true;
+            }
+            top.put(prefix, new Top(ranked.toArray(new Entry[0]), truncated));
+        }
+
+        /**
+         * Best {@code k} distinct users with a term starting with the prefix,
+         * or {@code null} if there are more than {@code maxScan} such terms.
+         */
+        private List<Entry> rankRange(String prefix, int k, int maxScan) {
+            NavigableMap<String, Entry> range = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+            // Min-heap of the best k distinct users seen so far
+            PriorityQueue<Entry> best = new PriorityQueue<>(k + 1, RANKING.reversed());
+            Set<Long> seen = new HashSet<>();
+            int scanned = 0;
+            for (Entry e : range.values()) {
+                if (++scanned > maxScan) {
+                    return null;
+                }
+                if (!seen.add(e.id)) {
+                    continue;
+                }
+                best.offer(e);
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+            List<Entry> ranked = new ArrayList<>(best);
+            ranked.sort(RANKING);
+            return ranked;
+        }
+
+        private static boolean contains(Entry[] entries, long id) {
+            for (Entry e : entries) {
+                if (e.id == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
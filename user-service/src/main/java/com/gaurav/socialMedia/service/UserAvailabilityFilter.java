@@ -0,0 +1,164 @@
+package com.gaurav.socialMedia.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.gaurav.socialMedia.repository.StreamingQueries;
+import com.gaurav.socialMedia.repository.UserShards;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bloom filters of taken usernames and emails used to answer availability
+ * checks without a database query.
+ * <p>
+ * The filters are filled at startup by streaming the {@code users} table of
+ * every shard.
+ * Until that finishes {@link #isUsernameDefinitelyFree} and
+ * {@link #isEmailDefinitelyFree} always return {@code false}, so callers fall
+ * back to the repository. New registrations are added locally and broadcast on
+ * {@value #ADD_CHANNEL} so other instances never answer "free" for a taken name.
+ * <p>
+ * Pub/sub is fire-and-forget, so a missed message would leave a taken name
+ * "free" here. The filters are therefore rebuilt every
+ * {@code user.availability.rebuild-interval-ms}, which also clears names
+ * that were released. Registrations still rely on the unique indexes and
+ * map a duplicate key back to "already exists".
+ */
+@Component
+@Slf4j
+public class UserAvailabilityFilter implements MessageListener {
+
+    public static final String ADD_CHANNEL = "bloom:user:add";
+
+    private final DataSource dataSource;
+    private final UserShards shards;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+
+    private final Object writeLock = new Object();
+    private volatile Filters filters;
+    // Names added while a rebuild is streaming, replayed onto the new filters
+    private List<String[]> pendingDuringRebuild;
+    private volatile boolean ready;
+
+    @Autowired
+    public UserAvailabilityFilter(DataSource dataSource,
+                                  UserShards shards,
+                                  StringRedisTemplate stringRedisTemplate,
+                                  @Value("${user.availability.expected-users:1000000}") long expectedUsers,
+                                  @Value("${user.availability.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.dataSource = dataSource;
+        this.shards = shards;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filters = new Filters(expectedUsers, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${user.availability.rebuild-interval-ms:3600000}",
+               fixedDelayString = "${user.availability.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        synchronized (writeLock) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+        try {
+            Filters fresh = new Filters(expectedUsers, falsePositiveRate);
+            long[] rows = {0};
+            // Stray copies from a failed bucket move only add false positives
+            StreamingQueries.forEachRow(dataSource, shards, "SELECT username, email FROM users", (shard, rs) -> {
+                fresh.put(normalize(rs.getString(1)), normalize(rs.getString(2)));
+                rows[0]++;
+            });
+            synchronized (writeLock) {
+                for (String[] added : pendingDuringRebuild) {
+                    fresh.put(added[0], added[1]);
+                }
+                pendingDuringRebuild = null;
+                filters = fresh;
+            }
+            ready = true;
+            log.info("Loaded {} users into availability filter in {} ms", rows[0], System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            synchronized (writeLock) {
+                pendingDuringRebuild = null;
+            }
+            log.error(ready ? "Failed to rebuild availability filter, keeping the previous one"
+                    : "Failed to build availability filter, checks will use the database", e);
+        }
+    }
+
+    public boolean isUsernameDefinitelyFree(String username) {
+        return ready && username != null && !filters.usernames.mightContain(normalize(username));
+    }
+
+    public boolean isEmailDefinitelyFree(String email) {
+        return ready && email != null && !filters.emails.mightContain(normalize(email));
+    }
+
+    /**
+     * Records a newly registered user here and on every other instance.
+     */
+    public void add(String username, String email) {
+        addLocal(normalize(username), normalize(email));
+        try {
+            stringRedisTemplate.convertAndSend(ADD_CHANNEL, normalize(username) + "\n" + normalize(email));
+        } catch (Exception e) {
+            log.warn("Failed to publish availability filter update for {}", username, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 2);
+        if (parts.length == 2) {
+            addLocal(parts[0], parts[1]);
+        }
+    }
+
+    private void addLocal(String username, String email) {
+        synchronized (writeLock) {
+            filters.put(username, email);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(new String[] {username, email});
+            }
+        }
+    }
+
+    // Same case-insensitive matching as the MySQL unique indexes.
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Filters {
+        final StringBloomFilter usernames;
+        final StringBloomFilter emails;
+
+        Filters(long expectedUsers, double falsePositiveRate) {
+            this.usernames = new StringBloomFilter(expectedUsers, falsePositiveRate);
+            this.emails = new StringBloomFilter(expectedUsers, falsePositiveRate);
+        }
+
+        void put(String username, String email) {
+            usernames.put(username);
+            emails.put(email);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.gaurav.socialMedia.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.stereotype.Component;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserOutboxEvent;
+import com.gaurav.socialMedia.config.UserShardRouting;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+import com.gaurav.socialMedia.repository.UserOutboxRepository;
+import com.gaurav.socialMedia.repository.UserShards;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Inserts many new users with JDBC batching.
+ * <p>
+ * Users are persisted in chunks of the Hibernate batch size, each chunk in
+ * its own transaction followed by a flush and clear. With pooled ids and
+ * {@code rewriteBatchedStatements} a chunk becomes one multi-row INSERT, and
+ * the persistence context never holds more than one chunk. An outbox event is
+ * recorded per user so the caches pick them up after commit.
+ * <p>
+ * When users are sharded, ids are drawn before the transactions start,
+ * since they decide the shard, and the usernames and emails are claimed on
+ * shard 0. Each shard then gets its own transaction.
+ */
+@Component
+@Slf4j
+public class UserBulkWriter {
+
+    private static final HibernateJpaDialect JPA_DIALECT = new HibernateJpaDialect();
+
+    private final EntityManager entityManager;
+    private final UserShards shards;
+    private final ShardedUserRepository userRepository;
+    private final UserOutboxRepository outboxRepository;
+    private final int chunkSize;
+
+    @Autowired
+    public UserBulkWriter(EntityManager entityManager,
+                          UserShards shards,
+                          ShardedUserRepository userRepository,
+                          UserOutboxRepository outboxRepository,
+                          @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.shards = shards;
+        this.userRepository = userRepository;
+        this.outboxRepository = outboxRepository;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Inserts the users and returns them with their ids assigned. A failing
+     * chunk is rolled back and rethrown; earlier chunks stay committed.
+     */
+    public List<User> insertAll(List<User> users) {
+        List<User> saved = new ArrayList<>(users.size());
+        for (int from = 0; from < users.size(); from += chunkSize) {
+            List<User> chunk = users.subList(from, Math.min(from + chunkSize, users.size()));
+            insertChunk(chunk, () -> null);
+            saved.addAll(chunk);
+        }
+        log.debug("Inserted {} users in chunks of {}", saved.size(), chunkSize);
+        return saved;
+    }
+
+    /**
+     * Inserts one new user, claiming its username and email first when users
+     * are sharded, and returns it with its id assigned.
+     */
+    public User insert(User user) {
+        insertChunk(List.of(user), () -> null);
+        return user;
+    }
+
+    /**
+     * Inserts the users in one transaction and runs {@code inTransaction}
+     * (e.g. a checkpoint update) before it commits. Hibernate still sends
+     * the inserts in JDBC batches of the configured size.
+     */
+    public <T> T insertChunk(List<User> users, Supplier<T> inTransaction) {
+        return insertChunk(users, inTransaction, new ArrayList<>());
+    }
+
+    /**
+     * Like {@link #insertChunk(List, Supplier)}. With shards, there is one
+     * transaction per shard and {@code inTransaction} runs in shard 0's,
+     * which commits last. If one fails, the users of the shards already
+     * committed stay inserted and are added to {@code committed}, so the
+     * caller can account for them.
+     */
+    public <T> T insertChunk(List<User> users, Supplier<T> inTransaction, List<User> committed) {
+        if (!shards.isSharded()) {
+            return shards.write(UserShardRouting.GLOBAL_SHARD, List.of(), () -> persist(users, inTransaction));
+        }
+
+        reserveIds(users);
+        Map<Long, User> byId = new HashMap<>();
+        for (User user : users) {
+            byId.put(user.getReservedId(), user);
+        }
+        TreeMap<Integer, List<Long>> groups = shards.groupForWrite(byId.keySet());
+        List<Long> globalIds = groups.getOrDefault(UserShardRouting.GLOBAL_SHARD, List.of());
+
+        userRepository.claim(users);
+        Set<Long> committedIds = new HashSet<>();
+        try {
+            for (Map.Entry<Integer, List<Long>> group : groups.entrySet()) {
+                if (group.getKey() != UserShardRouting.GLOBAL_SHARD) {
+                    List<User> shardUsers = usersOf(group.getValue(), byId);
+                    shards.write(group.getKey(), group.getValue(), () -> persist(shardUsers, () -> null));
+                    committedIds.addAll(group.getValue());
+                    committed.addAll(shardUsers);
+                }
+            }
+            return shards.write(UserShardRouting.GLOBAL_SHARD, globalIds,
+                    () -> persist(usersOf(globalIds, byId), inTransaction));
+        } catch (RuntimeException e) {
+            List<User> failed = new ArrayList<>();
+            for (User user : users) {
+                if (!committedIds.contains(user.getReservedId())) {
+                    failed.add(user);
+                }
+            }
+            userRepository.release(failed);
+            throw e;
+        }
+    }
+
+    private <T> T persist(List<User> users, Supplier<T> inTransaction) {
+        List<Long> ids = new ArrayList<>(users.size());
+        try {
+            for (User user : users) {
+                entityManager.persist(user);
+                ids.add(user.getId());
+            }
+            entityManager.flush();
+        } catch (PersistenceException e) {
+            // The shared EntityManager does not translate, so a duplicate
+            // name would not surface as DataIntegrityViolationException
+            DataAccessException translated = JPA_DIALECT.translateExceptionIfPossible(e);
+            throw translated != null ? translated : e;
+        }
+        entityManager.clear();
+        outboxRepository.append(ids, UserOutboxEvent.Type.USER_CHANGED);
+        return inTransaction.get();
+    }
+
+    // Draws from the same pooled generator persist() uses, in a session of its own
+    private void reserveIds(List<User> users) {
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class);
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(User.class)
+                .getGenerator();
+        try (SharedSessionContractImplementor session = (SharedSessionContractImplementor) sessionFactory.openSession()) {
+            for (User user : users) {
+                if (user.getReservedId() == null) {
+                    user.setReservedId((Long) generator.generate(session, user, null, EventType.INSERT));
+                }
+            }
+        }
+    }
+
+    private static List<User> usersOf(List<Long> ids, Map<Long, User> byId) {
+        List<User> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            users.add(byId.get(id));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,264 @@
+package com.gaurav.socialMedia.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.gaurav.socialMedia.Entity.CounterType;
+import com.gaurav.socialMedia.Entity.UserCounterDelta;
+import com.gaurav.socialMedia.Entity.UserOutboxEvent;
+import com.gaurav.socialMedia.exception.TooManyRequestsException;
+import com.gaurav.socialMedia.repository.UserCounterRepository;
+import com.gaurav.socialMedia.repository.UserOutboxRepository;
+import com.gaurav.socialMedia.repository.UserShards;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind accumulator for the follower/following/tweet counters.
+ * <p>
+ * Deltas are merged per user in a {@link ConcurrentHashMap} (no global lock,
+ * contention is limited to the hash bin of one user) and flushed on a fixed
+ * schedule as one batched {@code UPDATE ... SET x = x + ?} per user. A follow
+ * storm on one account therefore costs one row update per flush interval
+ * instead of one per event.
+ * <p>
+ * A failed flush merges its deltas back so nothing is dropped, and the
+ * pending map is drained when the application context stops.
+ * <p>
+ * Pending deltas live only in memory. A crash loses every change accepted
+ * since the last successful flush: normally up to
+ * {@code user.counters.flush-interval-ms}, but everything queued while the
+ * database is unreachable. A graceful shutdown that still cannot flush
+ * after {@code user.counters.shutdown-drain-attempts} logs and drops the
+ * rest. Producers that cannot accept that window publish to the counter
+ * topic instead (see {@link CounterEventIngestionService}), whose offsets
+ * commit with the counters.
+ * <p>
+ * With shards, each shard's users are flushed in a transaction of their own.
+ * Users in a bucket being moved stay queued until the move ends, so they do
+ * not hold up the rest of their shard. A row that was not there because its
+ * user just moved is re-queued for the new shard.
+ */
+@Component
+@Slf4j
+public class UserCounterAggregator implements SmartLifecycle {
+
+    private final ConcurrentHashMap<Long, UserCounterDelta> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final UserCounterRepository counterRepository;
+    private final UserOutboxRepository outboxRepository;
+    private final UserShards shards;
+
+    private final Timer flushTimer;
+    private final Counter flushedRows;
+    private final Counter flushFailures;
+
+    @Value("${user.counters.max-pending-users:10000}")
+    private int maxPendingUsers;
+
+    @Value("${user.counters.shutdown-drain-attempts:3}")
+    private int shutdownDrainAttempts;
+
+    private volatile boolean running;
+
+    @Autowired
+    public UserCounterAggregator(UserCounterRepository counterRepository,
+                                 UserOutboxRepository outboxRepository,
+                                 UserShards shards,
+                                 MeterRegistry meterRegistry) {
+        this.counterRepository = counterRepository;
+        this.outboxRepository = outboxRepository;
+        this.shards = shards;
+        this.flushTimer = Timer.builder("user.counters.flush.latency")
+                .description("Time taken to flush pending counter deltas to the database")
+                .register(meterRegistry);
+        this.flushedRows = Counter.builder("user.counters.flushed")
+                .description("User rows updated by counter flushes")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("user.counters.flush.failures")
+                .description("Counter flushes that failed and were re-queued")
+                .register(meterRegistry);
+        Gauge.builder("user.counters.pending", pending, Map::size)
+                .description("Users with counter deltas waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a counter change. Returns immediately; the change becomes visible
+     * in the database after the next flush.
+     */
+    public void record(Long userId, CounterType type, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        pending.merge(userId, UserCounterDelta.of(type, delta), UserCounterDelta::plus);
+
+        // Keep memory bounded when the scheduler falls behind a burst.
+        if (pending.size() >= maxPendingUsers && flushLock.tryLock()) {
+            try {
+                doFlush();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    public int getPendingUserCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${user.counters.flush-interval-ms:500}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            doFlush();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void doFlush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Remove entries one by one: any merge racing with the drain simply
+        // starts a fresh entry that is picked up by the next flush.
+        TreeMap<Long, UserCounterDelta> batch = new TreeMap<>();
+        for (Long userId : pending.keySet()) {
+            UserCounterDelta delta = pending.remove(userId);
+            if (delta != null && !delta.isZero()) {
+                batch.put(userId, delta);
+            }
+        }
+        // A write waits while any of its users is being moved
+        Set<Long> frozen = shards.frozen(batch.keySet());
+        if (!frozen.isEmpty()) {
+            log.debug("Deferring counter deltas for {} users in buckets being moved", frozen.size());
+            for (Long userId : frozen) {
+                requeue(userId, batch.remove(userId));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start();
+        try {
+            for (Map.Entry<Integer, List<Long>> group : shards.group(batch.keySet()).entrySet()) {
+                TreeMap<Long, UserCounterDelta> shardBatch = new TreeMap<>();
+                for (Long userId : group.getValue()) {
+                    shardBatch.put(userId, batch.get(userId));
+                }
+                flushShard(group.getKey(), shardBatch);
+            }
+        } finally {
+            sample.stop(flushTimer);
+        }
+    }
+
+    private void flushShard(int shard, TreeMap<Long, UserCounterDelta> batch) {
+        try {
+            // The outbox rows commit with the counters; the relay then updates the cache
+            int[] updated = shards.write(shard, batch.keySet(), () -> {
+                int[] rows = counterRepository.applyDeltas(batch);
+                outboxRepository.append(batch.keySet(), UserOutboxEvent.Type.COUNTERS_CHANGED);
+                return rows;
+            });
+            flushedRows.increment(countUpdated(updated));
+            log.debug("Flushed counter deltas for {} users", batch.size());
+            if (shards.isSharded()) {
+                requeueMoved(shard, batch, updated);
+            }
+        } catch (TooManyRequestsException e) {
+            // A bucket is being moved; the next flush groups by the new map
+            log.info("Deferring counter deltas for {} users: {}", batch.size(), e.getMessage());
+            batch.forEach(this::requeue);
+        } catch (Exception e) {
+            flushFailures.increment();
+            log.error("Failed to flush counter deltas for {} users, re-queueing", batch.size(), e);
+            batch.forEach(this::requeue);
+        }
+    }
+
+    // The requeued delta is older than anything recorded since it was drained
+    private void requeue(Long userId, UserCounterDelta delta) {
+        pending.merge(userId, delta, (newer, older) -> older.plus(newer));
+    }
+
+    private static int countUpdated(int[] updated) {
+        int rows = 0;
+        for (int count : updated) {
+            if (count > 0) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private void requeueMoved(int shard, TreeMap<Long, UserCounterDelta> batch, int[] updated) {
+        List<Long> missing = new ArrayList<>();
+        int i = 0;
+        for (Long userId : batch.keySet()) {
+            if (updated[i++] == 0) {
+                missing.add(userId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        shards.reloadMap();
+        for (Long userId : missing) {
+            if (shards.shardOf(userId) != shard) {
+                requeue(userId, batch.get(userId));
+                log.debug("User {} moved off shard {}, re-queueing its counter deltas", userId, shard);
+            }
+        }
+    }
+
+    // Lifecycle beans stop before singletons are destroyed, and a low phase stops after the
+    // web server and message listeners, so no new deltas arrive while draining.
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (int attempt = 1; attempt <= shutdownDrainAttempts && !pending.isEmpty(); attempt++) {
+            log.info("Draining counter deltas for {} users on shutdown (attempt {})", pending.size(), attempt);
+            flush();
+        }
+        if (!pending.isEmpty()) {
+            log.error("Dropping counter deltas on shutdown: {}", pending);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
@@ -0,0 +1,38 @@
+package com.gaurav.socialMedia.service;
+
+import java.util.Locale;
+
+/**
+ * File formats accepted by bulk import and produced by export.
+ */
+public enum UserDataFormat {
+
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String mediaType;
+
+    UserDataFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Resolves a {@code Content-Type} header (parameters such as charset are
+     * ignored) or a format name like "csv".
+     */
+    public static UserDataFormat of(String value) {
+        if (value != null) {
+            String v = value.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+            for (UserDataFormat format : values()) {
+                if (format.mediaType.equals(v) || format.name().toLowerCase(Locale.ROOT).equals(v)) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported format: " + value);
+    }
+}
@@ -0,0 +1,242 @@
+package com.gaurav.socialMedia.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gaurav.socialMedia.config.UserShardRouting;
+import com.gaurav.socialMedia.repository.StreamingQueries;
+import com.gaurav.socialMedia.repository.UserShards;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams users out as NDJSON or CSV, in id order.
+ * <p>
+ * Rows are read with a streaming result set and written as they arrive, so
+ * memory use does not grow with the table. The field names match what
+ * {@link UserImportService} reads, so an export can be imported elsewhere.
+ * Password hashes are never exported; imported users need a new password.
+ * An interrupted export is resumed by passing the last id received as
+ * {@code afterId}.
+ * <p>
+ * Each shard is read with its own streaming result set, and the rows are
+ * merged by id as they arrive, so the output is in id order across shards.
+ */
+@Service
+@Slf4j
+public class UserExportService {
+
+    private static final String EXPORT_QUERY = "SELECT id, username, email, full_name, bio, profile_image_url, "
+            + "followers_count, following_count, tweets_count, is_verified, is_active, created_at, updated_at "
+            + "FROM users WHERE id > ? ORDER BY id";
+
+    private static final String[] CSV_COLUMNS = {"id", "username", "email", "fullName", "bio",
+            "profileImageUrl", "followersCount", "followingCount", "tweetsCount", "isVerified", "isActive",
+            "createdAt", "updatedAt"};
+
+    private static final long PROGRESS_LOG_INTERVAL = 100_000;
+
+    private final DataSource dataSource;
+    private final UserShards shards;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public UserExportService(DataSource dataSource, UserShards shards, ObjectMapper objectMapper) {
+        this.dataSource = dataSource;
+        this.shards = shards;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes every user with an id greater than {@code afterId}.
+     */
+    public long export(OutputStream out, UserDataFormat format, long afterId) {
+        long start = System.currentTimeMillis();
+        long rows = 0;
+        List<ShardCursor> cursors = new ArrayList<>(shards.count());
+        try {
+            PriorityQueue<ShardCursor> merge = new PriorityQueue<>(Comparator.comparingLong(ShardCursor::id));
+            for (int shard = 0; shard < shards.count(); shard++) {
+                ShardCursor cursor = open(shard, afterId);
+                cursors.add(cursor);
+                if (cursor.next()) {
+                    merge.add(cursor);
+                }
+            }
+
+            Writer writer = null;
+            JsonGenerator generator = null;
+            StringBuilder line = new StringBuilder(256);
+            if (format == UserDataFormat.CSV) {
+                writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                UserCsv.appendRecord(line, (Object[]) CSV_COLUMNS);
+                writer.write(line.toString());
+            } else {
+                generator = objectMapper.getFactory().createGenerator(out);
+                generator.setRootValueSeparator(null);
+            }
+            while (!merge.isEmpty()) {
+                ShardCursor cursor = merge.poll();
+                if (writer != null) {
+                    line.setLength(0);
+                    appendCsv(line, cursor.rs);
+                    write(writer, line);
+                } else {
+                    writeJson(generator, cursor.rs);
+                }
+                progress(++rows, cursor.id());
+                if (cursor.next()) {
+                    merge.add(cursor);
+                }
+            }
+            if (writer != null) {
+                writer.flush();
+            } else {
+                generator.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Export users", EXPORT_QUERY, e);
+        } finally {
+            cursors.forEach(ShardCursor::close);
+        }
+        log.info("Exported {} users as {} after id {} in {} ms", rows, format, afterId,
+                System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    private ShardCursor open(int shard, long afterId) throws SQLException {
+        Connection connection;
+        try {
+            connection = UserShardRouting.onShard(shard, () -> {
+                try {
+                    return dataSource.getConnection();
+                } catch (SQLException e) {
+                    throw new UncategorizedSQLException("Connect to shard " + shard, EXPORT_QUERY, e);
+                }
+            });
+        } catch (UncategorizedSQLException e) {
+            throw e.getSQLException();
+        }
+        ShardCursor cursor = new ShardCursor(shard, connection);
+        try {
+            cursor.statement = StreamingQueries.prepare(connection, EXPORT_QUERY);
+            cursor.statement.setLong(1, afterId);
+            cursor.rs = cursor.statement.executeQuery();
+            return cursor;
+        } catch (SQLException e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+    private static void appendCsv(StringBuilder line, ResultSet rs) throws SQLException {
+        UserCsv.appendRecord(line, rs.getLong(1), rs.getString(2), rs.getString(3),
+                rs.getString(4), rs.getString(5), rs.getString(6),
+                rs.getLong(7), rs.getLong(8), rs.getLong(9), rs.getBoolean(10), rs.getBoolean(11),
+                timestamp(rs.getTimestamp(12)), timestamp(rs.getTimestamp(13)));
+    }
+
+    private static void writeJson(JsonGenerator json, ResultSet rs) throws SQLException {
+        try {
+            json.writeStartObject();
+            json.writeNumberField("id", rs.getLong(1));
+            json.writeStringField("username", rs.getString(2));
+            json.writeStringField("email", rs.getString(3));
+            json.writeStringField("fullName", rs.getString(4));
+            json.writeStringField("bio", rs.getString(5));
+            json.writeStringField("profileImageUrl", rs.getString(6));
+            json.writeNumberField("followersCount", rs.getLong(7));
+            json.writeNumberField("followingCount", rs.getLong(8));
+            json.writeNumberField("tweetsCount", rs.getLong(9));
+            json.writeBooleanField("isVerified", rs.getBoolean(10));
+            json.writeBooleanField("isActive", rs.getBoolean(11));
+            json.writeStringField("createdAt", timestamp(rs.getTimestamp(12)));
+            json.writeStringField("updatedAt", timestamp(rs.getTimestamp(13)));
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(Writer writer, CharSequence line) {
+        try {
+            writer.append(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String timestamp(Timestamp value) {
+        return value == null ? null : value.toLocalDateTime().toString();
+    }
+
+    private static void progress(long rows, long lastId) {
+        if (rows % PROGRESS_LOG_INTERVAL == 0) {
+            log.info("Exported {} users so far, last id {}", rows, lastId);
+        }
+    }
+
+    /**
+     * The rows of one shard, positioned on the next row that shard owns.
+     */
+    private final class ShardCursor {
+
+        private final int shard;
+        private final Connection connection;
+        private PreparedStatement statement;
+        private ResultSet rs;
+        private long id;
+
+        private ShardCursor(int shard, Connection connection) {
+            this.shard = shard;
+            this.connection = connection;
+        }
+
+        long id() {
+            return id;
+        }
+
+        // Skips copies left behind by a failed bucket move
+        boolean next() throws SQLException {
+            while (rs.next()) {
+                id = rs.getLong(1);
+                if (shards.shardOf(id) == shard) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void close() {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("Failed to close export connection to shard {}", shard, e);
+            }
+        }
+    }
+}
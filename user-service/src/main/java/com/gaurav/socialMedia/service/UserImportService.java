@@ -0,0 +1,430 @@
+package com.gaurav.socialMedia.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserImportJob;
+import com.gaurav.socialMedia.Entity.UserImportJobDto;
+import com.gaurav.socialMedia.Entity.UserImportRecordDto;
+import com.gaurav.socialMedia.exception.ImportJobRunningException;
+import com.gaurav.socialMedia.repository.UserImportJobRepository;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streaming bulk import of users from NDJSON or CSV.
+ * <p>
+ * The input is read one record at a time and processed in chunks, so memory
+ * use depends on the chunk size and not on the file size. For each chunk,
+ * invalid records are rejected, usernames and emails already taken (in the
+ * database or earlier in the chunk) are skipped as duplicates, passwords
+ * are hashed in parallel, and the users are inserted with JDBC
+ * batching together with the job's checkpoint.
+ * <p>
+ * Progress is kept in {@link UserImportJob}. Uploading the same file again
+ * under the same job id skips the records already committed. An upload
+ * claims its job with a conditional update, so a second upload of a job
+ * that is still running is turned away; a job whose last checkpoint is
+ * older than {@code user.import.stale-after} is assumed abandoned and can be
+ * claimed again.
+ */
+@Service
+@Slf4j
+public class UserImportService {
+
+    private static final int MAX_ERROR_SAMPLES = 100;
+
+    private final ShardedUserRepository userRepository;
+    private final UserImportJobRepository jobRepository;
+    private final UserBulkWriter bulkWriter;
+    private final PasswordHashingService passwordHashingService;
+    private final UserAvailabilityFilter availabilityFilter;
+    private final UserNegativeCache negativeCache;
+    private final UserSearchIndex searchIndex;
+    private final UserAutocompleteIndex autocompleteIndex;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${user.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${user.import.stale-after:10m}")
+    private Duration staleAfter;
+
+    @Autowired
+    public UserImportService(ShardedUserRepository userRepository,
+                             UserImportJobRepository jobRepository,
+                             UserBulkWriter bulkWriter,
+                             PasswordHashingService passwordHashingService,
+                             UserAvailabilityFilter availabilityFilter,
+                             UserNegativeCache negativeCache,
+                             UserSearchIndex searchIndex,
+                             UserAutocompleteIndex autocompleteIndex,
+                             ObjectMapper objectMapper,
+                             Validator validator) {
+        this.userRepository = userRepository;
+        this.jobRepository = jobRepository;
+        this.bulkWriter = bulkWriter;
+        this.passwordHashingService = passwordHashingService;
+        this.availabilityFilter = availabilityFilter;
+        this.negativeCache = negativeCache;
+        this.searchIndex = searchIndex;
+        this.autocompleteIndex = autocompleteIndex;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    public UserImportJobDto getJob(String jobId) {
+        return jobRepository.findById(jobId)
+                .map(job -> new UserImportJobDto(job, List.of()))
+                .orElse(null);
+    }
+
+    /**
+     * Imports the records of {@code input}, resuming after the checkpoint if
+     * the job already exists. A completed job is returned as is.
+     *
+     * @throws ImportJobRunningException if another upload is running the job
+     */
+    public UserImportJobDto importUsers(String jobId, UserDataFormat format, InputStream input) {
+        UserImportJob job = claim(jobId, format);
+        if (job.getStatus() == UserImportJob.Status.COMPLETED) {
+            log.info("Import job {} already completed", jobId);
+            return new UserImportJobDto(job, List.of());
+        }
+        long resumeAfter = job.getRecordsRead();
+        log.info("Starting import job {} ({}), resuming after record {}", jobId, format, resumeAfter);
+
+        List<String> errors = new ArrayList<>();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            RecordReader records = format == UserDataFormat.CSV ? new CsvRecordReader(reader) : new NdjsonRecordReader(reader);
+
+            List<Pending> chunk = new ArrayList<>(chunkSize);
+            long recordNumber = 0;
+            Pending pending;
+            while ((pending = records.next(recordNumber + 1)) != null) {
+                recordNumber = pending.number;
+                if (recordNumber <= resumeAfter) {
+                    continue;
+                }
+                chunk.add(pending);
+                if (chunk.size() >= chunkSize) {
+                    job = processChunk(job, chunk, errors);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                job = processChunk(job, chunk, errors);
+            }
+
+            job.setStatus(UserImportJob.Status.COMPLETED);
+            job = jobRepository.save(job);
+            log.info("Import job {} completed: {} imported, {} duplicates, {} rejected",
+                    jobId, job.getImported(), job.getDuplicates(), job.getRejected());
+            return new UserImportJobDto(job, errors);
+        } catch (Exception e) {
+            log.error("Import job {} failed after record {}", jobId, job.getRecordsRead(), e);
+            markFailed(jobId, job.getVersion(), e);
+            throw new RuntimeException("Import failed after record " + job.getRecordsRead() + ": " + e.getMessage(), e);
+        }
+    }
+
+    // The job, RUNNING for this upload, or COMPLETED to be returned as is
+    private UserImportJob claim(String jobId, UserDataFormat format) {
+        LocalDateTime now = LocalDateTime.now();
+        if (jobRepository.claim(jobId, now, now.minus(staleAfter)) > 0) {
+            return jobRepository.findById(jobId).orElseThrow();
+        }
+        Optional<UserImportJob> existing = jobRepository.findById(jobId);
+        if (existing.isPresent()) {
+            if (existing.get().getStatus() != UserImportJob.Status.COMPLETED) {
+                throw new ImportJobRunningException("Import job " + jobId + " is already running");
+            }
+            return existing.get();
+        }
+        try {
+            // Inserted, so of two uploads starting a new job only one succeeds
+            return jobRepository.save(new UserImportJob(jobId, format.name()));
+        } catch (DataIntegrityViolationException e) {
+            throw new ImportJobRunningException("Import job " + jobId + " is already running");
+        }
+    }
+
+    private UserImportJob processChunk(UserImportJob job, List<Pending> chunk, List<String> errors) {
+        long lastRecord = chunk.get(chunk.size() - 1).number;
+        // Users of shards that committed before an attempt failed; they are
+        // imported, not duplicates, when the chunk is planned again
+        List<User> committedEarlier = new ArrayList<>();
+        for (int attempt = 1; ; attempt++) {
+            ChunkPlan plan = plan(chunk, committedEarlier);
+            List<String> hashes = passwordHashingService.hashAll(plan.rawPasswords);
+
+            List<User> users = new ArrayList<>(plan.accepted.size());
+            for (int i = 0; i < plan.accepted.size(); i++) {
+                UserImportRecordDto record = plan.accepted.get(i);
+                User user = new User();
+                user.setUsername(record.getUsername());
+                user.setEmail(record.getEmail());
+                user.setPassword(hashes.get(i));
+                user.setFullName(record.getFullName());
+                user.setBio(record.getBio());
+                users.add(user);
+            }
+
+            UserImportJob current = job;
+            List<User> committed = new ArrayList<>();
+            try {
+                UserImportJob saved = bulkWriter.insertChunk(users, () -> {
+                    current.setRecordsRead(lastRecord);
+                    current.setImported(current.getImported() + committedEarlier.size() + users.size());
+                    current.setDuplicates(current.getDuplicates() + plan.duplicates);
+                    current.setRejected(current.getRejected() + plan.rejected);
+                    return jobRepository.save(current);
+                }, committed);
+                plan.errors.forEach(error -> addError(errors, error));
+                afterImport(committedEarlier);
+                afterImport(users);
+                log.debug("Import job {}: committed through record {}", saved.getJobId(), lastRecord);
+                return saved;
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent signup took a name between the duplicate check
+                // and the insert; the chunk rolled back, so plan it again.
+                if (attempt >= 3) {
+                    throw e;
+                }
+                committedEarlier.addAll(committed);
+                log.warn("Import job {}: chunk ending at record {} hit a duplicate, retrying", job.getJobId(), lastRecord);
+                job = jobRepository.findById(job.getJobId()).orElseThrow();
+            }
+        }
+    }
+
+    private ChunkPlan plan(List<Pending> chunk, List<User> committedEarlier) {
+        ChunkPlan plan = new ChunkPlan();
+        List<Pending> valid = new ArrayList<>(chunk.size());
+        for (Pending pending : chunk) {
+            String error = pending.error != null ? pending.error : validate(pending.record);
+            if (error != null) {
+                plan.rejected++;
+                plan.errors.add("Record " + pending.number + ": " + error);
+            } else {
+                valid.add(pending);
+            }
+        }
+
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (Pending pending : valid) {
+            usernames.add(pending.record.getUsername());
+            emails.add(pending.record.getEmail());
+        }
+        Set<String> taken = new HashSet<>();
+        if (!valid.isEmpty()) {
+            for (String username : userRepository.findExistingUsernames(usernames)) {
+                taken.add("u:" + normalize(username));
+            }
+            for (String email : userRepository.findExistingEmails(emails)) {
+                taken.add("e:" + normalize(email));
+            }
+        }
+
+        Set<String> committedUsernames = new HashSet<>();
+        for (User user : committedEarlier) {
+            committedUsernames.add(normalize(user.getUsername()));
+        }
+
+        for (Pending pending : valid) {
+            UserImportRecordDto record = pending.record;
+            // The first record with the name is the one already inserted
+            if (committedUsernames.remove(normalize(record.getUsername()))) {
+                taken.add("u:" + normalize(record.getUsername()));
+                taken.add("e:" + normalize(record.getEmail()));
+                continue;
+            }
+            // add() also marks the names as taken for the rest of the chunk
+            boolean usernameFree = taken.add("u:" + normalize(record.getUsername()));
+            boolean emailFree = taken.add("e:" + normalize(record.getEmail()));
+            if (!usernameFree || !emailFree) {
+                plan.duplicates++;
+                continue;
+            }
+            plan.accepted.add(record);
+            plan.rawPasswords.add(record.getPassword());
+        }
+        return plan;
+    }
+
+    private String validate(UserImportRecordDto record) {
+        Set<ConstraintViolation<UserImportRecordDto>> violations = validator.validate(record);
+        return violations.isEmpty() ? null : violations.iterator().next().getMessage();
+    }
+
+    // Same side effects as registerUser; the cache itself is filled by the outbox relay
+    private void afterImport(List<User> users) {
+        for (User user : users) {
+            try {
+                availabilityFilter.add(user.getUsername(), user.getEmail());
+                negativeCache.invalidate(user.getId(), user.getUsername());
+                searchIndex.update(user);
+                autocompleteIndex.update(user);
+            } catch (Exception e) {
+                log.warn("Failed to index imported user {}", user.getId(), e);
+            }
+        }
+    }
+
+    // Unless another upload has claimed the job since
+    private void markFailed(String jobId, Long version, Exception cause) {
+        try {
+            jobRepository.findById(jobId).filter(job -> Objects.equals(job.getVersion(), version)).ifPresent(job -> {
+                job.setStatus(UserImportJob.Status.FAILED);
+                String message = String.valueOf(cause.getMessage());
+                job.setLastError(message.length() > 1000 ? message.substring(0, 1000) : message);
+                jobRepository.save(job);
+            });
+        } catch (Exception e) {
+            log.warn("Failed to record failure of import job {}", jobId, e);
+        }
+    }
+
+    private static void addError(List<String> errors, String error) {
+        if (errors.size() < MAX_ERROR_SAMPLES) {
+            errors.add(error);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Pending {
+
+        private final long number;
+        private final UserImportRecordDto record;
+        private final String error;
+
+        private Pending(long number, UserImportRecordDto record, String error) {
+            this.number = number;
+            this.record = record;
+            this.error = error;
+        }
+    }
+
+    private static final class ChunkPlan {
+
+        private final List<UserImportRecordDto> accepted = new ArrayList<>();
+        private final List<String> rawPasswords = new ArrayList<>();
+        // Added to the job's samples once the chunk commits
+        private final List<String> errors = new ArrayList<>();
+        private long duplicates;
+        private long rejected;
+    }
+
+    private interface RecordReader {
+
+        /**
+         * The next record, numbered {@code number}, or {@code null} at the end.
+         * Records that cannot be parsed come back with an error instead.
+         */
+        Pending next(long number) throws IOException;
+    }
+
+    private final class NdjsonRecordReader implements RecordReader {
+
+        private final BufferedReader reader;
+
+        private NdjsonRecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Pending next(long number) throws IOException {
+            String line = reader.readLine();
+            // Blank lines are not records, so they do not shift the numbering
+            while (line != null && line.isBlank()) {
+                line = reader.readLine();
+            }
+            if (line == null) {
+                return null;
+            }
+            try {
+                return new Pending(number, objectMapper.readValue(line, UserImportRecordDto.class), null);
+            } catch (IOException e) {
+                return new Pending(number, null, "Malformed JSON");
+            }
+        }
+    }
+
+    private static final class CsvRecordReader implements RecordReader {
+
+        private final BufferedReader reader;
+        private Map<String, Integer> columns;
+
+        private CsvRecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Pending next(long number) throws IOException {
+            if (columns == null) {
+                List<String> header = UserCsv.readRecord(reader);
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim(), i);
+                }
+            }
+            List<String> fields;
+            try {
+                fields = UserCsv.readRecord(reader);
+            } catch (IllegalArgumentException e) {
+                return new Pending(number, null, e.getMessage());
+            }
+            if (fields == null) {
+                return null;
+            }
+            UserImportRecordDto record = new UserImportRecordDto();
+            record.setUsername(field(fields, "username"));
+            record.setEmail(field(fields, "email"));
+            record.setPassword(field(fields, "password"));
+            record.setFullName(field(fields, "fullName"));
+            record.setBio(field(fields, "bio"));
+            return new Pending(number, record, null);
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+                return null;
+            }
+            return fields.get(index);
+        }
+    }
+}
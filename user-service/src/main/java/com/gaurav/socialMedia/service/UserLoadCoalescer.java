@@ -0,0 +1,73 @@
+package com.gaurav.socialMedia.service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Single-flight guard for profile loads on a cache miss.
+ * <p>
+ * The first caller for an id runs the load; callers arriving while it is in
+ * flight wait for and share its result instead of issuing their own query.
+ * Nothing is kept once the load completes, so later misses load again.
+ */
+@Component
+public class UserLoadCoalescer {
+
+    private final ConcurrentHashMap<Long, CompletableFuture<Optional<UserResponseDto>>> inFlight =
+            new ConcurrentHashMap<>();
+
+    private final Counter coalesced;
+
+    @Autowired
+    public UserLoadCoalescer(MeterRegistry meterRegistry) {
+        this.coalesced = Counter.builder("user.cache.load.coalesced")
+                .description("Profile loads served by another request's in-flight load")
+                .register(meterRegistry);
+    }
+
+    public Optional<UserResponseDto> load(Long id, Supplier<Optional<UserResponseDto>> loader) {
+        CompletableFuture<Optional<UserResponseDto>> mine = new CompletableFuture<>();
+        CompletableFuture<Optional<UserResponseDto>> leader = inFlight.putIfAbsent(id, mine);
+        if (leader != null) {
+            coalesced.increment();
+            return await(leader);
+        }
+
+        try {
+            Optional<UserResponseDto> result = loader.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private static Optional<UserResponseDto> await(CompletableFuture<Optional<UserResponseDto>> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.gaurav.socialMedia.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process L1 cache in front of the {@code cache:user:} Redis keys.
+ * <p>
+ * Size bounded with Caffeine's W-TinyLFU eviction and a short TTL. Whenever an
+ * instance rewrites or deletes a user in Redis it calls {@link #invalidate},
+ * which drops the local copy and publishes the id on
+ * {@value #INVALIDATION_CHANNEL} so every other instance drops theirs too.
+ * The TTL bounds staleness if a pub/sub message is missed.
+ */
+@Component
+@Slf4j
+public class UserNearCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "cache:user:invalidate";
+
+    private final Cache<Long, UserResponseDto> cache;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    public UserNearCache(StringRedisTemplate stringRedisTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${user.cache.near.max-size:10000}") long maxSize,
+                         @Value("${user.cache.near.ttl:30s}") Duration ttl) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user-near-cache");
+    }
+
+    public UserResponseDto get(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    public void put(Long id, UserResponseDto user) {
+        cache.put(id, user);
+    }
+
+    /**
+     * Drops the local entry and tells the other instances to drop theirs.
+     */
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+        publish(String.valueOf(id));
+    }
+
+    public void invalidateAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        cache.invalidateAll(ids);
+        StringBuilder payload = new StringBuilder();
+        for (Long id : ids) {
+            if (payload.length() > 0) {
+                payload.append(',');
+            }
+            payload.append(id);
+        }
+        publish(payload.toString());
+    }
+
+    private void publish(String payload) {
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, payload);
+        } catch (Exception e) {
+            log.warn("Failed to publish near cache invalidation for {}", payload, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        for (String id : payload.split(",")) {
+            try {
+                cache.invalidate(Long.valueOf(id.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed near cache invalidation: {}", payload);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.gaurav.socialMedia.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Remembers ids and usernames that were just looked up and do not exist, so
+ * repeated lookups of unknown accounts (scrapers, stale references) are
+ * answered without Redis or MySQL.
+ * <p>
+ * Entries are sentinels in a size-bounded Caffeine cache with a short TTL.
+ * Registering a user removes any entry for its id or username locally and
+ * publishes them on {@value #INVALIDATION_CHANNEL} for the other instances;
+ * the TTL bounds staleness if a message is missed.
+ * <p>
+ * A lookup that started before a user was registered can find nothing and
+ * report the miss after the invalidation. Callers therefore take the
+ * {@link #generation()} before looking up, and a miss is not kept if any
+ * invalidation happened since.
+ */
+@Component
+@Slf4j
+public class UserNegativeCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "cache:user:negative:invalidate";
+
+    private static final String ID_PREFIX = "id:";
+    private static final String USERNAME_PREFIX = "username:";
+
+    private final Cache<String, Boolean> cache;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Counter idHits;
+    private final Counter usernameHits;
+    // Incremented before every eviction
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public UserNegativeCache(StringRedisTemplate stringRedisTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${user.cache.negative.max-size:100000}") long maxSize,
+                             @Value("${user.cache.negative.ttl:60s}") Duration ttl) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user-negative-cache");
+        this.idHits = Counter.builder("user.cache.negative.hits")
+                .description("Lookups of unknown users answered by the negative cache")
+                .tag("key", "id")
+                .register(meterRegistry);
+        this.usernameHits = Counter.builder("user.cache.negative.hits")
+                .description("Lookups of unknown users answered by the negative cache")
+                .tag("key", "username")
+                .register(meterRegistry);
+    }
+
+    public boolean isMissingId(Long id) {
+        boolean missing = cache.getIfPresent(ID_PREFIX + id) != null;
+        if (missing) {
+            idHits.increment();
+        }
+        return missing;
+    }
+
+    public boolean isMissingUsername(String username) {
+        boolean missing = username != null && cache.getIfPresent(usernameKey(username)) != null;
+        if (missing) {
+            usernameHits.increment();
+        }
+        return missing;
+    }
+
+    /**
+     * The invalidation count, to be read before the lookup whose miss is
+     * then passed to {@link #putMissingId} or {@link #putMissingUsername}.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void putMissingId(Long id, long generation) {
+        putMissing(ID_PREFIX + id, generation);
+    }
+
+    public void putMissingUsername(String username, long generation) {
+        putMissing(usernameKey(username), generation);
+    }
+
+    // Put first and checked after, so an invalidation running concurrently
+    // either sees the entry or moves the generation on
+    private void putMissing(String key, long generation) {
+        cache.put(key, Boolean.TRUE);
+        if (this.generation.get() != generation) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Drops the entries a newly registered user would be hidden by, here and
+     * on the other instances.
+     */
+    public void invalidate(Long id, String username) {
+        evict(id, username);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, id + "\n" + username);
+        } catch (Exception e) {
+            log.warn("Failed to publish negative cache invalidation for user {}", id, e);
+        }
+    }
+
+    private void evict(Long id, String username) {
+        generation.incrementAndGet();
+        cache.invalidate(ID_PREFIX + id);
+        cache.invalidate(usernameKey(username));
+    }
+
+    // Usernames are matched case-insensitively, like the cache index keys
+    private static String usernameKey(String username) {
+        return USERNAME_PREFIX + username.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = payload.split("\n", 2);
+        try {
+            evict(Long.valueOf(parts[0].trim()), parts.length > 1 ? parts[1] : "");
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed negative cache invalidation: {}", payload);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.gaurav.socialMedia.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.gaurav.socialMedia.config.DataSourceRouting;
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserOutboxEvent;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+import com.gaurav.socialMedia.repository.UserOutboxRepository;
+import com.gaurav.socialMedia.repository.UserShards;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies committed {@code user_outbox} events to the Redis cache.
+ * <p>
+ * Each poll claims the oldest events in batches, loads the affected users
+ * once and writes them in one pipeline: changed users are re-cached,
+ * deactivated users evicted, and users whose counters moved get their counter
+ * fields overwritten. The same counts re-rank the autocomplete index. A
+ * batch is claimed with {@code FOR UPDATE SKIP LOCKED} in a transaction that
+ * also deletes it once Redis accepted the writes, so
+ * relays on other instances take the next events instead of the same ones,
+ * and a failure rolls back and is retried on the next poll. The users are
+ * re-read from the primary after the claim, so the cache gets the row as of
+ * the claim or later.
+ * <p>
+ * With shards, each shard has its own outbox, committed with its users, and
+ * the shards are polled one after the other.
+ */
+@Component
+@Slf4j
+public class UserOutboxRelay {
+
+    private final UserOutboxRepository outboxRepository;
+    private final ShardedUserRepository userRepository;
+    private final UserShards shards;
+    private final UserProfileCache profileCache;
+    private final UserNearCache nearCache;
+    private final UserAutocompleteIndex autocompleteIndex;
+    private final TransactionTemplate claimTemplate;
+    private final TransactionTemplate outsideClaimTemplate;
+
+    private final Timer relayTimer;
+    private final Counter relayedEvents;
+    private final Counter relayFailures;
+
+    @Value("${user.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${user.outbox.max-batches-per-poll:20}")
+    private int maxBatchesPerPoll;
+
+    @Autowired
+    public UserOutboxRelay(UserOutboxRepository outboxRepository,
+                           ShardedUserRepository userRepository,
+                           UserProfileCache profileCache,
+                           UserNearCache nearCache,
+                           UserAutocompleteIndex autocompleteIndex,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.userRepository = userRepository;
+        this.shards = userRepository.shards();
+        this.profileCache = profileCache;
+        this.nearCache = nearCache;
+        this.autocompleteIndex = autocompleteIndex;
+        this.claimTemplate = new TransactionTemplate(transactionManager);
+        this.claimTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.outsideClaimTemplate = new TransactionTemplate(transactionManager);
+        this.outsideClaimTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+        this.relayTimer = Timer.builder("user.outbox.relay.latency")
+                .description("Time taken to apply one batch of outbox events to the cache")
+                .register(meterRegistry);
+        this.relayedEvents = Counter.builder("user.outbox.relayed")
+                .description("Outbox events applied to the cache")
+                .register(meterRegistry);
+        this.relayFailures = Counter.builder("user.outbox.relay.failures")
+                .description("Outbox batches that failed and will be retried")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${user.outbox.poll-interval-ms:100}")
+    public void relay() {
+        shards.forEachShard(this::relayShard);
+    }
+
+    // Runs with the shard selected, so the outbox claims and deletes go to its database
+    private void relayShard(int shard) {
+        for (int i = 0; i < maxBatchesPerPoll; i++) {
+            Integer relayed;
+            try {
+                relayed = claimTemplate.execute(this::relayBatch);
+            } catch (Exception e) {
+                log.error("Failed to read user outbox of shard {}", shard, e);
+                return;
+            }
+            if (relayed == null || relayed < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Claims and relays one batch in the current transaction.
+     *
+     * @return the number of events relayed, or {@code null} if the batch
+     *         failed and was rolled back
+     */
+    private Integer relayBatch(TransactionStatus status) {
+        List<UserOutboxEvent> batch = outboxRepository.claimBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> changedIds = new HashSet<>();
+        Set<Long> counterIds = new HashSet<>();
+        List<Long> eventIds = new ArrayList<>(batch.size());
+        for (UserOutboxEvent event : batch) {
+            eventIds.add(event.getId());
+            if (event.getType() == UserOutboxEvent.Type.COUNTERS_CHANGED) {
+                counterIds.add(event.getUserId());
+            } else {
+                changedIds.add(event.getUserId());
+            }
+        }
+        // A full re-cache already carries the current counters
+        counterIds.removeAll(changedIds);
+
+        Set<Long> userIds = new HashSet<>(changedIds);
+        userIds.addAll(counterIds);
+
+        Timer.Sample sample = Timer.start();
+        try {
+            List<User> recache = new ArrayList<>();
+            List<User> evict = new ArrayList<>();
+            List<User> counters = new ArrayList<>();
+            for (User user : readUsers(userIds)) {
+                if (counterIds.contains(user.getId())) {
+                    counters.add(user);
+                } else if (Boolean.FALSE.equals(user.getIsActive())) {
+                    evict.add(user);
+                } else {
+                    recache.add(user);
+                }
+            }
+
+            if (!recache.isEmpty()) {
+                profileCache.putAll(recache);
+            }
+            if (!counters.isEmpty()) {
+                profileCache.refreshCounters(counters);
+            }
+            profileCache.evictAll(evict);
+            nearCache.invalidateAll(userIds);
+            // Re-ranks mention suggestions; stale counts are ignored by version
+            List<User> ranked = new ArrayList<>(counters);
+            ranked.addAll(recache);
+            autocompleteIndex.updateFollowers(ranked);
+
+            outboxRepository.delete(eventIds);
+            relayedEvents.increment(eventIds.size());
+            log.debug("Relayed {} outbox events for {} users", eventIds.size(), userIds.size());
+            return batch.size();
+        } catch (Exception e) {
+            status.setRollbackOnly();
+            relayFailures.increment();
+            log.error("Failed to relay {} outbox events, will retry", eventIds.size(), e);
+            return null;
+        } finally {
+            sample.stop(relayTimer);
+        }
+    }
+
+    // Outside the claim's transaction, which is bound to this shard while a
+    // moved user lives on another; from the primary, since a lagging replica
+    // would re-cache the old rows.
+    private List<User> readUsers(Set<Long> userIds) {
+        return outsideClaimTemplate.execute(status ->
+                DataSourceRouting.onPrimary(() -> userRepository.findAllById(userIds)));
+    }
+}
@@ -0,0 +1,472 @@
+package com.gaurav.socialMedia.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Redis layout of cached user profiles.
+ * <p>
+ * {@code cache:user:{id}} is a hash: the {@value #PROFILE_FIELD} field holds
+ * the encoded {@link UserResponseDto}, and each counter is its own integer
+ * field. Counter changes only overwrite those fields with the committed
+ * values instead of rewriting the profile, and a read is a single
+ * {@code HGETALL}. {@code cache:user:username:*} and
+ * {@code cache:user:email:*} map handles to ids.
+ * <p>
+ * To keep a hot profile from expiring everywhere at once, each entry's TTL
+ * gets a random extra of up to {@code user.cache.ttl-jitter} of the base TTL,
+ * and reads refresh it early with a probability that rises as expiry nears
+ * (the XFetch rule: {@code now - loadMillis * beta * ln(rand) >= expiresAt}).
+ * The expiry and load time travel in the hash, so this costs no extra round
+ * trip.
+ * <p>
+ * Every write carries the user's row {@code version}, which each database
+ * write increments, and is dropped if the hash already holds a newer one.
+ * Relays and cache-miss loads run concurrently, so without this a read that
+ * finishes late would put an older profile back for the whole TTL. Evicted
+ * profiles leave a short-lived hash with only the version for the same
+ * reason.
+ * <p>
+ * Profiles cached as plain strings by older versions are treated as misses
+ * and replaced on the next write.
+ */
+@Component
+@Slf4j
+public class UserProfileCache {
+
+    static final String USER_CACHE_PREFIX = "cache:user:";
+    static final String USERNAME_INDEX_PREFIX = "cache:user:username:";
+    static final String EMAIL_INDEX_PREFIX = "cache:user:email:";
+    static final long CACHE_TTL = 1; // 1 hour
+
+    static final String PROFILE_FIELD = "profile";
+    static final String FOLLOWERS_FIELD = "followersCount";
+    static final String FOLLOWING_FIELD = "followingCount";
+    static final String TWEETS_FIELD = "tweetsCount";
+    static final String EXPIRES_AT_FIELD = "expiresAt";
+    static final String LOAD_MILLIS_FIELD = "loadMillis";
+    static final String VERSION_FIELD = "version";
+
+    // Floor for the early refresh window of entries written without a measured load
+    private static final long MIN_LOAD_MILLIS = 5;
+    // Longer than any read that could still be writing the evicted profile back
+    private static final Duration TOMBSTONE_TTL = Duration.ofMinutes(5);
+
+    // Type of KEYS[1] as t; Redis replies with a status table, some embedded
+    // servers with a plain string
+    private static final String KEY_TYPE =
+            "local t = redis.call('TYPE', KEYS[1])\n"
+            + "t = t.ok or t\n";
+
+    // Returns from the script if the hash holds a newer version than ARGV[1]
+    private static final String NEWER_GUARD = KEY_TYPE
+            + "if t == 'hash' then\n"
+            + "  local v = tonumber(redis.call('HGET', KEYS[1], '" + VERSION_FIELD + "'))\n"
+            + "  if v and v > tonumber(ARGV[1]) then return 0 end\n"
+            + "end\n";
+
+    // KEYS: profile, username index, email index. ARGV: version, TTL in
+    // millis, id for the indexes, then the hash as field/value pairs.
+    private static final RedisScript<Long> PUT_SCRIPT = RedisScript.of(NEWER_GUARD
+            + "redis.call('DEL', KEYS[1])\n"
+            + "for i = 4, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end\n"
+            + "redis.call('PEXPIRE', KEYS[1], ARGV[2])\n"
+            + "redis.call('SET', KEYS[2], ARGV[3], 'PX', ARGV[2])\n"
+            + "redis.call('SET', KEYS[3], ARGV[3], 'PX', ARGV[2])\n"
+            + "return 1", Long.class);
+
+    // Only touches hashes that already exist, so a counter refresh never
+    // creates a partial entry; legacy string entries are dropped.
+    private static final RedisScript<Long> SET_COUNTERS_SCRIPT = RedisScript.of(NEWER_GUARD
+            + "if t == 'none' then return 0 end\n"
+            + "if t ~= 'hash' then redis.call('DEL', KEYS[1]) return 0 end\n"
+            + "redis.call('HSET', KEYS[1], '" + VERSION_FIELD + "', ARGV[1], '" + FOLLOWERS_FIELD + "', ARGV[2], '"
+            + FOLLOWING_FIELD + "', ARGV[3], '" + TWEETS_FIELD + "', ARGV[4])\n"
+            + "return 1", Long.class);
+
+    // Replaces the profile with its version alone; ARGV: version, TTL in millis
+    private static final RedisScript<Long> EVICT_SCRIPT = RedisScript.of(NEWER_GUARD
+            + "redis.call('DEL', KEYS[1])\n"
+            + "redis.call('HSET', KEYS[1], '" + VERSION_FIELD + "', ARGV[1])\n"
+            + "redis.call('PEXPIRE', KEYS[1], ARGV[2])\n"
+            + "return 1", Long.class);
+
+    private static final List<RedisScript<Long>> SCRIPTS = List.of(PUT_SCRIPT, SET_COUNTERS_SCRIPT, EVICT_SCRIPT);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final double ttlJitter;
+    private final double earlyRefreshBeta;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer getTimer;
+    private final Timer getAllTimer;
+    private final Timer indexTimer;
+
+    @Autowired
+    public UserProfileCache(RedisTemplate<String, Object> redisTemplate,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${user.cache.ttl-jitter:0.1}") double ttlJitter,
+                            @Value("${user.cache.early-refresh-beta:1.0}") double earlyRefreshBeta) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttlJitter = ttlJitter;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        // Same meter as the Caffeine caches report, so hit ratios line up per layer
+        this.hits = Counter.builder("cache.gets")
+                .tag("cache", "user-profile-cache")
+                .tag("result", "hit")
+                .description("Profile reads answered by Redis")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets")
+                .tag("cache", "user-profile-cache")
+                .tag("result", "miss")
+                .description("Profile reads not found in Redis")
+                .register(meterRegistry);
+        this.getTimer = readTimer(meterRegistry, "get");
+        this.getAllTimer = readTimer(meterRegistry, "get-all");
+        this.indexTimer = readTimer(meterRegistry, "index");
+    }
+
+    private static Timer readTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("user.cache.read.latency")
+                .tag("cache", "user-profile-cache")
+                .tag("operation", operation)
+                .description("Redis round trip and decoding of a profile cache read")
+                .register(meterRegistry);
+    }
+
+    static String key(Long id) {
+        return USER_CACHE_PREFIX + id;
+    }
+
+    // Usernames and emails are matched case-insensitively by MySQL, so the
+    // index keys are lower-cased to give the same answers.
+    static String indexKey(String prefix, String value) {
+        return prefix + value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The base TTL plus a random jitter, drawn per entry.
+     */
+    public Duration ttl() {
+        long base = TimeUnit.HOURS.toMillis(CACHE_TTL);
+        long jitter = (long) (base * ttlJitter);
+        return Duration.ofMillis(jitter > 0 ? base + ThreadLocalRandom.current().nextLong(jitter + 1) : base);
+    }
+
+    static Map<String, Object> toHash(UserResponseDto dto, long version, Duration ttl, long loadMillis) {
+        Map<String, Object> hash = new HashMap<>();
+        hash.put(VERSION_FIELD, version);
+        hash.put(EXPIRES_AT_FIELD, System.currentTimeMillis() + ttl.toMillis());
+        hash.put(LOAD_MILLIS_FIELD, Math.max(loadMillis, MIN_LOAD_MILLIS));
+        hash.put(PROFILE_FIELD, dto);
+        hash.put(FOLLOWERS_FIELD, dto.getFollowersCount() == null ? 0 : dto.getFollowersCount());
+        hash.put(FOLLOWING_FIELD, dto.getFollowingCount() == null ? 0 : dto.getFollowingCount());
+        hash.put(TWEETS_FIELD, dto.getTweetsCount() == null ? 0 : dto.getTweetsCount());
+        return hash;
+    }
+
+    /**
+     * Assembles a profile from its hash, or {@code null} if the hash is empty
+     * or incomplete. The counter fields win over the counters inside the
+     * encoded profile.
+     */
+    static UserResponseDto fromHash(Map<?, ?> hash, ObjectMapper objectMapper) {
+        Object profile = hash == null ? null : hash.get(PROFILE_FIELD);
+        if (profile == null) {
+            return null;
+        }
+        UserResponseDto dto = profile instanceof UserResponseDto
+                ? (UserResponseDto) profile
+                : objectMapper.convertValue(profile, UserResponseDto.class);
+        dto.setFollowersCount(counter(hash.get(FOLLOWERS_FIELD), dto.getFollowersCount()));
+        dto.setFollowingCount(counter(hash.get(FOLLOWING_FIELD), dto.getFollowingCount()));
+        dto.setTweetsCount(counter(hash.get(TWEETS_FIELD), dto.getTweetsCount()));
+        return dto;
+    }
+
+    private static Integer counter(Object value, Integer fallback) {
+        return value instanceof Number ? ((Number) value).intValue() : fallback;
+    }
+
+    /**
+     * Whether this read should reload the profile ahead of its expiry.
+     */
+    boolean isRefreshDue(Map<?, ?> hash) {
+        Object expiresAt = hash.get(EXPIRES_AT_FIELD);
+        Object loadMillis = hash.get(LOAD_MILLIS_FIELD);
+        if (!(expiresAt instanceof Number) || !(loadMillis instanceof Number) || earlyRefreshBeta <= 0) {
+            return false;
+        }
+        double rand = 1.0 - ThreadLocalRandom.current().nextDouble(); // (0, 1]
+        double gap = -((Number) loadMillis).doubleValue() * earlyRefreshBeta * Math.log(rand);
+        return System.currentTimeMillis() + gap >= ((Number) expiresAt).longValue();
+    }
+
+    public UserResponseDto get(Long id) {
+        return lookup(id).getUser();
+    }
+
+    /**
+     * Reads a profile and decides whether the caller should refresh it early.
+     */
+    public CachedProfile lookup(Long id) {
+        long start = System.nanoTime();
+        try {
+            Map<Object, Object> hash = redisTemplate.opsForHash().entries(key(id));
+            UserResponseDto user = fromHash(hash, objectMapper);
+            (user != null ? hits : misses).increment();
+            return new CachedProfile(user, user != null && isRefreshDue(hash));
+        } catch (Exception e) {
+            log.warn("Failed to read cached user {}", id, e);
+            misses.increment();
+            return new CachedProfile(null, false);
+        } finally {
+            getTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Reads many profiles in one pipeline. The result has one slot per id, in
+     * the same order, with {@code null} for misses.
+     */
+    public List<UserResponseDto> getAll(List<Long> ids) {
+        long start = System.nanoTime();
+        List<Object> hashes;
+        try {
+            hashes = readHashes(ids);
+        } catch (Exception e) {
+            // A legacy string entry fails the whole pipeline; read one by one instead
+            log.debug("Pipelined cache read failed, falling back to single reads", e);
+            List<UserResponseDto> users = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                users.add(get(id));
+            }
+            return users;
+        }
+        List<UserResponseDto> users = new ArrayList<>(ids.size());
+        int found = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            Object hash = i < hashes.size() ? hashes.get(i) : null;
+            UserResponseDto user = hash instanceof Map ? fromHash((Map<?, ?>) hash, objectMapper) : null;
+            found += user != null ? 1 : 0;
+            users.add(user);
+        }
+        hits.increment(found);
+        misses.increment(ids.size() - found);
+        getAllTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return users;
+    }
+
+    private List<Object> readHashes(List<Long> ids) {
+        return redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (Long id : ids) {
+                    ops.opsForHash().entries(key(id));
+                }
+                return null;
+            }
+        });
+    }
+
+    public boolean exists(Long id) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key(id)));
+    }
+
+    public Long lookupIndex(String prefix, String value) {
+        long start = System.nanoTime();
+        try {
+            Object id = redisTemplate.opsForValue().get(indexKey(prefix, value));
+            return id instanceof Number ? ((Number) id).longValue() : null;
+        } finally {
+            indexTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void putAll(Collection<User> users) {
+        putAll(users, 0);
+    }
+
+    /**
+     * Writes the profiles and their username/email index keys in one pipeline,
+     * each user in one script so readers never see a half-written profile,
+     * unless the cache already holds a newer version of the user.
+     * {@code loadMillis} is how long loading them took, which sizes the early
+     * refresh window.
+     */
+    public void putAll(Collection<User> users, long loadMillis) {
+        RedisSerializer<String> keySerializer = stringSerializer(redisTemplate.getKeySerializer());
+        RedisSerializer<String> hashKeySerializer = stringSerializer(redisTemplate.getHashKeySerializer());
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> hashValueSerializer = (RedisSerializer<Object>) redisTemplate.getHashValueSerializer();
+        pipelineScripts(connection -> {
+            for (User user : users) {
+                Duration ttl = ttl();
+                Map<String, Object> hash = toHash(new UserResponseDto(user), user.getVersion(), ttl, loadMillis);
+                byte[][] keysAndArgs = new byte[6 + hash.size() * 2][];
+                keysAndArgs[0] = keySerializer.serialize(key(user.getId()));
+                keysAndArgs[1] = keySerializer.serialize(indexKey(USERNAME_INDEX_PREFIX, user.getUsername()));
+                keysAndArgs[2] = keySerializer.serialize(indexKey(EMAIL_INDEX_PREFIX, user.getEmail()));
+                keysAndArgs[3] = numberArg(user.getVersion());
+                keysAndArgs[4] = numberArg(ttl.toMillis());
+                keysAndArgs[5] = valueSerializer.serialize(user.getId());
+                int i = 6;
+                for (Map.Entry<String, Object> field : hash.entrySet()) {
+                    keysAndArgs[i++] = hashKeySerializer.serialize(field.getKey());
+                    keysAndArgs[i++] = hashValueSerializer.serialize(field.getValue());
+                }
+                connection.scriptingCommands().evalSha(PUT_SCRIPT.getSha1(), ReturnType.INTEGER, 3, keysAndArgs);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Overwrites the counter fields of the cached profiles that exist with
+     * the users' current counters, one script per user in a single pipeline.
+     */
+    public void refreshCounters(Collection<User> users) {
+        RedisSerializer<String> keySerializer = stringSerializer(redisTemplate.getKeySerializer());
+        pipelineScripts(connection -> {
+            for (User user : users) {
+                setCounters(connection, keySerializer.serialize(key(user.getId())), user);
+            }
+            return null;
+        });
+    }
+
+    private static void setCounters(RedisConnection connection, byte[] key, User user) {
+        connection.scriptingCommands().evalSha(SET_COUNTERS_SCRIPT.getSha1(), ReturnType.INTEGER, 1, key,
+                numberArg(user.getVersion()),
+                counterArg(user.getFollowersCount()),
+                counterArg(user.getFollowingCount()),
+                counterArg(user.getTweetsCount()));
+    }
+
+    /**
+     * Runs a pipeline of {@code EVALSHA} calls, so each call sends the
+     * script's digest instead of its body. If Redis does not know a script
+     * (first use, restart, failover or {@code SCRIPT FLUSH}) the scripts are
+     * loaded and the whole pipeline is sent again; the version guard makes
+     * writes that already went through harmless to repeat.
+     */
+    private void pipelineScripts(RedisCallback<Object> writes) {
+        try {
+            redisTemplate.executePipelined(writes);
+        } catch (DataAccessException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                for (RedisScript<Long> script : SCRIPTS) {
+                    byte[] body = script.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+                    connection.scriptingCommands().scriptLoad(body);
+                }
+                return null;
+            });
+            log.info("Loaded the profile cache scripts into Redis");
+            redisTemplate.executePipelined(writes);
+        }
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] counterArg(Integer value) {
+        return numberArg(value == null ? 0 : value);
+    }
+
+    // Plain digits are also valid JSON, so the value serializer reads them back
+    private static byte[] numberArg(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisSerializer<String> stringSerializer(RedisSerializer<?> serializer) {
+        return (RedisSerializer<String>) serializer;
+    }
+
+    /**
+     * Drops the cached profiles and their index keys. Each profile is
+     * replaced by its version for a few minutes, so a load that read the
+     * user before the change cannot cache it again.
+     */
+    public void evictAll(Collection<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        List<String> indexKeys = new ArrayList<>(users.size() * 2);
+        for (User user : users) {
+            indexKeys.add(indexKey(USERNAME_INDEX_PREFIX, user.getUsername()));
+            indexKeys.add(indexKey(EMAIL_INDEX_PREFIX, user.getEmail()));
+        }
+        RedisSerializer<String> keySerializer = stringSerializer(redisTemplate.getKeySerializer());
+        byte[] ttl = numberArg(TOMBSTONE_TTL.toMillis());
+        pipelineScripts(connection -> {
+            for (User user : users) {
+                connection.scriptingCommands().evalSha(EVICT_SCRIPT.getSha1(), ReturnType.INTEGER, 1,
+                        keySerializer.serialize(key(user.getId())), numberArg(user.getVersion()), ttl);
+            }
+            return null;
+        });
+        redisTemplate.delete(indexKeys);
+    }
+
+    public static final class CachedProfile {
+
+        private final UserResponseDto user;
+        private final boolean refreshDue;
+
+        private CachedProfile(UserResponseDto user, boolean refreshDue) {
+            this.user = user;
+            this.refreshDue = refreshDue;
+        }
+
+        public UserResponseDto getUser() { return user; }
+
+        public boolean isRefreshDue() { return refreshDue; }
+    }
+}
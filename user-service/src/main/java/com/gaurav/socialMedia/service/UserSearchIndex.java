@@ -0,0 +1,450 @@
+package com.gaurav.socialMedia.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.gaurav.socialMedia.config.DataSourceRouting;
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+import com.gaurav.socialMedia.repository.StreamingQueries;
+import com.gaurav.socialMedia.repository.UserShards;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process inverted index over active users' username and full name.
+ * <p>
+ * Every field is split into words and indexed by trigram, so a query of three
+ * or more characters only looks at users sharing all of its trigrams.
+ * Candidates are verified against the text and ranked: exact username first,
+ * then username prefix, word prefix, and plain substring matches. Shorter
+ * queries read a list of users kept in rank order for every one and two
+ * character word prefix, so they cost the size of the page, not the number
+ * of matching users.
+ * <p>
+ * Loaded at startup by streaming the {@code users} table of every shard into
+ * a new index that replaces the current one once complete; changes applied
+ * meanwhile are replayed onto it first. Local changes are applied once the
+ * surrounding transaction commits, so a rollback leaves the index alone, and
+ * the user id is then broadcast on {@value #UPDATE_CHANNEL} so other
+ * instances reload that user, for this index and {@link UserAutocompleteIndex}
+ * alike. Messages carry the sending instance's id, so an instance skips its
+ * own instead of reading the user back from the primary.
+ * <p>
+ * Until the index is ready, {@link ShardedUserRepository} answers searches
+ * with the same matching: word prefixes below {@value #GRAM} characters
+ * (see {@link #matchesWordPrefixes}), substrings otherwise.
+ */
+@Component
+@Slf4j
+public class UserSearchIndex implements MessageListener {
+
+    public static final String UPDATE_CHANNEL = "search:user:update";
+
+    private static final int GRAM = 3;
+
+    private static final Comparator<Ranked> RANK = Comparator.comparingInt((Ranked r) -> -r.score)
+            .thenComparingInt(r -> r.usernameLength)
+            .thenComparingLong(r -> r.id);
+
+    // Replaced as a whole by rebuild(); changed under this
+    private volatile Index index = new Index();
+
+    // Users changed while a rebuild runs (empty = removed), guarded by this
+    private Map<Long, Optional<IndexedUser>> changedDuringRebuild;
+
+    private final DataSource dataSource;
+    private final ShardedUserRepository userRepository;
+    private final UserShards shards;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final UserAutocompleteIndex autocompleteIndex;
+
+    private volatile boolean ready;
+
+    // Tags this instance's update messages
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Autowired
+    public UserSearchIndex(DataSource dataSource,
+                           ShardedUserRepository userRepository,
+                           StringRedisTemplate stringRedisTemplate,
+                           UserAutocompleteIndex autocompleteIndex) {
+        this.dataSource = dataSource;
+        this.userRepository = userRepository;
+        this.shards = userRepository.shards();
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.autocompleteIndex = autocompleteIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Index fresh = new Index();
+        synchronized (this) {
+            changedDuringRebuild = new HashMap<>();
+        }
+        try {
+            StreamingQueries.forEachRow(dataSource, shards,
+                    "SELECT id, username, full_name FROM users WHERE is_active = true",
+                    (shard, rs) -> {
+                        // Skips copies left behind by a failed bucket move
+                        if (shards.shardOf(rs.getLong(1)) == shard) {
+                            fresh.put(indexed(rs.getLong(1), rs.getString(2), rs.getString(3)));
+                        }
+                    });
+            synchronized (this) {
+                // A streamed row can be older than a change applied while it was read
+                changedDuringRebuild.forEach((id, user) -> {
+                    fresh.remove(id);
+                    user.ifPresent(fresh::put);
+                });
+                index = fresh;
+                ready = true;
+            }
+            log.info("Indexed {} users for search in {} ms", fresh.users.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to build user search index, search will use the database", e);
+        } finally {
+            synchronized (this) {
+                changedDuringRebuild = null;
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Whether {@code query} matches the start of a word rather than any
+     * substring, since it is too short for trigrams.
+     */
+    public static boolean matchesWordPrefixes(String query) {
+        return normalize(query).length() < GRAM;
+    }
+
+    /**
+     * Returns the ids of matching users, best match first.
+     */
+    public List<Long> search(String query, int offset, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return List.of();
+        }
+
+        Index current = index;
+        if (matchesWordPrefixes(q)) {
+            return ranked(current, q, offset, limit);
+        }
+
+        Set<Long> candidates = candidates(current, q);
+        List<Scored> scored = new ArrayList<>();
+        for (Long id : candidates) {
+            IndexedUser user = current.users.get(id);
+            if (user != null) {
+                int score = user.score(q);
+                if (score > 0) {
+                    scored.add(new Scored(user, score));
+                }
+            }
+        }
+        scored.sort(Comparator.comparingInt((Scored s) -> -s.score)
+                .thenComparingInt(s -> s.user.username.length())
+                .thenComparing(s -> s.user.id));
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = offset; i < scored.size() && ids.size() < limit; i++) {
+            ids.add(scored.get(i).user.id);
+        }
+        return ids;
+    }
+
+    /**
+     * Reindexes (or removes, if inactive) a user changed by this instance and
+     * tells the other instances, once the surrounding transaction commits.
+     */
+    public void update(User user) {
+        afterCommit(() -> {
+            apply(user);
+            publish(user.getId());
+        });
+    }
+
+    private void apply(User user) {
+        if (Boolean.FALSE.equals(user.getIsActive())) {
+            remove(user.getId());
+        } else {
+            put(indexed(user.getId(), user.getUsername(), user.getFullName()));
+        }
+    }
+
+    private synchronized void put(IndexedUser user) {
+        index.put(user);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(user.id, Optional.of(user));
+        }
+    }
+
+    private synchronized void remove(long id) {
+        index.remove(id);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(id, Optional.empty());
+        }
+    }
+
+    private static List<Long> ranked(Index current, String q, int offset, int limit) {
+        NavigableSet<Ranked> ranked = current.prefixes.get(prefixKey(q));
+        if (ranked == null) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(Math.min(limit, 64));
+        Iterator<Ranked> it = ranked.iterator();
+        for (int skipped = 0; skipped < offset && it.hasNext(); skipped++) {
+            it.next();
+        }
+        while (it.hasNext() && ids.size() < limit) {
+            ids.add(it.next().id);
+        }
+        return ids;
+    }
+
+    private static Set<Long> candidates(Index current, String q) {
+        // Intersect starting from the rarest trigram
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(q)) {
+            Set<Long> ids = current.grams.get(gram);
+            if (ids == null) {
+                return Set.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private void publish(Long id) {
+        try {
+            stringRedisTemplate.convertAndSend(UPDATE_CHANNEL, instanceId + ":" + id);
+        } catch (Exception e) {
+            log.warn("Failed to publish search index update for user {}", id, e);
+        }
+    }
+
+    /**
+     * Runs {@code action} once the current transaction commits, and not at
+     * all if it rolls back; right away outside a transaction.
+     */
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        // "instanceId:userId"; this instance applied its own changes already
+        int separator = payload.indexOf(':');
+        if (payload.substring(0, Math.max(separator, 0)).equals(instanceId)) {
+            return;
+        }
+        try {
+            Long id = Long.valueOf(payload.substring(separator + 1).trim());
+            Optional<User> user = DataSourceRouting.onPrimary(() -> userRepository.findById(id));
+            if (user.isPresent()) {
+                apply(user.get());
+                autocompleteIndex.update(user.get());
+            } else {
+                remove(id);
+                autocompleteIndex.remove(id);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to apply search index update: {}", payload, e);
+        }
+    }
+
+    private static IndexedUser indexed(long id, String username, String fullName) {
+        return new IndexedUser(id, normalize(username), normalize(fullName));
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String prefixKey(String prefix) {
+        return "^" + prefix;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static final class IndexedUser {
+
+        private final long id;
+        private final String username;
+        private final String fullName;
+
+        private IndexedUser(long id, String username, String fullName) {
+            this.id = id;
+            this.username = username;
+            this.fullName = fullName;
+        }
+
+        private Set<String> grams() {
+            Set<String> keys = new HashSet<>();
+            keys.addAll(UserSearchIndex.grams(username));
+            keys.addAll(UserSearchIndex.grams(fullName));
+            return keys;
+        }
+
+        // The one and two character prefixes of every word
+        private Set<String> prefixes() {
+            Set<String> prefixes = new HashSet<>();
+            for (String field : new String[] {username, fullName}) {
+                for (String word : field.split("\\s+")) {
+                    for (int len = 1; len < GRAM && len <= word.length(); len++) {
+                        prefixes.add(word.substring(0, len));
+                    }
+                }
+            }
+            return prefixes;
+        }
+
+        private int score(String q) {
+            if (username.equals(q)) {
+                return 100;
+            }
+            if (username.startsWith(q)) {
+                return 50;
+            }
+            if (fullName.startsWith(q) || fullName.contains(" " + q)) {
+                return 30;
+            }
+            if (username.contains(q)) {
+                return 20;
+            }
+            if (fullName.contains(q)) {
+                return 10;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Postings by trigram, and users in rank order by short word prefix.
+     * Read concurrently; changed only under the index's lock, or before
+     * it is published.
+     */
+    private static final class Index {
+
+        private final Map<Long, IndexedUser> users = new ConcurrentHashMap<>();
+        private final Map<String, Set<Long>> grams = new ConcurrentHashMap<>();
+        private final Map<String, NavigableSet<Ranked>> prefixes = new ConcurrentHashMap<>();
+
+        void put(IndexedUser user) {
+            remove(user.id);
+            users.put(user.id, user);
+            for (String gram : user.grams()) {
+                grams.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(user.id);
+            }
+            for (String prefix : user.prefixes()) {
+                prefixes.computeIfAbsent(prefixKey(prefix), k -> new ConcurrentSkipListSet<>(RANK))
+                        .add(new Ranked(user, prefix));
+            }
+        }
+
+        void remove(long id) {
+            IndexedUser previous = users.remove(id);
+            if (previous == null) {
+                return;
+            }
+            for (String gram : previous.grams()) {
+                Set<Long> ids = grams.get(gram);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        grams.remove(gram, ids);
+                    }
+                }
+            }
+            for (String prefix : previous.prefixes()) {
+                NavigableSet<Ranked> ranked = prefixes.get(prefixKey(prefix));
+                if (ranked != null) {
+                    // Equal by rank, which is the same for the same user and prefix
+                    ranked.remove(new Ranked(previous, prefix));
+                    if (ranked.isEmpty()) {
+                        prefixes.remove(prefixKey(prefix), ranked);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A user's rank for one short prefix, as {@link #search} would score it.
+     */
+    private static final class Ranked {
+
+        private final long id;
+        private final int score;
+        private final int usernameLength;
+
+        private Ranked(IndexedUser user, String prefix) {
+            this.id = user.id;
+            this.score = user.score(prefix);
+            this.usernameLength = user.username.length();
+        }
+    }
+
+    private static final class Scored {
+
+        private final IndexedUser user;
+        private final int score;
+
+        private Scored(IndexedUser user, int score) {
+            this.user = user;
+            this.score = score;
+        }
+    }
+}
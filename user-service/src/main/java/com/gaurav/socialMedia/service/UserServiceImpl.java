@@ -1,51 +1,149 @@
 package com.gaurav.socialMedia.service;
 
+import static com.gaurav.socialMedia.service.UserProfileCache.EMAIL_INDEX_PREFIX;
+import static com.gaurav.socialMedia.service.UserProfileCache.USERNAME_INDEX_PREFIX;
+
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gaurav.socialMedia.Entity.CounterOperationDto;
+import com.gaurav.socialMedia.Entity.CounterOperationResultDto;
+import com.gaurav.socialMedia.Entity.CounterType;
 import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserPageDto;
 import com.gaurav.socialMedia.Entity.UserRegistrationDto;
+import com.gaurav.socialMedia.Entity.UserCounterDelta;
+import com.gaurav.socialMedia.Entity.UserOutboxEvent;
 import com.gaurav.socialMedia.Entity.UserResponseDto;
+import com.gaurav.socialMedia.Entity.UserSuggestionDto;
+import com.gaurav.socialMedia.config.DataSourceRouting;
+import com.gaurav.socialMedia.exception.TooManyRequestsException;
 import com.gaurav.socialMedia.exception.UserNotFoundException;
-import com.gaurav.socialMedia.repository.UserRepository;
-
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+import com.gaurav.socialMedia.repository.UserCounterRepository;
+import com.gaurav.socialMedia.repository.UserOutboxRepository;
+import com.gaurav.socialMedia.repository.UserShards;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @Slf4j
 public class UserServiceImpl implements UserServiceInterface {
 
-    private final UserRepository userRepository;
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final PasswordEncoder passwordEncoder;
+    private final ShardedUserRepository userRepository;
+    private final UserShards shards;
+    private final UserProfileCache profileCache;
+    private final PasswordHashingService passwordHashingService;
+    private final TransactionTemplate readOnlyTemplate;
+    private final UserCounterAggregator counterAggregator;
+    private final UserCounterRepository counterRepository;
+    private final UserNearCache nearCache;
+    private final UserAvailabilityFilter availabilityFilter;
+    private final EntityManager entityManager;
+    private final UserSearchIndex searchIndex;
+    private final UserAutocompleteIndex autocompleteIndex;
+    private final UserLoadCoalescer loadCoalescer;
+    private final UserNegativeCache negativeCache;
+    private final UserOutboxRepository outboxRepository;
+    private final UserBulkWriter bulkWriter;
+    private final Validator validator;
+    private final Timer getUserByIdTimer;
+    private final Timer getUsersByIdsTimer;
+    private final Timer getUserByUsernameTimer;
+    private final Timer searchUsersTimer;
+    private final Timer existsByUsernameTimer;
  
     private ObjectMapper objectMapper; 
 
-    private static final String USER_CACHE_PREFIX = "cache:user:";
-    private static final long CACHE_TTL = 1; // 1 hour
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository,
-                           RedisTemplate<String, Object> redisTemplate,
-                           PasswordEncoder passwordEncoder,ObjectMapper objectMapper) {
+    public UserServiceImpl(ShardedUserRepository userRepository,
+                           UserProfileCache profileCache,
+                           PasswordHashingService passwordHashingService,
+                           PlatformTransactionManager transactionManager,
+                           ObjectMapper objectMapper,
+                           UserCounterAggregator counterAggregator,
+                           UserCounterRepository counterRepository,
+                           UserNearCache nearCache,
+                           UserAvailabilityFilter availabilityFilter,
+                           EntityManager entityManager,
+                           UserSearchIndex searchIndex,
+                           UserAutocompleteIndex autocompleteIndex,
+                           UserLoadCoalescer loadCoalescer,
+                           UserNegativeCache negativeCache,
+                           UserOutboxRepository outboxRepository,
+                           UserBulkWriter bulkWriter,
+                           Validator validator,
+                           MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
-        this.redisTemplate = redisTemplate;
-        this.passwordEncoder = passwordEncoder;
+        this.shards = userRepository.shards();
+        this.profileCache = profileCache;
+        this.passwordHashingService = passwordHashingService;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.counterAggregator = counterAggregator;
+        this.counterRepository = counterRepository;
+        this.nearCache = nearCache;
+        this.availabilityFilter = availabilityFilter;
+        this.entityManager = entityManager;
+        this.searchIndex = searchIndex;
+        this.autocompleteIndex = autocompleteIndex;
+        this.loadCoalescer = loadCoalescer;
+        this.negativeCache = negativeCache;
+        this.outboxRepository = outboxRepository;
+        this.bulkWriter = bulkWriter;
+        this.validator = validator;
         this.objectMapper=objectMapper;
+        this.getUserByIdTimer = methodTimer(meterRegistry, "getUserById");
+        this.getUsersByIdsTimer = methodTimer(meterRegistry, "getUsersByIds");
+        this.getUserByUsernameTimer = methodTimer(meterRegistry, "getUserByUsername");
+        this.searchUsersTimer = methodTimer(meterRegistry, "searchUsers");
+        this.existsByUsernameTimer = methodTimer(meterRegistry, "existsByUsername");
     }
 
+    // Hot read paths record into prebuilt timers with nanoTime deltas, so
+    // timing a call allocates nothing.
+    private static Timer methodTimer(MeterRegistry meterRegistry, String method) {
+        return Timer.builder("user.service.latency")
+                .tag("method", method)
+                .description("Time spent in a UserServiceImpl read path, caches included")
+                .register(meterRegistry);
+    }
+
+    // Not @Transactional: the BCrypt hash is computed on the hashing pool
+    // before the transaction opens, so no DB connection is held meanwhile.
     @Override
-    @Transactional // Only on methods that write data
     public UserResponseDto registerUser(UserRegistrationDto registrationDto) {
         log.info("Attempting to register user with username: {}", registrationDto.getUsername());
         
@@ -57,79 +155,275 @@ public class UserServiceImpl implements UserServiceInterface {
             throw new RuntimeException("Email already exists");
         }
 
+        String passwordHash = passwordHashingService.hash(registrationDto.getPassword());
+
         try {
             User user = new User();
             user.setUsername(registrationDto.getUsername());
             user.setEmail(registrationDto.getEmail());
-            user.setPassword(passwordEncoder.encode(registrationDto.getPassword()));
+            user.setPassword(passwordHash);
             user.setFullName(registrationDto.getFullName());
             user.setBio(registrationDto.getBio());
 
-            User savedUser = userRepository.save(user);
-            // Removed flush() - let Spring manage transactions
+            // The same insert path as imports, which also claims the names when users are sharded
+            User savedUser = bulkWriter.insert(user);
+            availabilityFilter.add(savedUser.getUsername(), savedUser.getEmail());
+            negativeCache.invalidate(savedUser.getId(), savedUser.getUsername());
+            searchIndex.update(savedUser);
+            autocompleteIndex.update(savedUser);
             
             log.info("User registered successfully with ID: {} and username: {}", 
                     savedUser.getId(), savedUser.getUsername());
             
-            UserResponseDto response = new UserResponseDto(savedUser);
-            cacheUser(savedUser); // Cache after successful save
-            
-            return response;
+            // Cached by the outbox relay once committed
+            return new UserResponseDto(savedUser);
             
+        } catch (TooManyRequestsException e) {
+            // A move of the new user's bucket outlasted the write wait
+            throw e;
+        } catch (DataIntegrityViolationException e) {
+            // Taken since the checks above, or the availability filter missed an add
+            throw new RuntimeException(duplicateMessage(registrationDto), e);
         } catch (Exception e) {
             log.error("Error registering user with username: {}", registrationDto.getUsername(), e);
             throw new RuntimeException("Failed to register user: " + e.getMessage(), e);
         }
     }
 
+    private String duplicateMessage(UserRegistrationDto registrationDto) {
+        if (DataSourceRouting.onPrimary(() -> userRepository.existsByUsername(registrationDto.getUsername()))) {
+            return "Username already exists";
+        }
+        if (DataSourceRouting.onPrimary(() -> userRepository.existsByEmail(registrationDto.getEmail()))) {
+            return "Email already exists";
+        }
+        return "Username or email already exists";
+    }
+
+    // Inserts with JDBC batching; uniqueness is left to the database, so a
+    // duplicate username or email fails its chunk. Passwords are hashed on
+    // the bulk pool, so an import cannot take every core from signups.
+    @Override
+    public List<UserResponseDto> importUsers(List<UserRegistrationDto> registrations) {
+        log.info("Importing {} users", registrations.size());
+        
+        List<String> passwords = new ArrayList<>(registrations.size());
+        for (UserRegistrationDto registration : registrations) {
+            passwords.add(registration.getPassword());
+        }
+        List<String> passwordHashes = passwordHashingService.hashAll(passwords);
+        
+        List<User> users = new ArrayList<>(registrations.size());
+        for (int i = 0; i < registrations.size(); i++) {
+            UserRegistrationDto registration = registrations.get(i);
+            User user = new User();
+            user.setUsername(registration.getUsername());
+            user.setEmail(registration.getEmail());
+            user.setPassword(passwordHashes.get(i));
+            user.setFullName(registration.getFullName());
+            user.setBio(registration.getBio());
+            users.add(user);
+        }
+        
+        try {
+            List<User> saved = bulkWriter.insertAll(users);
+            for (User user : saved) {
+                availabilityFilter.add(user.getUsername(), user.getEmail());
+                negativeCache.invalidate(user.getId(), user.getUsername());
+                searchIndex.update(user);
+                autocompleteIndex.update(user);
+            }
+            log.info("Imported {} users", saved.size());
+            return saved.stream().map(UserResponseDto::new).collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("Error importing {} users", registrations.size(), e);
+            throw new RuntimeException("Failed to import users: " + e.getMessage(), e);
+        }
+    }
+
     @Override
-    @Transactional(readOnly = true)
     public Optional<UserResponseDto> getUserById(Long id) {
+        long start = System.nanoTime();
+        try {
+            return findUserById(id);
+        } finally {
+            getUserByIdTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Not @Transactional: requests coalesced onto another request's load
+    // should not hold a DB connection while they wait.
+    private Optional<UserResponseDto> findUserById(Long id) {
         log.debug("Getting user by ID: {}", id);
         
-        String cacheKey = USER_CACHE_PREFIX + id;
-        Object cachedUser = redisTemplate.opsForValue().get(cacheKey);
+        UserResponseDto nearCached = nearCache.get(id);
+        if (nearCached != null) {
+            log.debug("User found in near cache for ID: {}", id);
+            return Optional.of(nearCached);
+        }
 
-        if (cachedUser != null) {
+        if (negativeCache.isMissingId(id)) {
+            log.debug("User recently not found for ID: {}", id);
+            return Optional.empty();
+        }
+
+        UserProfileCache.CachedProfile cached = profileCache.lookup(id);
+        UserResponseDto cachedUser = cached.getUser();
+
+        if (cachedUser != null && !cached.isRefreshDue()) {
             log.debug("User found in cache for ID: {}", id);
-            UserResponseDto dto = objectMapper.convertValue(cachedUser, UserResponseDto.class);
-            return Optional.of(dto);
+            nearCache.put(id, cachedUser);
+            return Optional.of(cachedUser);
       }
 
-        try {
-            Optional<User> userOpt = userRepository.findById(id);
-            if (userOpt.isPresent()) {
-                UserResponseDto userDto = new UserResponseDto(userOpt.get());
-                redisTemplate.opsForValue().set(cacheKey, userDto, CACHE_TTL, TimeUnit.HOURS);
-               log.debug("User found and cached for ID: {}", id);
-                return Optional.of(userDto);
+        if (cachedUser != null) {
+            log.debug("Refreshing cached user {} ahead of expiry", id);
+            try {
+                return loadCoalescer.load(id, () -> loadUser(id));
+            } catch (Exception e) {
+                log.warn("Early refresh failed for user {}, serving cached copy", id, e);
+                return Optional.of(cachedUser);
             }
-            
-            log.debug("User not found for ID: {}", id);
-            return Optional.empty();
-            
+        }
+
+        try {
+            return loadCoalescer.load(id, () -> loadUser(id));
         } catch (Exception e) {
             log.error("Error getting user by ID: {}", id, e);
             throw new RuntimeException("Failed to get user by ID: " + e.getMessage(), e);
         }
     }
 
+    // Reads that fill the shared caches stay on the primary, so a lagging
+    // replica cannot put a stale profile (or a stale miss) back for an hour
+    private Optional<UserResponseDto> loadUser(Long id) {
+        long generation = negativeCache.generation();
+        long start = System.currentTimeMillis();
+        Optional<User> userOpt = DataSourceRouting.onPrimary(() -> userRepository.findById(id));
+        if (userOpt.isPresent()) {
+            UserResponseDto userDto = new UserResponseDto(userOpt.get());
+            cacheUsers(List.of(userOpt.get()), System.currentTimeMillis() - start);
+            log.debug("User found and cached for ID: {}", id);
+            return Optional.of(userDto);
+        }
+        
+        log.debug("User not found for ID: {}", id);
+        negativeCache.putMissingId(id, generation);
+        return Optional.empty();
+    }
+
+    @Override
+    public List<UserResponseDto> getUsersByIds(List<Long> ids) {
+        long start = System.nanoTime();
+        try {
+            return findUsersByIds(ids);
+        } finally {
+            getUsersByIdsTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Not @Transactional: a fully cached batch should not check out a DB connection
+    private List<UserResponseDto> findUsersByIds(List<Long> ids) {
+        log.debug("Getting {} users by ID", ids.size());
+        
+        Map<Long, UserResponseDto> found = new HashMap<>();
+        List<Long> remaining = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            UserResponseDto nearCached = nearCache.get(id);
+            if (nearCached != null) {
+                found.put(id, nearCached);
+            } else {
+                remaining.add(id);
+            }
+        }
+        
+        List<Long> misses = remaining;
+        if (!remaining.isEmpty()) {
+            misses = new ArrayList<>();
+            try {
+                List<UserResponseDto> cached = profileCache.getAll(remaining);
+                for (int i = 0; i < remaining.size(); i++) {
+                    UserResponseDto dto = cached.get(i);
+                    if (dto != null) {
+                        nearCache.put(remaining.get(i), dto);
+                        found.put(remaining.get(i), dto);
+                    } else {
+                        misses.add(remaining.get(i));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Failed to read {} users from cache", remaining.size(), e);
+                misses = remaining;
+            }
+        }
+        
+        if (!misses.isEmpty()) {
+            try {
+                long start = System.currentTimeMillis();
+                List<Long> missingIds = misses;
+                List<User> users = DataSourceRouting.onPrimary(() -> userRepository.findAllById(missingIds));
+                for (User user : users) {
+                    found.put(user.getId(), new UserResponseDto(user));
+                }
+                cacheUsers(users, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                log.error("Error getting {} users by ID", misses.size(), e);
+                throw new RuntimeException("Failed to get users by ID: " + e.getMessage(), e);
+            }
+        }
+        log.debug("Batch lookup: {} requested, {} from database", ids.size(), misses.size());
+        
+        List<UserResponseDto> results = new ArrayList<>(found.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            UserResponseDto dto = found.get(id);
+            if (dto != null) {
+                results.add(dto);
+            }
+        }
+        return results;
+    }
+
+    // Not @Transactional: with shards, each lookup opens a transaction on its own shard
     @Override
-    @Transactional(readOnly = true)
     public Optional<UserResponseDto> getUserByUsername(String username) {
+        long start = System.nanoTime();
+        try {
+            return findUserByUsername(username);
+        } finally {
+            getUserByUsernameTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Optional<UserResponseDto> findUserByUsername(String username) {
         log.debug("Getting user by username: {}", username);
         
+        if (negativeCache.isMissingUsername(username)) {
+            log.debug("User recently not found for username: {}", username);
+            return Optional.empty();
+        }
+        
+        long generation = negativeCache.generation();
+        Long indexedId = lookupIndex(USERNAME_INDEX_PREFIX, username);
+        if (indexedId != null) {
+            Optional<UserResponseDto> indexed = getUserById(indexedId);
+            if (indexed.isPresent() && username.equalsIgnoreCase(indexed.get().getUsername())) {
+                log.debug("User found via username index for username: {}", username);
+                return indexed;
+            }
+        }
+        
         try {
-            Optional<User> user = userRepository.findByUsername(username);
+            long start = System.currentTimeMillis();
+            Optional<User> user = DataSourceRouting.onPrimary(() -> userRepository.findByUsername(username));
             
             if (user.isPresent()) {
                 log.debug("User found for username: {}", username);
                 UserResponseDto response = new UserResponseDto(user.get());
-                System.out.println(response);
-                cacheUser(user.get());
+                cacheUsers(List.of(user.get()), System.currentTimeMillis() - start);
                 return Optional.of(response);
             } else {
                 log.debug("User not found for username: {}", username);
+                negativeCache.putMissingUsername(username, generation);
                 return Optional.empty();
             }
             
@@ -139,49 +433,98 @@ public class UserServiceImpl implements UserServiceInterface {
         }
     }
 
+    // The transaction is opened on the user's shard by UserShards
     @Override
-    @Transactional
     public UserResponseDto updateUser(Long id, UserRegistrationDto updateDto) {
         log.info("Updating user with ID: {}", id);
         
-        User user = getUserOrThrow(id);
+        User updatedUser = shards.writeUser(id, () -> {
+            User user = getUserOrThrow(id);
 
-        if (updateDto.getFullName() != null) {
-            user.setFullName(updateDto.getFullName());
-        }
-        if (updateDto.getBio() != null) {
-            user.setBio(updateDto.getBio());
-        }
+            if (updateDto.getFullName() != null) {
+                user.setFullName(updateDto.getFullName());
+            }
+            if (updateDto.getBio() != null) {
+                user.setBio(updateDto.getBio());
+            }
 
-        User updatedUser = userRepository.save(user);
-        cacheUser(updatedUser);
+            User saved = userRepository.local().save(user);
+            userRepository.local().incrementVersion(id);
+            outboxRepository.append(id, UserOutboxEvent.Type.USER_CHANGED);
+            searchIndex.update(saved);
+            autocompleteIndex.update(saved);
+            return saved;
+        });
         log.info("Updated user ID: {}", updatedUser.getId());
 
         return new UserResponseDto(updatedUser);
     }
 
     @Override
-    @Transactional
     public void deleteUser(Long id) {
         log.info("Deactivating user with ID: {}", id);
         
-        User user = getUserOrThrow(id);
-        user.setIsActive(false);
-        userRepository.save(user);
-        redisTemplate.delete(USER_CACHE_PREFIX + id);
+        shards.writeUser(id, () -> {
+            User user = getUserOrThrow(id);
+            user.setIsActive(false);
+            userRepository.local().save(user);
+            userRepository.local().incrementVersion(id);
+            searchIndex.update(user);
+            autocompleteIndex.update(user);
+            outboxRepository.append(id, UserOutboxEvent.Type.USER_DEACTIVATED);
+            return user;
+        });
         log.info("User deactivated: {}", id);
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public List<UserResponseDto> searchUsers(String query) {
+    public List<UserResponseDto> searchUsers(String query, int page, int size) {
+        long start = System.nanoTime();
+        try {
+            return findUsers(query, page, size);
+        } finally {
+            searchUsersTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private List<UserResponseDto> findUsers(String query, int page, int size) {
         log.debug("Searching users with query: {}", query);
         
+        int pageSize = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+        int offset = Math.max(0, page) * pageSize;
+        
         try {
-            return userRepository.searchUsers(query)
-                    .stream()
-                    .map(UserResponseDto::new)
-                    .collect(Collectors.toList());
+            if (!searchIndex.isReady()) {
+                // Same matching as the index, in id order
+                String q = query == null ? "" : query.trim();
+                if (q.isEmpty()) {
+                    return List.of();
+                }
+                List<User> users = UserSearchIndex.matchesWordPrefixes(q)
+                        ? userRepository.searchUsersByWordPrefix(q, Math.max(0, page), pageSize)
+                        : userRepository.searchUsers(q, Math.max(0, page), pageSize);
+                return users.stream()
+                        .map(UserResponseDto::new)
+                        .collect(Collectors.toList());
+            }
+            
+            List<Long> ids = searchIndex.search(query, offset, pageSize);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            // One primary key lookup for the page, returned in ranked order
+            Map<Long, User> found = new HashMap<>();
+            for (User user : userRepository.findAllById(ids)) {
+                found.put(user.getId(), user);
+            }
+            List<UserResponseDto> results = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                User user = found.get(id);
+                if (user != null) {
+                    results.add(new UserResponseDto(user));
+                }
+            }
+            return results;
         } catch (Exception e) {
             log.error("Error searching users with query: {}", query, e);
             throw new RuntimeException("Failed to search users: " + e.getMessage(), e);
@@ -189,26 +532,82 @@ public class UserServiceImpl implements UserServiceInterface {
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public List<UserResponseDto> getAllActiveUsers() {
-        log.debug("Getting all active users");
+    public List<UserSuggestionDto> autocomplete(String prefix, int limit) {
+        return autocompleteIndex.suggest(prefix, limit);
+    }
+
+    @Override
+    public UserPageDto getActiveUsers(String cursor, int limit) {
+        log.debug("Getting active users after cursor: {}", cursor);
         
-        try {
-            return userRepository.findActiveUsers()
-                    .stream()
-                    .map(UserResponseDto::new)
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            log.error("Error getting all active users", e);
-            throw new RuntimeException("Failed to get active users: " + e.getMessage(), e);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page exists
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        
+        List<User> users;
+        if (cursor == null || cursor.isBlank()) {
+            users = userRepository.findActiveUsersFirstPage(pageable);
+        } else {
+            ActiveUserCursor position = ActiveUserCursor.decode(cursor);
+            users = userRepository.findActiveUsersAfter(position.createdAt, position.id, pageable);
+        }
+        
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            User last = users.get(pageSize - 1);
+            nextCursor = ActiveUserCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        
+        List<UserResponseDto> page = users.stream()
+                .map(UserResponseDto::new)
+                .collect(Collectors.toList());
+        return new UserPageDto(page, nextCursor);
+    }
+
+    @Override
+    public void streamActiveUsers(Consumer<UserResponseDto> consumer) {
+        log.debug("Streaming all active users");
+        
+        if (shards.isSharded()) {
+            // A merged keyset walk, one page from every shard at a time
+            String cursor = null;
+            do {
+                UserPageDto page = getActiveUsers(cursor, MAX_PAGE_SIZE);
+                page.getUsers().forEach(consumer);
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+            return;
         }
+        readOnlyTemplate.executeWithoutResult(status -> {
+            try (Stream<User> users = userRepository.local().streamActiveUsers()) {
+                users.forEach(user -> {
+                    consumer.accept(new UserResponseDto(user));
+                    // Keep the persistence context from growing with every streamed row
+                    entityManager.detach(user);
+                });
+            }
+        });
     }
 
     @Override
-    @Transactional(readOnly = true)
     public boolean existsByUsername(String username) {
+        long start = System.nanoTime();
+        try {
+            return isUsernameTaken(username);
+        } finally {
+            existsByUsernameTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean isUsernameTaken(String username) {
+        if (availabilityFilter.isUsernameDefinitelyFree(username)) {
+            return false;
+        }
+        if (lookupIndex(USERNAME_INDEX_PREFIX, username) != null) {
+            return true;
+        }
         try {
-        	System.out.println(username);
             return userRepository.existsByUsername(username);
         } catch (Exception e) {
             log.error("Error checking if username exists: {}", username, e);
@@ -217,8 +616,13 @@ public class UserServiceImpl implements UserServiceInterface {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public boolean existsByEmail(String email) {
+        if (availabilityFilter.isEmailDefinitelyFree(email)) {
+            return false;
+        }
+        if (lookupIndex(EMAIL_INDEX_PREFIX, email) != null) {
+            return true;
+        }
         try {
             return userRepository.existsByEmail(email);
         } catch (Exception e) {
@@ -227,71 +631,180 @@ public class UserServiceImpl implements UserServiceInterface {
         }
     }
 
+    // Counter updates are write-behind: they are coalesced per user by
+    // UserCounterAggregator and applied to the database in batches.
+
     @Override
-    @Transactional
     public void incrementFollowerCount(Long userId) {
-        User user = getUserOrThrow(userId);
-        user.setFollowersCount(user.getFollowersCount() + 1);
-        userRepository.save(user);
-        cacheUser(user);
+        ensureUserExists(userId);
+        counterAggregator.record(userId, CounterType.FOLLOWERS, 1);
     }
 
     @Override
-    @Transactional
     public void decrementFollowerCount(Long userId) {
-        User user = getUserOrThrow(userId);
-        user.setFollowersCount(Math.max(0, user.getFollowersCount() - 1));
-        userRepository.save(user);
-        cacheUser(user);
+        ensureUserExists(userId);
+        counterAggregator.record(userId, CounterType.FOLLOWERS, -1);
     }
 
     @Override
-    @Transactional
     public void incrementFollowingCount(Long userId) {
-        User user = getUserOrThrow(userId);
-        user.setFollowingCount(user.getFollowingCount() + 1);
-        userRepository.save(user);
-        cacheUser(user);
+        ensureUserExists(userId);
+        counterAggregator.record(userId, CounterType.FOLLOWING, 1);
     }
 
     @Override
-    @Transactional
     public void decrementFollowingCount(Long userId) {
-        User user = getUserOrThrow(userId);
-        user.setFollowingCount(Math.max(0, user.getFollowingCount() - 1));
-        userRepository.save(user);
-        cacheUser(user);
+        ensureUserExists(userId);
+        counterAggregator.record(userId, CounterType.FOLLOWING, -1);
     }
 
     @Override
-    @Transactional
     public void incrementTweetCount(Long userId) {
-        User user = getUserOrThrow(userId);
-        user.setTweetsCount(user.getTweetsCount() + 1);
-        userRepository.save(user);
-        cacheUser(user);
+        ensureUserExists(userId);
+        counterAggregator.record(userId, CounterType.TWEETS, 1);
     }
 
-    @Transactional(readOnly = true)
+    @Override
+    public List<CounterOperationResultDto> applyCounterOperations(List<CounterOperationDto> operations) {
+        log.info("Applying batch of {} counter operations", operations.size());
+
+        // Each operation is checked on its own; an invalid one never reaches the shard batch
+        List<String> invalid = new ArrayList<>(operations.size());
+        Set<Long> requestedIds = new HashSet<>();
+        for (CounterOperationDto op : operations) {
+            Set<ConstraintViolation<CounterOperationDto>> violations = validator.validate(op);
+            invalid.add(violations.isEmpty() ? null : violations.iterator().next().getMessage());
+            if (violations.isEmpty()) {
+                requestedIds.add(op.getUserId());
+            }
+        }
+        Set<Long> existingIds = requestedIds.isEmpty()
+                ? Set.of()
+                : new HashSet<>(userRepository.findExistingIds(requestedIds));
+
+        // Collapse all operations for the same user into one row update; the
+        // TreeMap keeps the batch in id order so row locks are taken consistently.
+        TreeMap<Long, UserCounterDelta> deltas = new TreeMap<>();
+        List<CounterOperationResultDto> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            CounterOperationDto op = operations.get(i);
+            if (invalid.get(i) != null) {
+                results.add(new CounterOperationResultDto(i, op, CounterOperationResultDto.Status.INVALID,
+                        invalid.get(i)));
+                continue;
+            }
+            if (!existingIds.contains(op.getUserId())) {
+                results.add(new CounterOperationResultDto(i, op, CounterOperationResultDto.Status.USER_NOT_FOUND,
+                        "User not found with id: " + op.getUserId()));
+                continue;
+            }
+            deltas.merge(op.getUserId(), UserCounterDelta.of(op.getCounter(), op.getDelta()), UserCounterDelta::plus);
+            results.add(new CounterOperationResultDto(i, op, CounterOperationResultDto.Status.APPLIED, null));
+        }
+
+        if (deltas.isEmpty()) {
+            return results;
+        }
+
+        // One transaction per shard; a shard that fails only fails its own users
+        for (Map.Entry<Integer, List<Long>> group : shards.group(deltas.keySet()).entrySet()) {
+            TreeMap<Long, UserCounterDelta> shardDeltas = new TreeMap<>();
+            for (Long userId : group.getValue()) {
+                shardDeltas.put(userId, deltas.get(userId));
+            }
+            try {
+                shards.write(group.getKey(), shardDeltas.keySet(), () -> {
+                    counterRepository.applyDeltas(shardDeltas);
+                    outboxRepository.append(shardDeltas.keySet(), UserOutboxEvent.Type.COUNTERS_CHANGED);
+                    return null;
+                });
+            } catch (Exception e) {
+                log.error("Error applying counter batch for {} users", shardDeltas.size(), e);
+                for (CounterOperationResultDto result : results) {
+                    if (result.getStatus() == CounterOperationResultDto.Status.APPLIED
+                            && shardDeltas.containsKey(result.getUserId())) {
+                        result.setStatus(CounterOperationResultDto.Status.FAILED);
+                        result.setMessage("Failed to apply counter update: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        return results;
+    }
+
+    private void ensureUserExists(Long id) {
+        if (profileCache.exists(id)) {
+            return;
+        }
+        if (!userRepository.existsById(id)) {
+            throw new UserNotFoundException("User not found with id: " + id);
+        }
+    }
+
+    // Runs inside the write transaction on the user's shard
     private User getUserOrThrow(Long id) {
-        return userRepository.findById(id)
+        return userRepository.local().findById(id)
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
     }
 
-    private void cacheUser(User user) {
+    /**
+     * Back-fills the cache with users just read from the database: Redis in
+     * one pipeline, and the local near cache directly. Writes never call this;
+     * their cache updates go through the outbox.
+     */
+    private void cacheUsers(Collection<User> users, long loadMillis) {
         try {
-        	System.out.println("User: " + user);
-        	System.out.println(USER_CACHE_PREFIX  + user.getId());
+            profileCache.putAll(users, loadMillis);
+            for (User user : users) {
+                nearCache.put(user.getId(), new UserResponseDto(user));
+            }
+            log.debug("Cached {} users in one pipeline", users.size());
+        } catch (Exception e) {
+            log.warn("Failed to cache {} users", users.size(), e);
+        }
+    }
 
-            String cacheKey = USER_CACHE_PREFIX + user.getId();
-            System.out.println(cacheKey);
-            UserResponseDto userDto = new UserResponseDto(user);
-            
-            redisTemplate.opsForValue().set(cacheKey, userDto, CACHE_TTL, TimeUnit.HOURS);
-            log.debug("User cached with key: {}", cacheKey);
+    private Long lookupIndex(String prefix, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return profileCache.lookupIndex(prefix, value);
         } catch (Exception e) {
-            log.warn("Failed to cache user with ID: {}", user.getId(), e);
-            // Don't throw exception - caching failure shouldn't break the flow
+            log.warn("Failed to read cache index for {}", value, e);
+            return null;
+        }
+    }
+
+    /**
+     * Keyset position in the {@code (created_at DESC, id DESC)} ordering,
+     * passed to clients as an opaque base64url token.
+     */
+    private static final class ActiveUserCursor {
+
+        private final LocalDateTime createdAt;
+        private final Long id;
+
+        private ActiveUserCursor(LocalDateTime createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        static String encode(LocalDateTime createdAt, Long id) {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static ActiveUserCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new ActiveUserCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.valueOf(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
         }
     }
-}
\ No newline at end of file
+}
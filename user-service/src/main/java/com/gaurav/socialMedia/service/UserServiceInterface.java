@@ -5,25 +5,38 @@ package com.gaurav.socialMedia.service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import com.gaurav.socialMedia.Entity.CounterOperationDto;
+import com.gaurav.socialMedia.Entity.CounterOperationResultDto;
+import com.gaurav.socialMedia.Entity.UserPageDto;
 import com.gaurav.socialMedia.Entity.UserRegistrationDto;
 import com.gaurav.socialMedia.Entity.UserResponseDto;
+import com.gaurav.socialMedia.Entity.UserSuggestionDto;
 
 public interface UserServiceInterface {
     
     UserResponseDto registerUser(UserRegistrationDto registrationDto);
     
+    List<UserResponseDto> importUsers(List<UserRegistrationDto> registrations);
+    
     Optional<UserResponseDto> getUserById(Long id);
     
+    List<UserResponseDto> getUsersByIds(List<Long> ids);
+    
     Optional<UserResponseDto> getUserByUsername(String username);
     
     UserResponseDto updateUser(Long id, UserRegistrationDto updateDto);
     
     void deleteUser(Long id);
     
-    List<UserResponseDto> searchUsers(String query);
+    List<UserResponseDto> searchUsers(String query, int page, int size);
+    
+    List<UserSuggestionDto> autocomplete(String prefix, int limit);
     
-    List<UserResponseDto> getAllActiveUsers();
+    UserPageDto getActiveUsers(String cursor, int limit);
+    
+    void streamActiveUsers(Consumer<UserResponseDto> consumer);
     
     boolean existsByUsername(String username);
     
@@ -38,5 +51,7 @@ public interface UserServiceInterface {
     void decrementFollowingCount(Long userId);
     
     void incrementTweetCount(Long userId);
+    
+    List<CounterOperationResultDto> applyCounterOperations(List<CounterOperationDto> operations);
 }
 
@@ -0,0 +1,394 @@
+package com.gaurav.socialMedia.service;
+
+import java.sql.ResultSetMetaData;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.gaurav.socialMedia.config.UserShardRouting;
+import com.gaurav.socialMedia.repository.UserShardMapRepository;
+import com.gaurav.socialMedia.repository.UserShards;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves buckets of users between shards while the service keeps running.
+ * <p>
+ * A move freezes the bucket in the map, so writes to its users wait, and
+ * sleeps {@code user.sharding.freeze-wait} until every instance has seen the
+ * freeze and every write it had started has committed or timed out (see
+ * {@link UserShards}). It then copies the bucket's
+ * rows in id order and hands the bucket to the new shard, which unfreezes it
+ * in the same update. Reads keep going to the old shard until each instance
+ * reloads its map, so the old rows are only deleted after another
+ * {@code max-map-age}. A failed copy is deleted and the bucket unfrozen on
+ * its old shard.
+ * <p>
+ * Only {@code users} rows move. Outbox events stay on the shard that wrote
+ * them and are relayed from there.
+ */
+@Service
+@Slf4j
+public class UserShardRebalancer {
+
+    // Both read a range of the (bucket, id) index
+    private static final String SELECT_CHUNK_SQL =
+            "SELECT * FROM users WHERE bucket = ? AND id > ? ORDER BY id LIMIT ?";
+
+    private static final String SELECT_IDS_SQL = "SELECT id FROM users WHERE bucket = ? AND id > ? ORDER BY id LIMIT ?";
+
+    private final UserShards shards;
+    private final UserShardMapRepository mapRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration freezeWait;
+    private final Duration staleMapWait;
+    private final int copyBatchSize;
+    private final Counter movedBuckets;
+    private final Counter movedUsers;
+    private final ExecutorService executor;
+
+    // Status of the latest task, guarded by this
+    private String task;
+    private String state = "IDLE";
+    private Integer currentBucket;
+    private Integer currentTarget;
+    private int bucketsMoved;
+    private long usersCopied;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String lastError;
+    private volatile boolean stopRequested;
+
+    @Autowired
+    public UserShardRebalancer(UserShards shards,
+                               UserShardMapRepository mapRepository,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${user.sharding.map-refresh-interval-ms:1000}") long refreshIntervalMs,
+                               @Value("${user.sharding.copy-batch-size:500}") int copyBatchSize,
+                               MeterRegistry meterRegistry) {
+        this.shards = shards;
+        this.mapRepository = mapRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.freezeWait = shards.freezeWait();
+        this.staleMapWait = shards.maxMapAge().plusMillis(refreshIntervalMs);
+        this.copyBatchSize = copyBatchSize;
+        this.movedBuckets = Counter.builder("user.shards.moved")
+                .description("Buckets of users moved to another shard")
+                .register(meterRegistry);
+        this.movedUsers = Counter.builder("user.shards.moved.users")
+                .description("Users copied to another shard by bucket moves")
+                .register(meterRegistry);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-shard-rebalancer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts moving buckets from the fullest to the emptiest shard in the
+     * background until bucket counts differ by at most one.
+     *
+     * @return {@code false} if a task is already running
+     */
+    public synchronized boolean startRebalance() {
+        return start("rebalance", this::rebalance);
+    }
+
+    /**
+     * Starts moving one bucket to {@code target} in the background. Moving a
+     * bucket to the shard that holds it removes stray copies of it elsewhere.
+     *
+     * @return {@code false} if a task is already running
+     */
+    public synchronized boolean startMove(int bucket, int target) {
+        if (bucket < 0 || bucket >= shards.bucketCount()) {
+            throw new IllegalArgumentException("Bucket must be between 0 and " + (shards.bucketCount() - 1));
+        }
+        if (target < 0 || target >= shards.count()) {
+            throw new IllegalArgumentException("Shard must be between 0 and " + (shards.count() - 1));
+        }
+        return start("move bucket " + bucket + " to shard " + target, () -> moveBucket(bucket, target));
+    }
+
+    /**
+     * Asks the running task to stop once the current bucket is moved.
+     */
+    public synchronized void stop() {
+        if ("RUNNING".equals(state)) {
+            stopRequested = true;
+            state = "STOPPING";
+            log.info("Stopping the shard rebalancer after the current bucket");
+        }
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state);
+        if (task == null) {
+            return status;
+        }
+        status.put("task", task);
+        status.put("currentBucket", currentBucket);
+        status.put("currentTarget", currentTarget);
+        status.put("bucketsMoved", bucketsMoved);
+        status.put("usersCopied", usersCopied);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopRequested = true;
+        executor.shutdownNow();
+    }
+
+    private boolean start(String name, Runnable work) {
+        if (!shards.isSharded()) {
+            throw new IllegalStateException("Users are not sharded");
+        }
+        if ("RUNNING".equals(state) || "STOPPING".equals(state)) {
+            return false;
+        }
+        task = name;
+        state = "RUNNING";
+        currentBucket = null;
+        currentTarget = null;
+        bucketsMoved = 0;
+        usersCopied = 0;
+        startedAt = Instant.now();
+        finishedAt = null;
+        lastError = null;
+        stopRequested = false;
+        log.info("Starting shard task: {}", name);
+        executor.execute(() -> {
+            String outcome = "DONE";
+            try {
+                work.run();
+            } catch (Exception e) {
+                log.error("Shard task '{}' failed", name, e);
+                outcome = "FAILED";
+                synchronized (this) {
+                    lastError = e.getMessage();
+                }
+            }
+            synchronized (this) {
+                state = stopRequested && "DONE".equals(outcome) ? "STOPPED" : outcome;
+                currentBucket = null;
+                currentTarget = null;
+                finishedAt = Instant.now();
+            }
+            log.info("Shard task '{}' finished: {}", name, outcome);
+        });
+        return true;
+    }
+
+    private void rebalance() {
+        while (!stopRequested) {
+            shards.reloadMap();
+            int fullest = 0;
+            int emptiest = 0;
+            int[] counts = new int[shards.count()];
+            for (int shard = 0; shard < counts.length; shard++) {
+                counts[shard] = shards.bucketsOf(shard).size();
+                if (counts[shard] > counts[fullest]) {
+                    fullest = shard;
+                }
+                if (counts[shard] < counts[emptiest]) {
+                    emptiest = shard;
+                }
+            }
+            if (counts[fullest] - counts[emptiest] <= 1) {
+                log.info("User shards are balanced: {} buckets per shard", counts[emptiest]);
+                return;
+            }
+            List<Integer> candidates = new ArrayList<>(shards.bucketsOf(fullest));
+            candidates.removeAll(shards.frozenBuckets());
+            if (candidates.isEmpty()) {
+                throw new IllegalStateException("Every bucket of shard " + fullest + " is being moved");
+            }
+            moveBucket(candidates.get(candidates.size() - 1), emptiest);
+        }
+    }
+
+    private void moveBucket(int bucket, int target) {
+        shards.reloadMap();
+        int source = shards.shardOfBucket(bucket);
+        synchronized (this) {
+            currentBucket = bucket;
+            currentTarget = target;
+        }
+        if (!mapRepository.freeze(bucket, source)) {
+            throw new IllegalStateException("Bucket " + bucket + " is already being moved");
+        }
+        shards.reloadMap();
+        if (source == target) {
+            // Nothing writes a bucket's rows outside its shard, so no wait is needed
+            try {
+                for (int shard = 0; shard < shards.count(); shard++) {
+                    if (shard != source) {
+                        deleteBucket(shard, bucket);
+                    }
+                }
+            } finally {
+                mapRepository.unfreeze(bucket);
+                shards.reloadMap();
+            }
+            return;
+        }
+
+        long copied;
+        try {
+            sleep(freezeWait);
+            deleteBucket(target, bucket);
+            copied = copyBucket(bucket, source, target);
+            if (!mapRepository.activate(bucket, target)) {
+                throw new IllegalStateException("Bucket " + bucket + " was unfrozen during the move");
+            }
+        } catch (RuntimeException e) {
+            try {
+                deleteBucket(target, bucket);
+            } catch (RuntimeException cleanup) {
+                log.warn("Failed to remove the partial copy of bucket {} from shard {}", bucket, target, cleanup);
+            }
+            mapRepository.unfreeze(bucket);
+            shards.reloadMap();
+            throw e;
+        }
+        shards.reloadMap();
+        movedBuckets.increment();
+        synchronized (this) {
+            bucketsMoved++;
+        }
+        log.info("Moved bucket {} ({} users) from shard {} to {}", bucket, copied, source, target);
+
+        // Instances that have not reloaded the map still read the old shard
+        sleep(staleMapWait);
+        shards.reloadMap();
+        if (shards.shardOfBucket(bucket) != source) {
+            try {
+                deleteBucket(source, bucket);
+            } catch (RuntimeException e) {
+                // Rows of a bucket a shard does not hold are ignored by every query
+                log.warn("Failed to remove bucket {} from shard {} after moving it", bucket, source, e);
+            }
+        }
+    }
+
+    private long copyBucket(int bucket, int source, int target) {
+        long afterId = 0;
+        long copied = 0;
+        while (true) {
+            long from = afterId;
+            Chunk chunk = UserShardRouting.onShard(source, () -> jdbcTemplate.query(SELECT_CHUNK_SQL, rs -> {
+                ResultSetMetaData meta = rs.getMetaData();
+                List<String> columns = new ArrayList<>(meta.getColumnCount());
+                List<Integer> indexes = new ArrayList<>(meta.getColumnCount());
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    // Generated from the id, so the target computes it too
+                    if (!UserShards.BUCKET_COLUMN.equalsIgnoreCase(meta.getColumnName(i))) {
+                        columns.add(meta.getColumnName(i));
+                        indexes.add(i);
+                    }
+                }
+                List<Object[]> rows = new ArrayList<>(copyBatchSize);
+                while (rs.next()) {
+                    Object[] row = new Object[columns.size()];
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] = rs.getObject(indexes.get(i));
+                    }
+                    rows.add(row);
+                }
+                return new Chunk(columns, rows);
+            }, bucket, from, copyBatchSize));
+            if (chunk.rows.isEmpty()) {
+                return copied;
+            }
+            String insert = "INSERT INTO users (" + String.join(", ", chunk.columns) + ") VALUES ("
+                    + String.join(", ", Collections.nCopies(chunk.columns.size(), "?")) + ")";
+            UserShardRouting.onShard(target, () -> transactionTemplate.execute(
+                    status -> jdbcTemplate.batchUpdate(insert, chunk.rows)));
+            copied += chunk.rows.size();
+            movedUsers.increment(chunk.rows.size());
+            synchronized (this) {
+                usersCopied += chunk.rows.size();
+            }
+            afterId = ((Number) chunk.rows.get(chunk.rows.size() - 1)[idIndex(chunk)]).longValue();
+        }
+    }
+
+    private long deleteBucket(int shard, int bucket) {
+        long afterId = 0;
+        long deleted = 0;
+        while (true) {
+            long from = afterId;
+            List<Long> ids = UserShardRouting.onShard(shard, () -> jdbcTemplate.queryForList(
+                    SELECT_IDS_SQL, Long.class, bucket, from, copyBatchSize));
+            if (ids.isEmpty()) {
+                if (deleted > 0) {
+                    log.info("Removed {} users of bucket {} from shard {}", deleted, bucket, shard);
+                }
+                return deleted;
+            }
+            String delete = "DELETE FROM users WHERE id IN ("
+                    + String.join(",", Collections.nCopies(ids.size(), "?")) + ")";
+            deleted += UserShardRouting.onShard(shard, () -> transactionTemplate.execute(
+                    status -> jdbcTemplate.update(delete, ids.toArray())));
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    // Column names come back in the database's case
+    private static int idIndex(Chunk chunk) {
+        for (int i = 0; i < chunk.columns.size(); i++) {
+            if ("id".equalsIgnoreCase(chunk.columns.get(i))) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("users has no id column");
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while moving users between shards", e);
+        }
+    }
+
+    private static final class Chunk {
+
+        private final List<String> columns;
+        private final List<Object[]> rows;
+
+        private Chunk(List<String> columns, List<Object[]> rows) {
+            this.columns = columns;
+            this.rows = rows;
+        }
+    }
+}
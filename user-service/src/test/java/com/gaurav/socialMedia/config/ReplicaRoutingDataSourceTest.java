@@ -0,0 +1,180 @@
+package com.gaurav.socialMedia.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Which database read-only connections come from, with two replicas that
+ * may be at most 5s behind.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final HikariDataSource replica1 = mock(HikariDataSource.class);
+    private final HikariDataSource replica2 = mock(HikariDataSource.class);
+    private final Connection connection1 = mock(Connection.class);
+    private final Connection connection2 = mock(Connection.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica1.getPoolName()).thenReturn("replica-1");
+        when(replica2.getPoolName()).thenReturn("replica-2");
+        when(replica1.getConnection()).thenReturn(connection1);
+        when(replica2.getConnection()).thenReturn(connection2);
+    }
+
+    @Test
+    void readsFromThePrimaryUntilAHealthCheckPasses() throws SQLException {
+        ReplicaRoutingDataSource dataSource = dataSource("");
+
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(reads("primary", "no-replica")).isEqualTo(1);
+    }
+
+    @Test
+    void takesTurnsBetweenHealthyReplicas() throws SQLException {
+        ReplicaRoutingDataSource dataSource = dataSource("");
+        dataSource.checkReplicas();
+
+        assertThat(List.of(dataSource.getConnection(), dataSource.getConnection(), dataSource.getConnection()))
+                .containsExactly(connection1, connection2, connection1);
+        assertThat(reads("replica", "routed")).isEqualTo(3);
+    }
+
+    @Test
+    void keepsPinnedReadsOnThePrimary() throws SQLException {
+        ReplicaRoutingDataSource dataSource = dataSource("");
+        dataSource.checkReplicas();
+
+        Connection connection = DataSourceRouting.onPrimary(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(connection).isSameAs(primaryConnection);
+        assertThat(reads("primary", "pinned")).isEqualTo(1);
+    }
+
+    @Test
+    void dropsAReplicaThatLagsTooFarBehind() throws SQLException {
+        lag(connection1, 6L);
+        lag(connection2, 5L);
+        ReplicaRoutingDataSource dataSource = dataSource("SHOW REPLICA STATUS");
+        dataSource.checkReplicas();
+
+        assertThat(healthy("replica-1")).isZero();
+        assertThat(healthy("replica-2")).isOne();
+        assertThat(meterRegistry.get("user.datasource.replica.lag").tag("replica", "replica-1").gauge().value())
+                .isEqualTo(6);
+        assertThat(List.of(dataSource.getConnection(), dataSource.getConnection()))
+                .containsExactly(connection2, connection2);
+    }
+
+    @Test
+    void dropsAReplicaWhoseReplicationStopped() throws SQLException {
+        lag(connection1, null);
+        lag(connection2, null);
+        ReplicaRoutingDataSource dataSource = dataSource("SHOW REPLICA STATUS");
+        dataSource.checkReplicas();
+
+        assertThat(healthy("replica-1")).isZero();
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void keepsABusyReplicaInRotation() throws SQLException {
+        ReplicaRoutingDataSource dataSource = dataSource("");
+        dataSource.checkReplicas();
+        // Hikari's timeout when every connection is in use
+        when(replica1.getConnection())
+                .thenThrow(new SQLTransientConnectionException("replica-1 - Connection is not available"))
+                .thenReturn(connection1);
+
+        assertThat(dataSource.getConnection()).isSameAs(connection2);
+        assertThat(healthy("replica-1")).isOne();
+        assertThat(dataSource.getConnection()).isSameAs(connection2);
+        assertThat(dataSource.getConnection()).isSameAs(connection1);
+    }
+
+    @Test
+    void dropsAReplicaThatCannotConnectUntilTheNextHealthCheck() throws SQLException {
+        ReplicaRoutingDataSource dataSource = dataSource("");
+        dataSource.checkReplicas();
+        // Hikari's timeout with the failure of its last connection attempt
+        when(replica1.getConnection()).thenThrow(new SQLTransientConnectionException(
+                "replica-1 - Connection is not available", "08S01", new SQLException("Connection refused")));
+
+        assertThat(dataSource.getConnection()).isSameAs(connection2);
+        assertThat(healthy("replica-1")).isZero();
+        assertThat(dataSource.getConnection()).isSameAs(connection2);
+
+        doReturn(connection1).when(replica1).getConnection();
+        dataSource.checkReplicas();
+        assertThat(healthy("replica-1")).isOne();
+    }
+
+    @Test
+    void readsFromThePrimaryWithoutReplicas() throws SQLException {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(), "",
+                Duration.ofSeconds(5), meterRegistry);
+
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    private ReplicaRoutingDataSource dataSource(String lagQuery) {
+        return new ReplicaRoutingDataSource(primary, List.of(replica1, replica2), lagQuery, Duration.ofSeconds(5),
+                meterRegistry);
+    }
+
+    // SHOW REPLICA STATUS with Seconds_Behind_Source in its second column
+    private static void lag(Connection connection, Long seconds) throws SQLException {
+        Statement statement = mock(Statement.class);
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData meta = mock(ResultSetMetaData.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getMetaData()).thenReturn(meta);
+        when(meta.getColumnCount()).thenReturn(2);
+        when(meta.getColumnLabel(anyInt())).thenReturn("Replica_IO_State");
+        when(meta.getColumnLabel(2)).thenReturn("Seconds_Behind_Source");
+        when(rs.getLong(2)).thenReturn(seconds == null ? 0 : seconds);
+        when(rs.wasNull()).thenReturn(seconds == null);
+    }
+
+    private double healthy(String replica) {
+        return meterRegistry.get("user.datasource.replica.healthy").tag("replica", replica).gauge().value();
+    }
+
+    private double reads(String target, String reason) {
+        return meterRegistry.get("user.datasource.reads").tag("target", target).tag("reason", reason).counter().count();
+    }
+}
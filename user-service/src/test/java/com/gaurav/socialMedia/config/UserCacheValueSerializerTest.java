@@ -0,0 +1,96 @@
+package com.gaurav.socialMedia.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+
+class UserCacheValueSerializerTest {
+
+    private final UserCacheValueSerializer serializer = RedisConfig.cacheValueSerializer();
+
+    @Test
+    void roundTripsProfilesInBinary() {
+        UserResponseDto dto = profile();
+        dto.setCreatedAt(LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_456_789));
+
+        byte[] bytes = serializer.serialize(dto);
+
+        assertThat(UserResponseDtoCodec.isEncoded(bytes)).isTrue();
+        assertThat(serializer.deserialize(bytes)).usingRecursiveComparison().isEqualTo(dto);
+    }
+
+    @Test
+    void omitsNullFields() {
+        UserResponseDto dto = new UserResponseDto();
+        dto.setId(-3L);
+        dto.setUsername("sparse");
+
+        Object decoded = serializer.deserialize(serializer.serialize(dto));
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(dto);
+        assertThat(((UserResponseDto) decoded).getCreatedAt()).isNull();
+    }
+
+    @Test
+    void readsLegacyJsonProfiles() {
+        // As written by the JSON serializer before the binary codec existed
+        String legacy = "{\"id\":42,\"username\":\"alice\",\"email\":\"alice@example.com\","
+                + "\"fullName\":\"Alice Liddell\",\"bio\":\"Down the rabbit hole\",\"profileImageUrl\":null,"
+                + "\"followersCount\":12,\"followingCount\":3,\"tweetsCount\":7,\"isVerified\":true,"
+                + "\"isActive\":true,\"createdAt\":\"2024-03-01T10:15:30\"}";
+        byte[] bytes = legacy.getBytes(StandardCharsets.UTF_8);
+
+        assertThat(UserResponseDtoCodec.isEncoded(bytes)).isFalse();
+        UserResponseDto expected = profile();
+        expected.setCreatedAt(LocalDateTime.of(2024, 3, 1, 10, 15, 30));
+        // Legacy profiles come back as maps, which readers convert
+        Object decoded = serializer.deserialize(bytes);
+        assertThat(decoded).isInstanceOf(Map.class);
+        assertThat(new JacksonConfig().objectMapper().convertValue(decoded, UserResponseDto.class))
+                .usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    @Test
+    void keepsOtherValuesAsJson() {
+        byte[] bytes = serializer.serialize(42L);
+
+        assertThat(new String(bytes, StandardCharsets.UTF_8)).isEqualTo("42");
+        // Readers accept any Number for index ids
+        assertThat(serializer.deserialize(bytes)).isInstanceOfSatisfying(Number.class,
+                id -> assertThat(id.longValue()).isEqualTo(42L));
+    }
+
+    @Test
+    void skipsFieldsFromNewerWriters() {
+        UserResponseDto dto = profile();
+        byte[] encoded = UserResponseDtoCodec.encode(dto);
+        // Field 20 as a varint, then field 21 as a string
+        byte[] extra = {(byte) 0xA0, 0x01, 0x0A, (byte) 0xAA, 0x01, 0x02, 'h', 'i'};
+        byte[] newer = Arrays.copyOf(encoded, encoded.length + extra.length);
+        System.arraycopy(extra, 0, newer, encoded.length, extra.length);
+
+        assertThat(UserResponseDtoCodec.decode(newer)).usingRecursiveComparison().isEqualTo(dto);
+    }
+
+    private static UserResponseDto profile() {
+        UserResponseDto dto = new UserResponseDto();
+        dto.setId(42L);
+        dto.setUsername("alice");
+        dto.setEmail("alice@example.com");
+        dto.setFullName("Alice Liddell");
+        dto.setBio("Down the rabbit hole");
+        dto.setFollowersCount(12);
+        dto.setFollowingCount(3);
+        dto.setTweetsCount(7);
+        dto.setIsVerified(true);
+        dto.setIsActive(true);
+        return dto;
+    }
+}
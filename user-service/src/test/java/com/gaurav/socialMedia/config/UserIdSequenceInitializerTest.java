@@ -0,0 +1,44 @@
+package com.gaurav.socialMedia.config;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.gaurav.socialMedia.support.TestShards;
+
+class UserIdSequenceInitializerTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final UserIdSequenceInitializer initializer =
+            new UserIdSequenceInitializer(jdbcTemplate, TestShards.unsharded());
+
+    @Test
+    void alignsTheSequence() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(1);
+
+        assertThatCode(initializer::afterSingletonsInstantiated).doesNotThrowAnyException();
+    }
+
+    @Test
+    void failsStartupWhenTheSequenceCannotBeAligned() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenThrow(new QueryTimeoutException("timeout"));
+
+        assertThatThrownBy(initializer::afterSingletonsInstantiated)
+                .isInstanceOf(IllegalStateException.class)
+                .hasCauseInstanceOf(QueryTimeoutException.class);
+    }
+
+    @Test
+    void failsStartupWhenTheSequenceHasNoRow() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(0);
+
+        assertThatThrownBy(initializer::afterSingletonsInstantiated).isInstanceOf(IllegalStateException.class);
+    }
+}
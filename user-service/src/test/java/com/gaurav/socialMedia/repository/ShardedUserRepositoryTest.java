@@ -0,0 +1,95 @@
+package com.gaurav.socialMedia.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.config.UserShardRouting;
+import com.gaurav.socialMedia.support.TestShards;
+
+/**
+ * Reads by id against three shards, where user {@code id} lives on shard
+ * {@code id % 3}.
+ */
+class ShardedUserRepositoryTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    // The ids each shard was asked for
+    private final Map<Integer, List<Long>> queried = new ConcurrentHashMap<>();
+    private ShardedUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.findById(any())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            queried.put(UserShardRouting.currentShard(), List.of(id));
+            return Optional.of(user(id));
+        });
+        when(userRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Long> ids = new ArrayList<>();
+            invocation.<Iterable<Long>>getArgument(0).forEach(ids::add);
+            queried.put(UserShardRouting.currentShard(), ids);
+            return ids.stream().map(ShardedUserRepositoryTest::user).toList();
+        });
+        repository = new ShardedUserRepository(userRepository, TestShards.sharded(3), null, Duration.ZERO);
+    }
+
+    @Test
+    void readsAUserOnItsShard() {
+        assertThat(repository.findById(7L)).isPresent();
+
+        assertThat(queried).containsOnly(Map.entry(1, List.of(7L)));
+    }
+
+    @Test
+    void splitsBatchReadsByShard() {
+        List<User> users = repository.findAllById(List.of(1L, 2L, 3L, 4L, 6L));
+
+        assertThat(users).extracting(User::getId).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 6L);
+        assertThat(queried).containsOnly(
+                Map.entry(0, List.of(3L, 6L)),
+                Map.entry(1, List.of(1L, 4L)),
+                Map.entry(2, List.of(2L)));
+    }
+
+    @Test
+    void skipsShardsWithoutRequestedUsers() {
+        repository.findAllById(List.of(2L, 5L));
+
+        assertThat(queried).containsOnly(Map.entry(2, List.of(2L, 5L)));
+    }
+
+    @Test
+    void searchesEveryShardWithEscapedWildcards() {
+        Map<Integer, String> patterns = new ConcurrentHashMap<>();
+        when(userRepository.searchUsersByWordPrefix(any(), any())).thenAnswer(invocation -> {
+            int shard = UserShardRouting.currentShard();
+            patterns.put(shard, invocation.getArgument(0));
+            return List.of(user((long) shard), user(shard + 3L));
+        });
+
+        List<User> page = repository.searchUsersByWordPrefix("a_%!", 0, 4);
+
+        assertThat(patterns).containsOnly(Map.entry(0, "a!_!%!!"), Map.entry(1, "a!_!%!!"), Map.entry(2, "a!_!%!!"));
+        assertThat(page).extracting(User::getId).containsExactly(0L, 1L, 2L, 3L);
+    }
+
+    private static User user(Long id) {
+        User user = new User("user" + id, "user" + id + "@example.com", "hash", "User " + id);
+        user.setId(id);
+        return user;
+    }
+}
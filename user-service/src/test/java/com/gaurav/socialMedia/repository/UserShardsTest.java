@@ -0,0 +1,53 @@
+package com.gaurav.socialMedia.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import com.gaurav.socialMedia.support.TestShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The write deadline a bucket move relies on, with two shards.
+ */
+class UserShardsTest {
+
+    private final UserShardMapRepository mapRepository = mock(UserShardMapRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @Test
+    void writesTimeOutBeforeAMoveCopiesTheirBucket() {
+        when(mapRepository.findAll()).thenReturn(TestShards.buckets(2));
+        UserShards shards = shards(Duration.ofSeconds(3), Duration.ofMillis(5500));
+
+        assertThat(shards.write(1, List.of(1L), () -> "written")).isEqualTo("written");
+
+        // Rounded down to whole seconds
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertThat(definition.getValue().getTimeout()).isEqualTo(2);
+    }
+
+    @Test
+    void needsAFreezeWaitAtLeastASecondAboveTheMapAge() {
+        assertThatThrownBy(() -> shards(Duration.ofSeconds(3), Duration.ofMillis(3900)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("freeze-wait");
+    }
+
+    private UserShards shards(Duration maxMapAge, Duration freezeWait) {
+        return new UserShards("jdbc:h2:mem:shard1", 2, maxMapAge, freezeWait, Duration.ofSeconds(10), 1,
+                mapRepository, null, null, transactionManager, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,133 @@
+package com.gaurav.socialMedia.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserPageDto;
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+import com.gaurav.socialMedia.support.TestShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Keyset pagination of {@code /active} against a repository that answers the
+ * two keyset queries from a list, with the same ordering and predicate as
+ * the JPQL.
+ */
+class ActiveUserPaginationTest {
+
+    private static final Comparator<User> ORDER = Comparator.comparing(User::getCreatedAt)
+            .thenComparing(User::getId)
+            .reversed();
+
+    private final List<User> users = new ArrayList<>();
+    private UserServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        ShardedUserRepository repository = mock(ShardedUserRepository.class);
+        when(repository.shards()).thenReturn(TestShards.unsharded());
+        when(repository.findActiveUsersFirstPage(any())).thenAnswer(invocation ->
+                page(user -> true, invocation.getArgument(0)));
+        when(repository.findActiveUsersAfter(any(), any(), any())).thenAnswer(invocation -> {
+            LocalDateTime createdAt = invocation.getArgument(0);
+            Long id = invocation.getArgument(1);
+            return page(user -> user.getCreatedAt().isBefore(createdAt)
+                    || (user.getCreatedAt().isEqual(createdAt) && user.getId() < id), invocation.getArgument(2));
+        });
+        service = new UserServiceImpl(repository, null, null, null, null, null, null, null, null, null, null, null,
+                null, null, null, null, null, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void walksEveryActiveUserOnceAcrossTimestampTies() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (long id = 1; id <= 23; id++) {
+            // Groups of four users share a timestamp, so pages split ties
+            add(id, base.plusSeconds(id / 4), id % 5 != 0);
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            UserPageDto page = service.getActiveUsers(cursor, 3);
+            assertThat(page.getUsers()).hasSizeLessThanOrEqualTo(3);
+            page.getUsers().stream().map(UserResponseDto::getId).forEach(seen::add);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        List<Long> expected = users.stream()
+                .filter(User::getIsActive)
+                .sorted(ORDER)
+                .map(User::getId)
+                .toList();
+        assertThat(seen).containsExactlyElementsOf(expected);
+        assertThat(pages).isEqualTo((expected.size() + 2) / 3);
+    }
+
+    @Test
+    void lastFullPageHasNoCursor() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (long id = 1; id <= 4; id++) {
+            add(id, base.plusMinutes(id), true);
+        }
+
+        UserPageDto first = service.getActiveUsers(null, 2);
+        UserPageDto second = service.getActiveUsers(first.getNextCursor(), 2);
+
+        assertThat(first.getNextCursor()).isNotNull();
+        assertThat(second.getUsers()).extracting(UserResponseDto::getId).containsExactly(2L, 1L);
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void clampsThePageSize() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (long id = 1; id <= 3; id++) {
+            add(id, base.plusMinutes(id), true);
+        }
+
+        assertThat(service.getActiveUsers(null, 0).getUsers()).hasSize(1);
+        assertThat(service.getActiveUsers("", 1000).getUsers()).hasSize(3);
+    }
+
+    @Test
+    void rejectsACorruptCursor() {
+        assertThatThrownBy(() -> service.getActiveUsers("not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void add(long id, LocalDateTime createdAt, boolean active) {
+        User user = new User("user" + id, "user" + id + "@example.com", "hash", "User " + id);
+        user.setId(id);
+        user.setCreatedAt(createdAt);
+        user.setIsActive(active);
+        users.add(user);
+    }
+
+    private List<User> page(Predicate<User> after, Pageable pageable) {
+        return users.stream()
+                .filter(User::getIsActive)
+                .filter(after)
+                .sorted(ORDER)
+                .limit(pageable.getPageSize())
+                .toList();
+    }
+}
@@ -0,0 +1,113 @@
+package com.gaurav.socialMedia.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+import com.gaurav.socialMedia.config.DataSourceRouting;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+import com.gaurav.socialMedia.support.TestShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cache misses that write back to the shared caches must read the primary,
+ * or a lagging replica could cache a stale profile or a stale miss.
+ */
+class CacheFillRoutingTest {
+
+    private final ShardedUserRepository repository = mock(ShardedUserRepository.class);
+    private final UserProfileCache profileCache = mock(UserProfileCache.class);
+    private final UserNearCache nearCache = mock(UserNearCache.class);
+    private final UserNegativeCache negativeCache = mock(UserNegativeCache.class);
+    private final List<Boolean> readsOnPrimary = new ArrayList<>();
+    private UserServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.shards()).thenReturn(TestShards.unsharded());
+        when(repository.findById(any())).thenAnswer(invocation -> {
+            readsOnPrimary.add(DataSourceRouting.isPrimaryRequired());
+            Long id = invocation.getArgument(0);
+            return id > 0 ? Optional.of(user(id)) : Optional.empty();
+        });
+        when(repository.findAllById(anyCollection())).thenAnswer(invocation -> {
+            readsOnPrimary.add(DataSourceRouting.isPrimaryRequired());
+            List<User> users = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                users.add(user(id));
+            }
+            return users;
+        });
+        when(repository.findByUsername(anyString())).thenAnswer(invocation -> {
+            readsOnPrimary.add(DataSourceRouting.isPrimaryRequired());
+            return Optional.of(user(7L));
+        });
+        when(profileCache.lookup(any())).thenReturn(mock(UserProfileCache.CachedProfile.class));
+        when(profileCache.lookupIndex(anyString(), anyString())).thenReturn(null);
+        when(profileCache.getAll(anyList())).thenAnswer(invocation ->
+                Arrays.asList(new UserResponseDto[invocation.<List<Long>>getArgument(0).size()]));
+        UserLoadCoalescer loadCoalescer = new UserLoadCoalescer(new SimpleMeterRegistry());
+        service = new UserServiceImpl(repository, profileCache, null, null, null, null, null, nearCache, null, null,
+                null, null, loadCoalescer, negativeCache, null, null, null, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void loadsMissesOnThePrimary() {
+        assertThat(service.getUserById(1L)).isPresent();
+        assertThat(service.getUserById(-1L)).isEmpty();
+        assertThat(service.getUsersByIds(List.of(2L, 3L))).hasSize(2);
+        assertThat(service.getUserByUsername("user7")).isPresent();
+
+        assertThat(readsOnPrimary).containsExactly(true, true, true, true);
+        assertThat(DataSourceRouting.isPrimaryRequired()).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void loadsReactiveMissesOnThePrimary() {
+        ReactiveRedisTemplate<String, Object> redis = mock(ReactiveRedisTemplate.class);
+        ReactiveHashOperations<String, Object, Object> hashOps = mock(ReactiveHashOperations.class);
+        ReactiveValueOperations<String, Object> valueOps = mock(ReactiveValueOperations.class);
+        when(redis.<Object, Object>opsForHash()).thenReturn(hashOps);
+        when(redis.opsForValue()).thenReturn(valueOps);
+        when(hashOps.entries(anyString())).thenReturn(Flux.empty());
+        when(valueOps.get(anyString())).thenReturn(Mono.empty());
+        ReactiveUserReadService reactive = new ReactiveUserReadService(redis, repository, nearCache, profileCache,
+                negativeCache, new UserLoadCoalescer(new SimpleMeterRegistry()), null, 1, 10);
+        try {
+            assertThat(reactive.getUserById(1L).block()).isNotNull();
+            assertThat(reactive.getUserByUsername("user7").block()).isNotNull();
+        } finally {
+            reactive.shutdown();
+        }
+
+        assertThat(readsOnPrimary).containsExactly(true, true);
+    }
+
+    private static User user(Long id) {
+        User user = new User("user" + id, "user" + id + "@example.com", "hash", "User " + id);
+        user.setId(id);
+        user.setIsActive(true);
+        return user;
+    }
+}
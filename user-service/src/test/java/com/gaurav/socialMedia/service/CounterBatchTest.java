@@ -0,0 +1,83 @@
+package com.gaurav.socialMedia.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.gaurav.socialMedia.Entity.CounterOperationDto;
+import com.gaurav.socialMedia.Entity.CounterOperationResultDto;
+import com.gaurav.socialMedia.Entity.CounterType;
+import com.gaurav.socialMedia.Entity.UserCounterDelta;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+import com.gaurav.socialMedia.repository.UserCounterRepository;
+import com.gaurav.socialMedia.repository.UserOutboxRepository;
+import com.gaurav.socialMedia.support.TestShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+
+/**
+ * {@code /counters/batch} with a mix of valid and invalid operations.
+ */
+class CounterBatchTest {
+
+    private final UserCounterRepository counterRepository = mock(UserCounterRepository.class);
+    private final List<Map<Long, UserCounterDelta>> applied = new ArrayList<>();
+    private ValidatorFactory validatorFactory;
+    private UserServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        ShardedUserRepository repository = mock(ShardedUserRepository.class);
+        when(repository.shards()).thenReturn(TestShards.unsharded());
+        when(repository.findExistingIds(any())).thenReturn(List.of(1L, 2L));
+        when(counterRepository.applyDeltas(any())).thenAnswer(invocation -> {
+            Map<Long, UserCounterDelta> deltas = invocation.getArgument(0);
+            applied.add(new TreeMap<>(deltas));
+            return new int[deltas.size()];
+        });
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        service = new UserServiceImpl(repository, null, null, null, null, null, counterRepository, null, null, null,
+                null, null, null, null, mock(UserOutboxRepository.class), null, validatorFactory.getValidator(),
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void rejectsInvalidOperationsOneAtATime() {
+        List<CounterOperationResultDto> results = service.applyCounterOperations(List.of(
+                new CounterOperationDto(1L, CounterType.FOLLOWERS, 2),
+                new CounterOperationDto(2L, CounterType.TWEETS, Integer.MAX_VALUE),
+                new CounterOperationDto(2L, null, 1),
+                new CounterOperationDto(2L, CounterType.FOLLOWING, -CounterOperationDto.MAX_DELTA),
+                new CounterOperationDto(3L, CounterType.FOLLOWERS, 1)));
+
+        assertThat(results).extracting(CounterOperationResultDto::getStatus).containsExactly(
+                CounterOperationResultDto.Status.APPLIED,
+                CounterOperationResultDto.Status.INVALID,
+                CounterOperationResultDto.Status.INVALID,
+                CounterOperationResultDto.Status.APPLIED,
+                CounterOperationResultDto.Status.USER_NOT_FOUND);
+        assertThat(results.get(1).getMessage()).isEqualTo("Delta must be at most " + CounterOperationDto.MAX_DELTA);
+
+        assertThat(applied).hasSize(1);
+        assertThat(applied.get(0)).containsOnlyKeys(1L, 2L);
+        assertThat(applied.get(0).get(2L).getTweets()).isZero();
+        assertThat(applied.get(0).get(2L).getFollowing()).isEqualTo(-CounterOperationDto.MAX_DELTA);
+    }
+}
@@ -0,0 +1,137 @@
+package com.gaurav.socialMedia.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.gaurav.socialMedia.Entity.CounterEventOffset;
+import com.gaurav.socialMedia.Entity.UserCounterDelta;
+import com.gaurav.socialMedia.Entity.UserCounterEvent;
+import com.gaurav.socialMedia.repository.CounterEventOffsetRepository;
+import com.gaurav.socialMedia.repository.UserCounterRepository;
+import com.gaurav.socialMedia.repository.UserOutboxRepository;
+import com.gaurav.socialMedia.support.TestShards;
+
+class CounterEventIngestionServiceTest {
+
+    private static final String TOPIC = "user-counter-events";
+
+    private final UserCounterRepository counterRepository = mock(UserCounterRepository.class);
+    private final CounterEventOffsetRepository offsetRepository = mock(CounterEventOffsetRepository.class);
+    private final Map<String, Long> storedOffsets = new HashMap<>();
+    private final List<Map<Long, UserCounterDelta>> applied = new ArrayList<>();
+    private CounterEventIngestionService service;
+
+    @BeforeEach
+    void setUp() {
+        when(counterRepository.applyDeltas(any())).thenAnswer(invocation -> {
+            Map<Long, UserCounterDelta> deltas = invocation.getArgument(0);
+            applied.add(new TreeMap<>(deltas));
+            int[] rows = new int[deltas.size()];
+            Arrays.fill(rows, 1);
+            return rows;
+        });
+        // Hands out copies, as a fresh persistence context would
+        when(offsetRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<CounterEventOffset> found = new ArrayList<>();
+            for (String key : invocation.<Iterable<String>>getArgument(0)) {
+                if (storedOffsets.containsKey(key)) {
+                    found.add(new CounterEventOffset(key, storedOffsets.get(key)));
+                }
+            }
+            return found;
+        });
+        when(offsetRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            for (CounterEventOffset offset : invocation.<Iterable<CounterEventOffset>>getArgument(0)) {
+                storedOffsets.put(offset.getPartitionKey(), offset.getLastOffset());
+            }
+            return List.of();
+        });
+        service = new CounterEventIngestionService(counterRepository, offsetRepository,
+                mock(UserOutboxRepository.class), TestShards.unsharded());
+    }
+
+    @Test
+    void collapsesEventsPerUserAndStoresTheLastOffsetPerPartition() {
+        service.ingest(List.of(
+                follow(0, 10, 1L, 2L),
+                follow(0, 11, 3L, 2L),
+                tweet(1, 5, 1L)));
+
+        assertThat(applied).hasSize(1);
+        Map<Long, UserCounterDelta> deltas = applied.get(0);
+        assertThat(deltas.get(2L).getFollowers()).isEqualTo(2);
+        assertThat(deltas.get(1L).getFollowing()).isEqualTo(1);
+        assertThat(deltas.get(1L).getTweets()).isEqualTo(1);
+        assertThat(deltas.get(3L).getFollowing()).isEqualTo(1);
+        assertThat(storedOffsets).containsEntry(CounterEventOffset.keyOf(TOPIC, 0), 11L)
+                .containsEntry(CounterEventOffset.keyOf(TOPIC, 1), 5L);
+    }
+
+    @Test
+    void skipsARedeliveredBatch() {
+        List<ConsumerRecord<String, UserCounterEvent>> batch = List.of(follow(0, 10, 1L, 2L), tweet(0, 11, 1L));
+        service.ingest(batch);
+        service.ingest(batch);
+
+        assertThat(applied).hasSize(1);
+        assertThat(storedOffsets).containsEntry(CounterEventOffset.keyOf(TOPIC, 0), 11L);
+    }
+
+    @Test
+    void appliesOnlyTheUnseenPartOfAnOverlappingBatch() {
+        service.ingest(List.of(follow(0, 10, 1L, 2L)));
+        service.ingest(List.of(follow(0, 10, 1L, 2L), follow(0, 11, 4L, 2L)));
+
+        assertThat(applied).hasSize(2);
+        assertThat(applied.get(1)).containsOnlyKeys(2L, 4L);
+        assertThat(applied.get(1).get(2L).getFollowers()).isEqualTo(1);
+        assertThat(storedOffsets).containsEntry(CounterEventOffset.keyOf(TOPIC, 0), 11L);
+    }
+
+    @Test
+    void tracksPartitionsIndependently() {
+        service.ingest(List.of(tweet(0, 100, 1L)));
+        service.ingest(List.of(tweet(1, 3, 1L), tweet(0, 100, 1L)));
+
+        assertThat(applied).hasSize(2);
+        assertThat(applied.get(1).get(1L).getTweets()).isEqualTo(1);
+        assertThat(storedOffsets).containsEntry(CounterEventOffset.keyOf(TOPIC, 0), 100L)
+                .containsEntry(CounterEventOffset.keyOf(TOPIC, 1), 3L);
+    }
+
+    @Test
+    void advancesPastMalformedEvents() {
+        service.ingest(List.of(new ConsumerRecord<>(TOPIC, 0, 7, null, null),
+                record(0, 8, new UserCounterEvent(UserCounterEvent.Type.FOLLOW, null, 1L, null))));
+
+        assertThat(applied).isEmpty();
+        assertThat(storedOffsets).containsEntry(CounterEventOffset.keyOf(TOPIC, 0), 8L);
+    }
+
+    private static ConsumerRecord<String, UserCounterEvent> follow(int partition, long offset,
+                                                                  Long followerId, Long followeeId) {
+        return record(partition, offset, new UserCounterEvent(UserCounterEvent.Type.FOLLOW, null, followerId, followeeId));
+    }
+
+    private static ConsumerRecord<String, UserCounterEvent> tweet(int partition, long offset, Long userId) {
+        return record(partition, offset, new UserCounterEvent(UserCounterEvent.Type.TWEET_CREATED, userId, null, null));
+    }
+
+    private static ConsumerRecord<String, UserCounterEvent> record(int partition, long offset, UserCounterEvent event) {
+        return new ConsumerRecord<>(TOPIC, partition, offset, null, event);
+    }
+}
@@ -0,0 +1,151 @@
+package com.gaurav.socialMedia.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserSuggestionDto;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+import com.gaurav.socialMedia.support.TestShards;
+
+class UserAutocompleteIndexTest {
+
+    private final ShardedUserRepository repository = mock(ShardedUserRepository.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private UserAutocompleteIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.shards()).thenReturn(TestShards.unsharded());
+        index = index();
+    }
+
+    @Test
+    void ranksShortPrefixesByFollowers() {
+        index.update(user(1, "anna", "Anna Lee", 10));
+        index.update(user(2, "arthur", "Arthur Dent", 30));
+        index.update(user(3, "bob", "Bob Ashby", 20));
+
+        assertThat(ids(index.suggest("a", 10))).containsExactly(2L, 3L);
+        assertThat(ids(index.suggest("An", 10))).containsExactly(1L);
+    }
+
+    @Test
+    void refillsShortPrefixWhenSparesRunOut() {
+        for (long id = 1; id <= 6; id++) {
+            index.update(user(id, "al" + id, "Al Number" + id, id * 10));
+        }
+        assertThat(ids(index.suggest("al", 10))).containsExactly(6L, 5L);
+
+        index.remove(6L);
+        assertThat(ids(index.suggest("al", 10))).containsExactly(5L, 4L);
+
+        index.remove(5L);
+        index.remove(4L);
+        assertThat(ids(index.suggest("al", 10))).containsExactly(3L, 2L);
+    }
+
+    @Test
+    void keepsLowerRankedUsersOutOfFullCandidates() {
+        for (long id = 1; id <= 3; id++) {
+            index.update(user(id, "al" + id, "Al", 100 + id));
+        }
+        // Ranks below the held candidates, so it only shows up after a refill
+        index.update(user(4, "al4", "Al", 1));
+        // A user losing followers moves down behind the others
+        index.update(user(3, "al3", "Al", 50));
+
+        assertThat(ids(index.suggest("al", 10))).containsExactly(2L, 1L);
+
+        index.remove(2L);
+        index.remove(1L);
+        assertThat(ids(index.suggest("al", 10))).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void ranksLongPrefixesWithMoreTermsThanOneScanExactly() {
+        index.update(user(1, "alpha1", "", 1));
+        index.update(user(2, "alpha2", "", 2));
+        index.update(user(3, "alpha3", "", 3));
+        index.update(user(4, "alpha4", "", 100));
+
+        // Four terms exceed the scan limit of three, so "alph" gets its own top-K
+        assertThat(ids(index.suggest("alph", 10))).containsExactly(4L, 3L);
+        assertThat(ids(index.suggest("alpha4", 10))).containsExactly(4L);
+
+        // ...which follows later changes
+        index.update(user(5, "alpha5", "", 50));
+        index.remove(4L);
+        assertThat(ids(index.suggest("alph", 10))).containsExactly(5L, 3L);
+    }
+
+    @Test
+    void reranksOnFollowerCountsUnlessTheyAreOlder() {
+        index.update(user(1, "anna", "", 10));
+        index.update(user(2, "arthur", "", 20));
+
+        index.updateFollowers(List.of(versioned(user(1, "anna", "", 30), 2)));
+        assertThat(ids(index.suggest("a", 10))).containsExactly(1L, 2L);
+
+        // Read before the update above
+        index.updateFollowers(List.of(versioned(user(1, "anna", "", 5), 1)));
+        assertThat(ids(index.suggest("a", 10))).containsExactly(1L, 2L);
+
+        // A rename read at an older version keeps the newer count
+        index.update(user(1, "annie", "", 10));
+        assertThat(ids(index.suggest("a", 10))).containsExactly(1L, 2L);
+        assertThat(ids(index.suggest("annie", 10))).containsExactly(1L);
+    }
+
+    @Test
+    void appliesFollowerCountsFromOtherInstances() {
+        UserAutocompleteIndex other = index();
+        for (UserAutocompleteIndex instance : List.of(index, other)) {
+            instance.update(user(1, "anna", "", 10));
+            instance.update(user(2, "arthur", "", 20));
+        }
+
+        other.updateFollowers(List.of(versioned(user(1, "anna", "", 40), 3), versioned(user(9, "zoe", "", 1000), 1)));
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(UserAutocompleteIndex.FOLLOWERS_CHANNEL), payload.capture());
+        index.onMessage(new DefaultMessage(UserAutocompleteIndex.FOLLOWERS_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                payload.getValue().getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(ids(index.suggest("a", 10))).containsExactly(1L, 2L);
+        assertThat(index.suggest("z", 10)).isEmpty();
+    }
+
+    // Top 2 with one spare candidate, so the second removal needs a refill
+    private UserAutocompleteIndex index() {
+        return new UserAutocompleteIndex(null, repository, redisTemplate, 2, 1, 3);
+    }
+
+    private static List<Long> ids(List<UserSuggestionDto> suggestions) {
+        return suggestions.stream().map(UserSuggestionDto::getId).toList();
+    }
+
+    private static User versioned(User user, long version) {
+        user.setVersion(version);
+        return user;
+    }
+
+    private static User user(long id, String username, String fullName, long followers) {
+        User user = new User(username, username + "@example.com", "hash", fullName);
+        user.setId(id);
+        user.setIsActive(true);
+        user.setFollowersCount((int) followers);
+        return user;
+    }
+}
@@ -0,0 +1,133 @@
+package com.gaurav.socialMedia.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.config.UserShardRouting;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+import com.gaurav.socialMedia.repository.UserOutboxRepository;
+import com.gaurav.socialMedia.support.TestShards;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Sharded inserts against three shards, where user {@code id} lives on shard
+ * {@code id % 3} and ids are drawn from 1.
+ */
+class UserBulkWriterTest {
+
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final ShardedUserRepository userRepository = mock(ShardedUserRepository.class);
+    private final List<String> persisted = new ArrayList<>();
+    private UserBulkWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        AtomicLong sequence = new AtomicLong();
+        BeforeExecutionGenerator generator = mock(BeforeExecutionGenerator.class);
+        when(generator.generate(any(), any(), any(), any())).thenAnswer(invocation -> sequence.incrementAndGet());
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class, RETURNS_DEEP_STUBS);
+        when(sessionFactory.getMappingMetamodel().getEntityDescriptor(User.class).getGenerator()).thenReturn(generator);
+        when(sessionFactory.openSession()).thenReturn(mock(SessionImplementor.class));
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        when(entityManager.getEntityManagerFactory()).thenReturn(entityManagerFactory);
+        doAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setId(user.getReservedId());
+            persisted.add(user.getId() + "@" + UserShardRouting.currentShard());
+            return null;
+        }).when(entityManager).persist(any());
+
+        writer = new UserBulkWriter(entityManager, TestShards.sharded(3), userRepository,
+                mock(UserOutboxRepository.class), 50);
+    }
+
+    @Test
+    void insertsEachUserOnItsShardAndShardZeroLast() {
+        List<User> users = users(6);
+
+        Integer checkpointShard = writer.insertChunk(users, UserShardRouting::currentShard);
+
+        assertThat(persisted).containsExactly("1@1", "4@1", "2@2", "5@2", "3@0", "6@0");
+        assertThat(checkpointShard).isEqualTo(UserShardRouting.GLOBAL_SHARD);
+        assertThat(users).extracting(User::getId).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        verify(userRepository).claim(users);
+        verify(userRepository, never()).release(any());
+    }
+
+    @Test
+    void reportsShardsCommittedBeforeShardZeroFailed() {
+        List<User> users = users(6);
+        List<User> committed = new ArrayList<>();
+
+        assertThatThrownBy(() -> writer.insertChunk(users, () -> {
+            throw new DataIntegrityViolationException("duplicate");
+        }, committed)).isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(committed).extracting(User::getId).containsExactly(1L, 4L, 2L, 5L);
+        // Only the users that were rolled back give up their names
+        verify(userRepository).release(argThat(failed -> ids(failed).equals(List.of(3L, 6L))));
+    }
+
+    @Test
+    void insertsSingleUsersThroughTheSamePath() {
+        User saved = writer.insert(user("solo"));
+
+        assertThat(saved.getId()).isEqualTo(1L);
+        assertThat(persisted).containsExactly("1@1");
+        verify(userRepository).claim(List.of(saved));
+    }
+
+    @Test
+    void surfacesDuplicateNamesAsDataIntegrityViolations() {
+        doThrow(new ConstraintViolationException("Duplicate entry 'user1' for key 'users.username'",
+                new SQLIntegrityConstraintViolationException("Duplicate entry"), "users.username"))
+                .when(entityManager).flush();
+
+        assertThatThrownBy(() -> writer.insert(user("user1")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        verify(userRepository).release(any());
+    }
+
+    private static List<Long> ids(Collection<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+
+    private static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            users.add(user("user" + i));
+        }
+        return users;
+    }
+
+    private static User user(String username) {
+        return new User(username, username + "@example.com", "hash", username);
+    }
+}
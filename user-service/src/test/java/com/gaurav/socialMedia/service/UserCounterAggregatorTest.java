@@ -0,0 +1,244 @@
+package com.gaurav.socialMedia.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.gaurav.socialMedia.Entity.CounterType;
+import com.gaurav.socialMedia.Entity.UserCounterDelta;
+import com.gaurav.socialMedia.Entity.UserOutboxEvent;
+import com.gaurav.socialMedia.Entity.UserShardBucket;
+import com.gaurav.socialMedia.repository.UserCounterRepository;
+import com.gaurav.socialMedia.repository.UserOutboxRepository;
+import com.gaurav.socialMedia.repository.UserShardMapRepository;
+import com.gaurav.socialMedia.support.TestShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserCounterAggregatorTest {
+
+    private final UserCounterRepository counterRepository = mock(UserCounterRepository.class);
+    private final UserOutboxRepository outboxRepository = mock(UserOutboxRepository.class);
+    private final List<Map<Long, UserCounterDelta>> flushed = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private UserCounterAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        when(counterRepository.applyDeltas(any())).thenAnswer(invocation -> {
+            Map<Long, UserCounterDelta> deltas = invocation.getArgument(0);
+            flushed.add(new TreeMap<>(deltas));
+            int[] rows = new int[deltas.size()];
+            Arrays.fill(rows, 1);
+            return rows;
+        });
+        aggregator = new UserCounterAggregator(counterRepository, outboxRepository, TestShards.unsharded(),
+                meterRegistry);
+        ReflectionTestUtils.setField(aggregator, "maxPendingUsers", 10_000);
+        ReflectionTestUtils.setField(aggregator, "shutdownDrainAttempts", 3);
+    }
+
+    @Test
+    void coalescesDeltasPerUserIntoOneRowUpdate() {
+        aggregator.record(1L, CounterType.FOLLOWERS, 1);
+        aggregator.record(1L, CounterType.FOLLOWERS, 1);
+        aggregator.record(1L, CounterType.FOLLOWERS, -1);
+        aggregator.record(1L, CounterType.TWEETS, 5);
+        aggregator.record(2L, CounterType.FOLLOWING, 3);
+
+        assertThat(aggregator.getPendingUserCount()).isEqualTo(2);
+        aggregator.flush();
+
+        assertThat(flushed).hasSize(1);
+        Map<Long, UserCounterDelta> batch = flushed.get(0);
+        assertThat(batch.keySet()).containsExactly(1L, 2L);
+        assertThat(batch.get(1L).getFollowers()).isEqualTo(1);
+        assertThat(batch.get(1L).getTweets()).isEqualTo(5);
+        assertThat(batch.get(2L).getFollowing()).isEqualTo(3);
+        verify(outboxRepository).append(batch.keySet(), UserOutboxEvent.Type.COUNTERS_CHANGED);
+        assertThat(aggregator.getPendingUserCount()).isZero();
+    }
+
+    @Test
+    void skipsDeltasThatCancelOut() {
+        aggregator.record(1L, CounterType.FOLLOWERS, 0);
+        aggregator.record(2L, CounterType.FOLLOWERS, 1);
+        aggregator.record(2L, CounterType.FOLLOWERS, -1);
+
+        aggregator.flush();
+
+        verify(counterRepository, never()).applyDeltas(any());
+    }
+
+    @Test
+    void requeuesDeltasOfAFailedFlush() {
+        doThrow(new IllegalStateException("database down"))
+                .doAnswer(invocation -> {
+                    Map<Long, UserCounterDelta> deltas = invocation.getArgument(0);
+                    flushed.add(new TreeMap<>(deltas));
+                    return new int[] {1};
+                })
+                .when(counterRepository).applyDeltas(any());
+
+        aggregator.record(7L, CounterType.FOLLOWERS, 2);
+        aggregator.flush();
+        assertThat(aggregator.getPendingUserCount()).isEqualTo(1);
+
+        aggregator.record(7L, CounterType.FOLLOWERS, 3);
+        aggregator.flush();
+
+        assertThat(flushed).hasSize(1);
+        assertThat(flushed.get(0).get(7L).getFollowers()).isEqualTo(5);
+    }
+
+    @Test
+    void flushesEarlyWhenTooManyUsersArePending() {
+        ReflectionTestUtils.setField(aggregator, "maxPendingUsers", 3);
+
+        aggregator.record(1L, CounterType.TWEETS, 1);
+        aggregator.record(2L, CounterType.TWEETS, 1);
+        assertThat(flushed).isEmpty();
+        aggregator.record(3L, CounterType.TWEETS, 1);
+
+        assertThat(flushed).hasSize(1);
+        assertThat(aggregator.getPendingUserCount()).isZero();
+    }
+
+    @Test
+    void drainsPendingDeltasOnStop() {
+        aggregator.start();
+        aggregator.record(1L, CounterType.FOLLOWERS, 1);
+        aggregator.record(2L, CounterType.FOLLOWERS, 1);
+
+        aggregator.stop();
+
+        assertThat(aggregator.isRunning()).isFalse();
+        assertThat(aggregator.getPendingUserCount()).isZero();
+        assertThat(flushed).hasSize(1);
+        assertThat(flushed.get(0)).containsOnlyKeys(1L, 2L);
+    }
+
+    @Test
+    void retriesTheDrainOnStopUntilItSucceeds() {
+        doThrow(new IllegalStateException("database down"))
+                .doReturn(new int[] {1})
+                .when(counterRepository).applyDeltas(any());
+        aggregator.record(1L, CounterType.FOLLOWERS, 1);
+
+        aggregator.stop();
+
+        verify(counterRepository, times(2)).applyDeltas(any());
+        assertThat(aggregator.getPendingUserCount()).isZero();
+    }
+
+    @Test
+    void coalescedDeltasClampAtZeroPerEvent() {
+        // At 0, an unfollow is lost and the follow after it counts
+        aggregator.record(1L, CounterType.FOLLOWERS, -1);
+        aggregator.record(1L, CounterType.FOLLOWERS, 1);
+        aggregator.flush();
+
+        UserCounterDelta delta = flushed.get(0).get(1L);
+        assertThat(delta.isZero()).isFalse();
+        assertThat(applyOneRow(0, delta)).isEqualTo(1);
+        assertThat(applyOneRow(5, delta)).isEqualTo(5);
+    }
+
+    @Test
+    void oneRowUpdateMatchesApplyingEachEvent() {
+        long[][] sequences = {
+                {1, -1, -1, 1}, {-1, -1, -1}, {-1, 1, 1, -1, -1, -1, 1}, {3, -5, 2}, {-2, 4, -7, 1}
+        };
+        for (long[] events : sequences) {
+            UserCounterDelta delta = UserCounterDelta.of(CounterType.TWEETS, events[0]);
+            for (int i = 1; i < events.length; i++) {
+                delta = delta.plus(UserCounterDelta.of(CounterType.TWEETS, events[i]));
+            }
+            for (long start = 0; start <= 4; start++) {
+                long count = start;
+                for (long event : events) {
+                    count = Math.max(0, count + event);
+                }
+                assertThat(Math.max(start + delta.getTweets(), delta.getTweets() - delta.getTweetsLow()))
+                        .as("%s from %d", Arrays.toString(events), start)
+                        .isEqualTo(count);
+            }
+        }
+    }
+
+    @Test
+    void requeuedDeltasStayAheadOfNewerOnes() {
+        doThrow(new IllegalStateException("database down"))
+                .doAnswer(invocation -> {
+                    Map<Long, UserCounterDelta> deltas = invocation.getArgument(0);
+                    flushed.add(new TreeMap<>(deltas));
+                    return new int[] {1};
+                })
+                .when(counterRepository).applyDeltas(any());
+
+        aggregator.record(7L, CounterType.FOLLOWERS, -1);
+        aggregator.flush();
+        aggregator.record(7L, CounterType.FOLLOWERS, 1);
+        aggregator.flush();
+
+        // Unfollow then follow, not the other way round
+        assertThat(applyOneRow(0, flushed.get(0).get(7L))).isEqualTo(1);
+    }
+
+    @Test
+    void countsOnlyRowsThatWereUpdated() {
+        doReturn(new int[] {1, 0, 1}).when(counterRepository).applyDeltas(any());
+        aggregator.record(1L, CounterType.TWEETS, 1);
+        aggregator.record(2L, CounterType.TWEETS, 1);
+        aggregator.record(3L, CounterType.TWEETS, 1);
+
+        aggregator.flush();
+
+        assertThat(meterRegistry.get("user.counters.flushed").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void keepsUsersOfAMovingBucketQueuedWithoutHoldingUpTheirShard() {
+        // Users 1 and 4 share shard 1 of 3; bucket 1 is being moved
+        List<UserShardBucket> buckets = TestShards.buckets(3);
+        buckets.set(1, new UserShardBucket(1, 1, UserShardBucket.State.FROZEN));
+        UserShardMapRepository mapRepository = mock(UserShardMapRepository.class);
+        when(mapRepository.findAll()).thenReturn(buckets);
+        aggregator = new UserCounterAggregator(counterRepository, outboxRepository,
+                TestShards.sharded(3, Duration.ofSeconds(3), mapRepository), meterRegistry);
+        ReflectionTestUtils.setField(aggregator, "maxPendingUsers", 10_000);
+
+        aggregator.record(1L, CounterType.TWEETS, 1);
+        aggregator.record(3L, CounterType.TWEETS, 1);
+        aggregator.record(4L, CounterType.TWEETS, 1);
+        // A write to shard 1 would wait up to max-write-wait (10s)
+        assertTimeout(Duration.ofSeconds(2), aggregator::flush);
+
+        assertThat(flushed).hasSize(1);
+        assertThat(flushed.get(0)).containsOnlyKeys(3L);
+        assertThat(aggregator.getPendingUserCount()).isEqualTo(2);
+    }
+
+    // Followers after UserCounterRepository's row update
+    private static long applyOneRow(long count, UserCounterDelta delta) {
+        return Math.max(count + delta.getFollowers(), delta.getFollowers() - delta.getFollowersLow());
+    }
+}
@@ -0,0 +1,168 @@
+package com.gaurav.socialMedia.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserImportJob;
+import com.gaurav.socialMedia.Entity.UserImportJobDto;
+import com.gaurav.socialMedia.exception.ImportJobRunningException;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+import com.gaurav.socialMedia.repository.UserImportJobRepository;
+
+import jakarta.validation.Validation;
+
+class UserImportServiceTest {
+
+    private final ShardedUserRepository userRepository = mock(ShardedUserRepository.class);
+    private final UserImportJobRepository jobRepository = mock(UserImportJobRepository.class);
+    private final UserBulkWriter bulkWriter = mock(UserBulkWriter.class);
+    private final Map<String, UserImportJob> jobs = new HashMap<>();
+    // Users already in the database, as seen by the duplicate check
+    private final List<User> existing = new ArrayList<>();
+    private UserImportService service;
+
+    @BeforeEach
+    void setUp() {
+        when(jobRepository.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(jobs.get(invocation.<String>getArgument(0))));
+        when(jobRepository.save(any())).thenAnswer(invocation -> {
+            UserImportJob job = invocation.getArgument(0);
+            jobs.put(job.getJobId(), job);
+            return job;
+        });
+        when(userRepository.findExistingUsernames(anyCollection())).thenAnswer(invocation ->
+                existing.stream().map(User::getUsername).toList());
+        when(userRepository.findExistingEmails(anyCollection())).thenAnswer(invocation ->
+                existing.stream().map(User::getEmail).toList());
+        PasswordHashingService hashing = mock(PasswordHashingService.class);
+        when(hashing.hashAll(anyList())).thenAnswer(invocation ->
+                invocation.<List<String>>getArgument(0).stream().map(password -> "hashed-" + password).toList());
+
+        service = new UserImportService(userRepository, jobRepository, bulkWriter, hashing,
+                mock(UserAvailabilityFilter.class), mock(UserNegativeCache.class), mock(UserSearchIndex.class),
+                mock(UserAutocompleteIndex.class), new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "chunkSize", 10);
+        ReflectionTestUtils.setField(service, "staleAfter", Duration.ofMinutes(10));
+    }
+
+    @Test
+    void countsUsersCommittedBeforeARetryAsImported() {
+        List<Integer> attempts = new ArrayList<>();
+        when(bulkWriter.insertChunk(anyList(), any(), anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            attempts.add(users.size());
+            if (attempts.size() == 1) {
+                // Alice's shard commits, then shard 0 hits a concurrent signup
+                invocation.<List<User>>getArgument(2).add(users.get(0));
+                existing.add(users.get(0));
+                throw new DataIntegrityViolationException("duplicate");
+            }
+            return invocation.<Supplier<?>>getArgument(1).get();
+        });
+
+        UserImportJobDto result = service.importUsers("job-1", UserDataFormat.NDJSON, ndjson(
+                "{\"username\":\"alice\",\"email\":\"alice@example.com\",\"password\":\"secret1\"}",
+                "{\"username\":\"bob\",\"email\":\"bob@example.com\",\"password\":\"secret2\"}",
+                "{\"username\":\"ALICE\",\"email\":\"alice2@example.com\",\"password\":\"secret3\"}"));
+
+        assertThat(attempts).containsExactly(2, 1);
+        assertThat(result.getStatus()).isEqualTo(UserImportJob.Status.COMPLETED);
+        UserImportJob job = jobs.get("job-1");
+        assertThat(job.getImported()).isEqualTo(2);
+        // Only the second ALICE, not the user committed by the first attempt
+        assertThat(job.getDuplicates()).isEqualTo(1);
+        assertThat(job.getRecordsRead()).isEqualTo(3);
+    }
+
+    @Test
+    void reportsARejectedRecordOnceWhenItsChunkIsRetried() {
+        List<Integer> attempts = new ArrayList<>();
+        when(bulkWriter.insertChunk(anyList(), any(), anyList())).thenAnswer(invocation -> {
+            attempts.add(attempts.size());
+            if (attempts.size() == 1) {
+                throw new DataIntegrityViolationException("duplicate");
+            }
+            return invocation.<Supplier<?>>getArgument(1).get();
+        });
+
+        UserImportJobDto result = service.importUsers("job-1", UserDataFormat.NDJSON, ndjson(
+                "{\"username\":\"alice\",\"email\":\"alice@example.com\",\"password\":\"secret1\"}",
+                "not json"));
+
+        assertThat(attempts).hasSize(2);
+        assertThat(result.getErrors()).containsExactly("Record 2: Malformed JSON");
+        assertThat(jobs.get("job-1").getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void turnsAwayAnUploadOfAJobThatIsStillRunning() {
+        UserImportJob running = new UserImportJob("job-1", "NDJSON");
+        jobs.put("job-1", running);
+
+        assertThatThrownBy(() -> service.importUsers("job-1", UserDataFormat.NDJSON, ndjson(
+                "{\"username\":\"alice\",\"email\":\"alice@example.com\",\"password\":\"secret1\"}")))
+                .isInstanceOf(ImportJobRunningException.class);
+
+        verify(bulkWriter, never()).insertChunk(anyList(), any(), anyList());
+        assertThat(jobs.get("job-1").getStatus()).isEqualTo(UserImportJob.Status.RUNNING);
+    }
+
+    @Test
+    void resumesAFailedJobAfterItsCheckpoint() {
+        UserImportJob failed = new UserImportJob("job-1", "NDJSON");
+        failed.setStatus(UserImportJob.Status.FAILED);
+        failed.setRecordsRead(1);
+        failed.setImported(1);
+        jobs.put("job-1", failed);
+        when(jobRepository.claim(eq("job-1"), any(), any())).thenAnswer(invocation -> {
+            failed.setStatus(UserImportJob.Status.RUNNING);
+            return 1;
+        });
+        List<String> inserted = new ArrayList<>();
+        when(bulkWriter.insertChunk(anyList(), any(), anyList())).thenAnswer(invocation -> {
+            invocation.<List<User>>getArgument(0).forEach(user -> inserted.add(user.getUsername()));
+            return invocation.<Supplier<?>>getArgument(1).get();
+        });
+
+        UserImportJobDto result = service.importUsers("job-1", UserDataFormat.NDJSON, ndjson(
+                "{\"username\":\"alice\",\"email\":\"alice@example.com\",\"password\":\"secret1\"}",
+                "",
+                "{\"username\":\"bob\",\"email\":\"bob@example.com\",\"password\":\"secret2\"}"));
+
+        assertThat(inserted).containsExactly("bob");
+        assertThat(result.getStatus()).isEqualTo(UserImportJob.Status.COMPLETED);
+        assertThat(jobs.get("job-1").getImported()).isEqualTo(2);
+        assertThat(jobs.get("job-1").getRecordsRead()).isEqualTo(2);
+    }
+
+    private static ByteArrayInputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,57 @@
+package com.gaurav.socialMedia.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Misses reported by lookups that raced a registration.
+ */
+class UserNegativeCacheTest {
+
+    private final UserNegativeCache cache = new UserNegativeCache(mock(StringRedisTemplate.class),
+            new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+
+    @Test
+    void keepsAMissWhenNothingWasInvalidatedDuringTheLookup() {
+        long generation = cache.generation();
+
+        cache.putMissingId(1L, generation);
+        cache.putMissingUsername("Bob", generation);
+
+        assertThat(cache.isMissingId(1L)).isTrue();
+        assertThat(cache.isMissingUsername("bob")).isTrue();
+    }
+
+    @Test
+    void dropsAMissFromALookupThatStartedBeforeARegistration() {
+        long generation = cache.generation();
+        // Registered, and invalidated, while the lookup read the database
+        cache.invalidate(1L, "bob");
+
+        cache.putMissingId(1L, generation);
+        cache.putMissingUsername("bob", generation);
+
+        assertThat(cache.isMissingId(1L)).isFalse();
+        assertThat(cache.isMissingUsername("bob")).isFalse();
+    }
+
+    @Test
+    void dropsAMissFromALookupThatStartedBeforeARegistrationElsewhere() {
+        long generation = cache.generation();
+        cache.onMessage(new DefaultMessage(UserNegativeCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "1\nbob".getBytes(StandardCharsets.UTF_8)), null);
+
+        cache.putMissingId(1L, generation);
+
+        assertThat(cache.isMissingId(1L)).isFalse();
+    }
+}
@@ -0,0 +1,149 @@
+package com.gaurav.socialMedia.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserOutboxEvent;
+import com.gaurav.socialMedia.config.DataSourceRouting;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+import com.gaurav.socialMedia.repository.UserOutboxRepository;
+import com.gaurav.socialMedia.support.TestShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserOutboxRelayTest {
+
+    private final UserOutboxRepository outboxRepository = mock(UserOutboxRepository.class);
+    private final ShardedUserRepository userRepository = mock(ShardedUserRepository.class);
+    private final UserProfileCache profileCache = mock(UserProfileCache.class);
+    private final UserNearCache nearCache = mock(UserNearCache.class);
+    private final UserAutocompleteIndex autocompleteIndex = mock(UserAutocompleteIndex.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final List<Boolean> readsOnPrimary = new ArrayList<>();
+    private UserOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.shards()).thenReturn(TestShards.unsharded());
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(userRepository.findAllById(anyCollection())).thenAnswer(invocation -> {
+            readsOnPrimary.add(DataSourceRouting.isPrimaryRequired());
+            List<User> users = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                users.add(user(id, id != 3L));
+            }
+            return users;
+        });
+        relay = new UserOutboxRelay(outboxRepository, userRepository, profileCache, nearCache,
+                autocompleteIndex, transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(relay, "batchSize", 10);
+        ReflectionTestUtils.setField(relay, "maxBatchesPerPoll", 20);
+    }
+
+    @Test
+    void appliesClaimedEventsAndDeletesThemInTheClaimTransaction() {
+        when(outboxRepository.claimBatch(10)).thenReturn(List.of(
+                event(1, 1L, UserOutboxEvent.Type.USER_CHANGED),
+                event(2, 2L, UserOutboxEvent.Type.COUNTERS_CHANGED),
+                event(3, 1L, UserOutboxEvent.Type.COUNTERS_CHANGED),
+                event(4, 3L, UserOutboxEvent.Type.USER_DEACTIVATED)));
+
+        relay.relay();
+
+        verify(profileCache).putAll(argThat(users -> ids(users).equals(List.of(1L))));
+        verify(profileCache).refreshCounters(argThat(users -> ids(users).equals(List.of(2L))));
+        verify(profileCache).evictAll(argThat(users -> ids(users).equals(List.of(3L))));
+        verify(nearCache).invalidateAll(Set.of(1L, 2L, 3L));
+        verify(autocompleteIndex).updateFollowers(argThat(users -> ids(users).equals(List.of(2L, 1L))));
+        verify(outboxRepository).delete(List.of(1L, 2L, 3L, 4L));
+        verify(outboxRepository, times(1)).claimBatch(anyInt());
+        assertThat(committed().isRollbackOnly()).isFalse();
+    }
+
+    @Test
+    void rereadsUsersOnThePrimaryOutsideTheClaimTransaction() {
+        when(outboxRepository.claimBatch(10)).thenReturn(List.of(event(1, 1L, UserOutboxEvent.Type.USER_CHANGED)));
+
+        relay.relay();
+
+        assertThat(readsOnPrimary).containsExactly(true);
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(2)).getTransaction(definitions.capture());
+        assertThat(definitions.getAllValues()).extracting(TransactionDefinition::getPropagationBehavior)
+                .containsExactly(TransactionDefinition.PROPAGATION_REQUIRES_NEW,
+                        TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+    }
+
+    @Test
+    void rollsBackAndKeepsEventsWhenRedisFails() {
+        when(outboxRepository.claimBatch(10)).thenReturn(List.of(event(1, 1L, UserOutboxEvent.Type.USER_CHANGED)));
+        doThrow(new IllegalStateException("Redis down")).when(profileCache).putAll(any());
+
+        relay.relay();
+
+        verify(outboxRepository, never()).delete(any());
+        // The transaction manager rolls back a rollback-only commit, releasing the claim
+        assertThat(committed().isRollbackOnly()).isTrue();
+    }
+
+    @Test
+    void keepsClaimingWhileBatchesAreFull() {
+        ReflectionTestUtils.setField(relay, "batchSize", 2);
+        when(outboxRepository.claimBatch(2)).thenReturn(
+                List.of(event(1, 1L, UserOutboxEvent.Type.USER_CHANGED), event(2, 2L, UserOutboxEvent.Type.USER_CHANGED)),
+                List.of(event(3, 4L, UserOutboxEvent.Type.USER_CHANGED), event(4, 5L, UserOutboxEvent.Type.USER_CHANGED)),
+                List.of(event(5, 6L, UserOutboxEvent.Type.USER_CHANGED)));
+
+        relay.relay();
+
+        verify(outboxRepository, times(3)).claimBatch(2);
+        verify(outboxRepository, times(3)).delete(any());
+    }
+
+    // The claim transaction commits last, after the one suspended for the user read
+    private TransactionStatus committed() {
+        ArgumentCaptor<TransactionStatus> statuses = ArgumentCaptor.forClass(TransactionStatus.class);
+        verify(transactionManager, atLeastOnce()).commit(statuses.capture());
+        return statuses.getAllValues().get(statuses.getAllValues().size() - 1);
+    }
+
+    private static List<Long> ids(Collection<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+
+    private static UserOutboxEvent event(long id, Long userId, UserOutboxEvent.Type type) {
+        return new UserOutboxEvent(id, userId, type, null);
+    }
+
+    private static User user(Long id, boolean active) {
+        User user = new User("user" + id, "user" + id + "@example.com", "hash", "User " + id);
+        user.setId(id);
+        user.setIsActive(active);
+        return user;
+    }
+}
@@ -0,0 +1,119 @@
+package com.gaurav.socialMedia.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.Entity.UserResponseDto;
+import com.gaurav.socialMedia.config.RedisConfig;
+import com.gaurav.socialMedia.config.UserCacheValueSerializer;
+import com.github.fppt.jedismock.RedisServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The versioned write scripts against an in-process Redis.
+ */
+class UserProfileCacheTest {
+
+    private RedisServer redis;
+    private LettuceConnectionFactory connectionFactory;
+    private UserProfileCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        redis = RedisServer.newRedisServer().start();
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getBindPort());
+        connectionFactory.afterPropertiesSet();
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        UserCacheValueSerializer valueSerializer = RedisConfig.cacheValueSerializer();
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
+        template.afterPropertiesSet();
+        cache = new UserProfileCache(template, new ObjectMapper(), new SimpleMeterRegistry(), 0.1, 1.0);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        connectionFactory.destroy();
+        redis.stop();
+    }
+
+    @Test
+    void keepsTheNewerProfileWhenAnOlderReadFinishesLate() {
+        cache.putAll(List.of(user(1L, "Fresh", 10, 3)), 5);
+        cache.putAll(List.of(user(1L, "Stale", 2, 2)), 5);
+
+        UserResponseDto cached = cache.get(1L);
+        assertThat(cached.getFullName()).isEqualTo("Fresh");
+        assertThat(cached.getFollowersCount()).isEqualTo(10);
+        assertThat(cache.lookupIndex(UserProfileCache.USERNAME_INDEX_PREFIX, "user1")).isEqualTo(1L);
+
+        cache.putAll(List.of(user(1L, "Renamed", 11, 4)), 5);
+        assertThat(cache.get(1L).getFullName()).isEqualTo("Renamed");
+    }
+
+    @Test
+    void appliesOnlyNewerCounters() {
+        cache.putAll(List.of(user(1L, "User", 10, 5)), 5);
+
+        cache.refreshCounters(List.of(user(1L, "User", 7, 4)));
+        assertThat(cache.get(1L).getFollowersCount()).isEqualTo(10);
+
+        cache.refreshCounters(List.of(user(1L, "User", 12, 6)));
+        assertThat(cache.get(1L).getFollowersCount()).isEqualTo(12);
+    }
+
+    @Test
+    void evictionKeepsOlderReadsOut() {
+        cache.putAll(List.of(user(1L, "Active", 10, 5)), 5);
+
+        cache.evictAll(List.of(user(1L, "Active", 10, 6)));
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.lookupIndex(UserProfileCache.USERNAME_INDEX_PREFIX, "user1")).isNull();
+
+        // Read before the deactivation, written after it
+        cache.putAll(List.of(user(1L, "Active", 10, 5)), 5);
+        assertThat(cache.get(1L)).isNull();
+
+        cache.putAll(List.of(user(1L, "Reloaded", 10, 6)), 5);
+        assertThat(cache.get(1L).getFullName()).isEqualTo("Reloaded");
+    }
+
+    @Test
+    void reloadsScriptsThatRedisForgot() {
+        cache.putAll(List.of(user(1L, "User", 10, 5)), 5);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.scriptingCommands().scriptFlush();
+        }
+
+        cache.putAll(List.of(user(2L, "Other", 3, 1)), 5);
+        cache.refreshCounters(List.of(user(1L, "User", 12, 6)));
+
+        assertThat(cache.get(2L).getFullName()).isEqualTo("Other");
+        assertThat(cache.get(1L).getFollowersCount()).isEqualTo(12);
+    }
+
+    private static User user(Long id, String fullName, int followers, long version) {
+        User user = new User("user" + id, "user" + id + "@example.com", "hash", fullName);
+        user.setId(id);
+        user.setIsActive(true);
+        user.setFollowersCount(followers);
+        user.setVersion(version);
+        return user;
+    }
+}
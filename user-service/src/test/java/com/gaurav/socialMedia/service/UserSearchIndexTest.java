@@ -0,0 +1,148 @@
+package com.gaurav.socialMedia.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.gaurav.socialMedia.Entity.User;
+import com.gaurav.socialMedia.repository.ShardedUserRepository;
+import com.gaurav.socialMedia.support.TestShards;
+
+class UserSearchIndexTest {
+
+    private final ShardedUserRepository repository = mock(ShardedUserRepository.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final UserAutocompleteIndex autocompleteIndex = mock(UserAutocompleteIndex.class);
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.shards()).thenReturn(TestShards.unsharded());
+        index = new UserSearchIndex(null, repository, redisTemplate, autocompleteIndex);
+    }
+
+    @Test
+    void ranksShortQueriesByMatchThenUsernameLength() {
+        index.update(user(1, "bobby", "Robert Smith"));
+        index.update(user(2, "bo", "Someone Else"));
+        index.update(user(3, "alice", "Bo Diddley"));
+        index.update(user(4, "bob", "Bob Jones"));
+
+        // Exact username, then username prefixes by length, then word prefixes
+        assertThat(index.search("bo", 0, 10)).containsExactly(2L, 4L, 1L, 3L);
+        assertThat(index.search("BO", 1, 2)).containsExactly(4L, 1L);
+        assertThat(index.search("b", 0, 10)).containsExactly(2L, 4L, 1L, 3L);
+    }
+
+    @Test
+    void shortQueriesFollowRenamesAndDeactivation() {
+        index.update(user(1, "bob", "Bob Jones"));
+        index.update(user(2, "bobcat", "Cat"));
+
+        index.update(user(1, "zed", "Zed Jones"));
+        User inactive = user(2, "bobcat", "Cat");
+        inactive.setIsActive(false);
+        index.update(inactive);
+
+        assertThat(index.search("bo", 0, 10)).isEmpty();
+        assertThat(index.search("ze", 0, 10)).containsExactly(1L);
+        assertThat(index.search("jo", 0, 10)).containsExactly(1L);
+    }
+
+    @Test
+    void longQueriesMatchOnTrigrams() {
+        index.update(user(1, "johnsmith", "John Smith"));
+        index.update(user(2, "smithy", "Jane Doe"));
+        index.update(user(3, "other", "Nobody"));
+
+        assertThat(index.search("smith", 0, 10)).containsExactly(2L, 1L);
+        assertThat(index.search("john smith", 0, 10)).containsExactly(1L);
+        assertThat(index.search("xyz", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void appliesChangesOnlyWhenTheTransactionCommits() {
+        index.update(user(1, "bob", "Bob Jones"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.update(user(1, "zed", "Zed Jones"));
+            assertThat(index.search("ze", 0, 10)).isEmpty();
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(index.search("ze", 0, 10)).isEmpty();
+        assertThat(index.search("bo", 0, 10)).containsExactly(1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.update(user(1, "zed", "Zed Jones"));
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(index.search("ze", 0, 10)).containsExactly(1L);
+        assertThat(index.search("bo", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void reloadsUsersChangedOnOtherInstancesButNotItsOwn() {
+        index.update(user(1, "bob", "Bob Jones"));
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(UserSearchIndex.UPDATE_CHANNEL), payload.capture());
+        Message message = new DefaultMessage(UserSearchIndex.UPDATE_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                payload.getValue().getBytes(StandardCharsets.UTF_8));
+
+        index.onMessage(message, null);
+        verify(repository, never()).findById(any());
+        verify(autocompleteIndex, never()).update(any());
+
+        // Read once for both indexes
+        UserSearchIndex other = new UserSearchIndex(null, repository, redisTemplate, autocompleteIndex);
+        User bob = user(1, "bob", "Bob Jones");
+        when(repository.findById(1L)).thenReturn(Optional.of(bob));
+        other.onMessage(message, null);
+        assertThat(other.search("bo", 0, 10)).containsExactly(1L);
+        verify(autocompleteIndex).update(bob);
+    }
+
+    @Test
+    void shortQueriesAreTheOnesMatchedByWordPrefix() {
+        assertThat(UserSearchIndex.matchesWordPrefixes(" bo ")).isTrue();
+        assertThat(UserSearchIndex.matchesWordPrefixes("bob")).isFalse();
+    }
+
+    // As AbstractPlatformTransactionManager ends a transaction
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private static User user(long id, String username, String fullName) {
+        User user = new User(username, username + "@example.com", "hash", fullName);
+        user.setId(id);
+        user.setIsActive(true);
+        return user;
+    }
+}
@@ -0,0 +1,162 @@
+package com.gaurav.socialMedia.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.gaurav.socialMedia.actuator.UserShardsEndpoint;
+import com.gaurav.socialMedia.config.ShardRoutingDataSource;
+import com.gaurav.socialMedia.config.UserShardRouting;
+import com.gaurav.socialMedia.repository.UserShardMapRepository;
+import com.gaurav.socialMedia.repository.UserShards;
+import com.gaurav.socialMedia.support.TestShards;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Bucket moves between three in-memory databases. Bucket {@code n} of three
+ * starts on shard {@code n}, with users {@code 1..30} on the shard of their
+ * bucket. Users are copied in chunks of four.
+ */
+class UserShardRebalancerTest {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    // Bucket 1, in id order
+    private static final List<Long> BUCKET_1 = List.of(1L, 4L, 7L, 10L, 13L, 16L, 19L, 22L, 25L, 28L);
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private ShardRoutingDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private UserShards shards;
+    private UserShardRebalancer rebalancer;
+
+    @BeforeEach
+    void setUp() {
+        int database = DATABASES.incrementAndGet();
+        for (int shard = 0; shard < 3; shard++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setJdbcUrl("jdbc:h2:mem:rebalancer-" + database + "-" + shard + ";DB_CLOSE_DELAY=-1");
+            pool.setMaximumPoolSize(4);
+            pools.add(pool);
+        }
+        dataSource = new ShardRoutingDataSource(pools.get(0), pools.subList(1, 3));
+        dataSource.afterPropertiesSet();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        PlatformTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+        // The bucket column as UserShards adds it
+        for (int shard = 0; shard < 3; shard++) {
+            onShard(shard, () -> jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY,"
+                    + " username VARCHAR(50) NOT NULL UNIQUE, bucket INT GENERATED ALWAYS AS (MOD(id, 3)))"));
+        }
+        onShard(UserShardRouting.GLOBAL_SHARD, () -> jdbcTemplate.execute(
+                "CREATE TABLE user_shard_buckets (bucket INT PRIMARY KEY, shard INT NOT NULL, state VARCHAR(10) NOT NULL)"));
+        UserShardMapRepository mapRepository = new UserShardMapRepository(dataSource, transactionManager);
+        mapRepository.insertAll(TestShards.buckets(3));
+        for (long id = 1; id <= 30; id++) {
+            insert((int) (id % 3), id, "user" + id);
+        }
+
+        // Every map read goes to the database; the freeze wait is one second
+        shards = TestShards.sharded(3, Duration.ZERO, mapRepository);
+        rebalancer = new UserShardRebalancer(shards, mapRepository, jdbcTemplate, transactionManager, 0, 4,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        rebalancer.shutdown();
+        shards.shutdown();
+        dataSource.destroy();
+        pools.get(0).close();
+    }
+
+    @Test
+    void movesABucketAndItsUsersToAnotherShard() throws InterruptedException {
+        // Left on the target by an earlier move that failed
+        insert(2, 100, "stray");
+
+        assertThat(rebalancer.startMove(1, 2)).isTrue();
+        awaitFinished();
+
+        assertThat(rebalancer.status())
+                .containsEntry("state", "DONE")
+                .containsEntry("bucketsMoved", 1)
+                .containsEntry("usersCopied", 10L);
+        assertThat(shards.shardOfBucket(1)).isEqualTo(2);
+        assertThat(shards.frozenBuckets()).isEmpty();
+        assertThat(idsOf(2, 1)).isEqualTo(BUCKET_1);
+        assertThat(idsOf(1, 1)).isEmpty();
+        assertThat(idsOf(2, 2)).hasSize(10);
+    }
+
+    @Test
+    void removesAPartialCopyAndUnfreezesTheBucketWhenAMoveFails() throws InterruptedException {
+        // The second chunk (13, 16, 19, 22) collides with this name on the target
+        onShard(2, () -> jdbcTemplate.update("UPDATE users SET username = 'user16' WHERE id = 2"));
+
+        assertThat(rebalancer.startMove(1, 2)).isTrue();
+        awaitFinished();
+
+        assertThat(rebalancer.status())
+                .containsEntry("state", "FAILED")
+                .containsEntry("bucketsMoved", 0);
+        assertThat(rebalancer.status().get("lastError")).isNotNull();
+        assertThat(shards.shardOfBucket(1)).isEqualTo(1);
+        assertThat(shards.frozenBuckets()).isEmpty();
+        assertThat(idsOf(1, 1)).isEqualTo(BUCKET_1);
+        assertThat(idsOf(2, 1)).isEmpty();
+        assertThat(idsOf(2, 2)).hasSize(10);
+    }
+
+    @Test
+    void rejectsAnotherTaskWhileAMoveRuns() throws InterruptedException {
+        UserShardsEndpoint endpoint = new UserShardsEndpoint(shards, rebalancer);
+
+        assertThat(endpoint.start(1, 2).getStatus()).isEqualTo(200);
+        // The first move is still in its freeze wait
+        assertThat(endpoint.start(0, 2).getStatus()).isEqualTo(409);
+        assertThat(endpoint.start(null, null).getStatus()).isEqualTo(409);
+        awaitFinished();
+
+        assertThat(shards.shardOfBucket(0)).isZero();
+        assertThat(shards.shardOfBucket(1)).isEqualTo(2);
+    }
+
+    private void insert(int shard, long id, String username) {
+        onShard(shard, () -> jdbcTemplate.update("INSERT INTO users (id, username) VALUES (?, ?)", id, username));
+    }
+
+    private List<Long> idsOf(int shard, int bucket) {
+        return UserShardRouting.onShard(shard, () -> jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE bucket = ? ORDER BY id", Long.class, bucket));
+    }
+
+    private void awaitFinished() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (List.of("RUNNING", "STOPPING").contains(rebalancer.status().get("state"))) {
+            assertThat(System.nanoTime() - deadline).as("move still running").isNegative();
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+
+    private static void onShard(int shard, Runnable action) {
+        UserShardRouting.onShard(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package com.gaurav.socialMedia.support;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.gaurav.socialMedia.Entity.UserShardBucket;
+import com.gaurav.socialMedia.repository.UserShardMapRepository;
+import com.gaurav.socialMedia.repository.UserShards;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Shard wiring for unit tests.
+ */
+public final class TestShards {
+
+    private TestShards() {
+    }
+
+    /**
+     * One shard whose writes run in a transaction of a mocked manager, i.e.
+     * the action simply runs.
+     */
+    public static UserShards unsharded() {
+        return new UserShards("", 1024, Duration.ofSeconds(3), Duration.ofSeconds(5), Duration.ofSeconds(10), 1,
+                null, null, null, mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+    }
+
+    /**
+     * {@code count} shards with one bucket each, so user {@code id} lives on
+     * shard {@code id % count}. Transactions are mocked as in
+     * {@link #unsharded()}.
+     */
+    public static UserShards sharded(int count) {
+        UserShardMapRepository mapRepository = mock(UserShardMapRepository.class);
+        when(mapRepository.findAll()).thenReturn(buckets(count));
+        return sharded(count, Duration.ofSeconds(3), mapRepository);
+    }
+
+    /**
+     * Like {@link #sharded(int)}, with the bucket map read from
+     * {@code mapRepository} whenever it is older than {@code maxMapAge}. The
+     * freeze wait is one second longer.
+     */
+    public static UserShards sharded(int count, Duration maxMapAge, UserShardMapRepository mapRepository) {
+        List<String> urls = new ArrayList<>(count - 1);
+        for (int shard = 1; shard < count; shard++) {
+            urls.add("jdbc:h2:mem:shard" + shard);
+        }
+        return new UserShards(String.join(",", urls), count, maxMapAge, maxMapAge.plusSeconds(1),
+                Duration.ofSeconds(10), 2,
+                mapRepository, null, null, mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+    }
+
+    /**
+     * A map of {@code count} active buckets, bucket {@code n} on shard
+     * {@code n}.
+     */
+    public static List<UserShardBucket> buckets(int count) {
+        List<UserShardBucket> buckets = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            buckets.add(new UserShardBucket(shard, shard, UserShardBucket.State.ACTIVE));
+        }
+        return buckets;
+    }
+}